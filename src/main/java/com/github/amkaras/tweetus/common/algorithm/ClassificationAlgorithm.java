@@ -12,8 +12,8 @@ import java.util.Set;
 public interface ClassificationAlgorithm {
 
     Map<Tweet, Optional<ClassificationCategory>> classify(
-            List<Tweet> tweets, Map<ClassificationCategory, Map<String, Long>> dictionary, boolean lemmatizationEnabled);
+            List<TokenizedTweet> tweets, Map<ClassificationCategory, Map<String, Long>> dictionary);
 
-    Map<Tweet, Optional<ClassificationCategory>> classify(
-            List<Tweet> tweets, Set<Document> classifiedDocuments, boolean lemmatizationEnabled, int k);
+    Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classify(
+            List<TokenizedTweet> tweets, Set<Document> classifiedDocuments, List<Integer> k);
 }
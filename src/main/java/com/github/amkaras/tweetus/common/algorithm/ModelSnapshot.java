@@ -0,0 +1,222 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import com.github.amkaras.tweetus.common.model.BinaryClassificationCategory;
+import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+import com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory;
+import com.github.amkaras.tweetus.common.util.AtomicFiles;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+public final class ModelSnapshot {
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final int MAGIC = 0x54575553;
+
+    public enum Kind {
+        NAIVE_BAYES, KNN
+    }
+
+    private final Kind kind;
+    private final String trainingSetIdentity;
+    private final Map<String, String> parameters;
+    private final ByteBuffer payload;
+
+    private ModelSnapshot(Kind kind, String trainingSetIdentity, Map<String, String> parameters, ByteBuffer payload) {
+        this.kind = kind;
+        this.trainingSetIdentity = trainingSetIdentity;
+        this.parameters = parameters;
+        this.payload = payload;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getTrainingSetIdentity() {
+        return trainingSetIdentity;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    public Reader payload() {
+        return new Reader(payload.duplicate());
+    }
+
+    /*
+    Identity does not depend on order of the training set
+     */
+    public static String trainingSetIdentity(Collection<String> tweetIds) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        tweetIds.stream()
+                .sorted()
+                .forEach(tweetId -> hasher.putString(tweetId, StandardCharsets.UTF_8).putByte((byte) 0));
+        return hasher.hash().toString();
+    }
+
+    public static void write(Path path, Kind kind, String trainingSetIdentity, Map<String, String> parameters,
+                             PayloadWriter payloadWriter) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        try (Writer writer = new Writer(payloadBytes)) {
+            payloadWriter.write(writer);
+        }
+        byte[] payload = payloadBytes.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+
+        AtomicFiles.write(path, output -> {
+            try (Writer writer = new Writer(output)) {
+                writer.writeInt(MAGIC);
+                writer.writeInt(FORMAT_VERSION);
+                writer.writeByte(kind.ordinal());
+                writer.writeString(trainingSetIdentity);
+                writer.writeInt(parameters.size());
+                for (Map.Entry<String, String> parameter : new TreeMap<>(parameters).entrySet()) {
+                    writer.writeString(parameter.getKey());
+                    writer.writeString(parameter.getValue());
+                }
+                writer.writeLong(payload.length);
+                writer.writeLong(checksum.getValue());
+                writer.write(payload);
+            }
+        });
+    }
+
+    public static ModelSnapshot read(Path path, Kind expectedKind) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        Reader header = new Reader(buffer);
+        if (buffer.remaining() < Integer.BYTES || header.readInt() != MAGIC) {
+            throw new IOException(path + " is not a model snapshot");
+        }
+        int formatVersion = header.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Snapshot " + path + " has format version " + formatVersion +
+                    ", supported version is " + FORMAT_VERSION);
+        }
+        Kind kind = Kind.values()[header.readByte()];
+        if (kind != expectedKind) {
+            throw new IOException("Snapshot " + path + " holds " + kind + " model instead of " + expectedKind);
+        }
+        String trainingSetIdentity = header.readString();
+        Map<String, String> parameters = new TreeMap<>();
+        int parametersCount = header.readInt();
+        for (int i = 0; i < parametersCount; ++i) {
+            parameters.put(header.readString(), header.readString());
+        }
+        long payloadLength = header.readLong();
+        long expectedChecksum = header.readLong();
+        if (payloadLength != buffer.remaining()) {
+            throw new IOException("Snapshot " + path + " is truncated");
+        }
+        ByteBuffer payload = buffer.slice();
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.duplicate());
+        if (checksum.getValue() != expectedChecksum) {
+            throw new IOException("Snapshot " + path + " is corrupted, checksum does not match");
+        }
+        return new ModelSnapshot(kind, trainingSetIdentity, parameters, payload);
+    }
+
+    @FunctionalInterface
+    public interface PayloadWriter {
+
+        void write(Writer writer) throws IOException;
+    }
+
+    public static final class Writer extends DataOutputStream {
+
+        private Writer(OutputStream output) {
+            super(new BufferedOutputStream(output));
+        }
+
+        public void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            write(bytes);
+        }
+
+        public void writeNullableString(String value) throws IOException {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeString(value);
+            }
+        }
+
+        public void writeCategory(ClassificationCategory category) throws IOException {
+            if (category instanceof BinaryClassificationCategory) {
+                writeByte(0);
+                writeByte(((BinaryClassificationCategory) category).ordinal());
+            } else if (category instanceof DifferentialClassificationCategory) {
+                writeByte(1);
+                writeByte(((DifferentialClassificationCategory) category).ordinal());
+            } else {
+                throw new IllegalArgumentException("Unknown classification category " + category);
+            }
+        }
+    }
+
+    public static final class Reader {
+
+        private final ByteBuffer buffer;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public byte readByte() {
+            return buffer.get();
+        }
+
+        public boolean readBoolean() {
+            return buffer.get() != 0;
+        }
+
+        public int readInt() {
+            return buffer.getInt();
+        }
+
+        public long readLong() {
+            return buffer.getLong();
+        }
+
+        public float readFloat() {
+            return buffer.getFloat();
+        }
+
+        public double readDouble() {
+            return buffer.getDouble();
+        }
+
+        public String readString() {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public String readNullableString() {
+            return readBoolean() ? readString() : null;
+        }
+
+        public ClassificationCategory readCategory() {
+            byte type = buffer.get();
+            byte ordinal = buffer.get();
+            return type == 0 ? BinaryClassificationCategory.values()[ordinal] : DifferentialClassificationCategory.values()[ordinal];
+        }
+    }
+}
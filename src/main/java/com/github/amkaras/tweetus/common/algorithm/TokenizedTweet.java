@@ -0,0 +1,49 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+
+import java.util.List;
+
+public class TokenizedTweet {
+
+    private final Tweet tweet;
+    private final String content;
+    private final List<String> tokens;
+    private final boolean lemmatized;
+
+    TokenizedTweet(Tweet tweet, List<String> tokens, boolean lemmatized) {
+        this.tweet = tweet;
+        this.content = tweet.getContent();
+        this.tokens = List.copyOf(tokens);
+        this.lemmatized = lemmatized;
+    }
+
+    public Tweet getTweet() {
+        return tweet;
+    }
+
+    public String getId() {
+        return tweet.getId();
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public boolean isLemmatized() {
+        return lemmatized;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenizedTweet{" +
+                "id='" + tweet.getId() + '\'' +
+                ", tokens=" + tokens +
+                ", lemmatized=" + lemmatized +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+import com.github.amkaras.tweetus.common.util.Tokenizer;
+import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+/*
+Tweets without id are tokenized on every request
+ */
+public class TokenizedTweets {
+
+    private final StanfordLemmatizerClient lemmatizerClient;
+    private final TokenFilters tokenFilters;
+    private final Map<String, TokenizedTweet> nonLemmatized = new HashMap<>();
+    private final Map<String, TokenizedTweet> lemmatized = new HashMap<>();
+
+    public TokenizedTweets(StanfordLemmatizerClient lemmatizerClient, TokenFilters tokenFilters) {
+        this.lemmatizerClient = lemmatizerClient;
+        this.tokenFilters = tokenFilters;
+    }
+
+    public synchronized List<TokenizedTweet> tokenize(List<Tweet> tweets, boolean lemmatizationEnabled) {
+        Map<String, TokenizedTweet> tokenizedById = lemmatizationEnabled ? lemmatized : nonLemmatized;
+        List<TokenizedTweet> tokenizedTweets = new ArrayList<>(tweets.size());
+        List<Tweet> notTokenized = new ArrayList<>();
+        for (Tweet tweet : tweets) {
+            TokenizedTweet tokenizedTweet = tweet.getId() == null ? null : tokenizedById.get(tweet.getId());
+            if (tokenizedTweet != null && tokenizedTweet.getTweet() != tweet) {
+                tokenizedTweet = new TokenizedTweet(tweet, tokenizedTweet.getTokens(), lemmatizationEnabled);
+            }
+            tokenizedTweets.add(tokenizedTweet);
+            if (tokenizedTweet == null) {
+                notTokenized.add(tweet);
+            }
+        }
+        if (notTokenized.isEmpty()) {
+            return tokenizedTweets;
+        }
+
+        Iterator<List<String>> tokens = (lemmatizationEnabled ? lemmatize(notTokenized) : prepare(notTokenized)).iterator();
+        for (int i = 0; i < tokenizedTweets.size(); ++i) {
+            if (tokenizedTweets.get(i) == null) {
+                Tweet tweet = tweets.get(i);
+                TokenizedTweet tokenizedTweet = new TokenizedTweet(tweet, tokens.next(), lemmatizationEnabled);
+                tokenizedTweets.set(i, tokenizedTweet);
+                if (tweet.getId() != null) {
+                    tokenizedById.put(tweet.getId(), tokenizedTweet);
+                }
+            }
+        }
+        return tokenizedTweets;
+    }
+
+    private List<List<String>> prepare(List<Tweet> tweets) {
+        return tweets.stream()
+                .map(tweet -> Tokenizer.prepareTokens(tweet, tokenFilters))
+                .collect(toList());
+    }
+
+    private List<List<String>> lemmatize(List<Tweet> tweets) {
+        List<String> contents = tokenize(tweets, false).stream()
+                .map(tokenizedTweet -> Tokenizer.join(tokenizedTweet.getTokens()))
+                .collect(toList());
+        return lemmatizerClient.lemmatizeAll(contents).stream()
+                .map(lemmas -> Tokenizer.prepareTokens(lemmas, tokenFilters))
+                .collect(toList());
+    }
+}
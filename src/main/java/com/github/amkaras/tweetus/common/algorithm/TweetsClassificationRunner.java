@@ -0,0 +1,75 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toConcurrentMap;
+import static java.util.stream.Collectors.toMap;
+
+public class TweetsClassificationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TweetsClassificationRunner.class);
+
+    private final ForkJoinPool pool;
+
+    private TweetsClassificationRunner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public static TweetsClassificationRunner sequential() {
+        return new TweetsClassificationRunner(null);
+    }
+
+    public static TweetsClassificationRunner parallel(ForkJoinPool pool) {
+        return new TweetsClassificationRunner(pool);
+    }
+
+    public <T, R> Map<T, R> run(List<T> tweets, Function<T, R> classification) {
+        AtomicInteger classifiedCount = new AtomicInteger();
+        Function<T, R> classificationWithProgress = tweet -> {
+            R result = classification.apply(tweet);
+            log.info("Classified {} out of {} tweets", classifiedCount.incrementAndGet(), tweets.size());
+            return result;
+        };
+        if (pool == null) {
+            return tweets.stream()
+                    .collect(toMap(identity(), classificationWithProgress));
+        }
+        /*
+        Parallel stream started from within the pool runs its tasks on the pool's workers
+         */
+        return pool.submit(() -> tweets.parallelStream()
+                .collect(toConcurrentMap(identity(), classificationWithProgress)))
+                .join();
+    }
+
+    public <T, R> Map<T, R> runInBatches(List<T> tweets, int batchSize,
+                                         Function<List<T>, Map<T, R>> classification) {
+        AtomicInteger classifiedCount = new AtomicInteger();
+        Function<List<T>, Map<T, R>> classificationWithProgress = batch -> {
+            Map<T, R> results = classification.apply(batch);
+            log.info("Classified {} out of {} tweets", classifiedCount.addAndGet(batch.size()), tweets.size());
+            return results;
+        };
+        List<List<T>> batches = Lists.partition(tweets, batchSize);
+        if (pool == null) {
+            return batches.stream()
+                    .map(classificationWithProgress)
+                    .flatMap(results -> results.entrySet().stream())
+                    .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+        return pool.submit(() -> batches.parallelStream()
+                .map(classificationWithProgress)
+                .flatMap(results -> results.entrySet().stream())
+                .collect(toConcurrentMap(Map.Entry::getKey, Map.Entry::getValue)))
+                .join();
+    }
+}
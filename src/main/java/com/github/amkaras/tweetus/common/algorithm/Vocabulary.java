@@ -0,0 +1,113 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/*
+Not thread-safe, lookups are as long as no token is interned at the same time
+ */
+public class Vocabulary {
+
+    public static final int UNKNOWN = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] tokens = new String[INITIAL_CAPACITY];
+    private int[] slots = emptySlots(INITIAL_CAPACITY * 2);
+    private int size;
+
+    public Vocabulary copy() {
+        Vocabulary copy = new Vocabulary();
+        copy.tokens = Arrays.copyOf(tokens, tokens.length);
+        copy.slots = Arrays.copyOf(slots, slots.length);
+        copy.size = size;
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String token(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No token with id " + id + " in vocabulary of size " + size);
+        }
+        return tokens[id];
+    }
+
+    public int idOf(String token) {
+        int mask = slots.length - 1;
+        for (int slot = spread(token.hashCode()) & mask; slots[slot] != UNKNOWN; slot = (slot + 1) & mask) {
+            if (tokens[slots[slot]].equals(token)) {
+                return slots[slot];
+            }
+        }
+        return UNKNOWN;
+    }
+
+    public int intern(String token) {
+        int mask = slots.length - 1;
+        int slot = spread(token.hashCode()) & mask;
+        for (; slots[slot] != UNKNOWN; slot = (slot + 1) & mask) {
+            if (tokens[slots[slot]].equals(token)) {
+                return slots[slot];
+            }
+        }
+        if (size == tokens.length) {
+            tokens = Arrays.copyOf(tokens, size * 2);
+        }
+        int id = size;
+        tokens[id] = token;
+        slots[slot] = id;
+        size += 1;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    public void writeTo(ModelSnapshot.Writer writer) throws IOException {
+        writer.writeInt(size);
+        for (int id = 0; id < size; ++id) {
+            writer.writeString(tokens[id]);
+        }
+    }
+
+    public static Vocabulary readFrom(ModelSnapshot.Reader reader) {
+        int size = reader.readInt();
+        Vocabulary vocabulary = new Vocabulary();
+        for (int id = 0; id < size; ++id) {
+            vocabulary.intern(reader.readString());
+        }
+        return vocabulary;
+    }
+
+    private void rehash(int capacity) {
+        slots = emptySlots(capacity);
+        int mask = capacity - 1;
+        for (int id = 0; id < size; ++id) {
+            int slot = spread(tokens[id].hashCode()) & mask;
+            while (slots[slot] != UNKNOWN) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+
+    private static int[] emptySlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, UNKNOWN);
+        return slots;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    @Override
+    public String toString() {
+        return "Vocabulary{" +
+                "size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.BitSet;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/*
+Zero disables a limit
+ */
+public class VocabularyPruning {
+
+    private static final Logger log = LoggerFactory.getLogger(VocabularyPruning.class);
+
+    /*
+    Rough size of an interned token: String with compact byte[] value, token reference and two hash slots
+     */
+    private static final long TOKEN_OVERHEAD_BYTES = 24 + 16 + 4 + 2 * 4;
+
+    public enum Ranking {
+        FREQUENCY, CHI_SQUARED
+    }
+
+    private int minDocumentFrequency;
+    private int maxVocabularySize;
+    private Ranking ranking;
+    private long memoryBudgetBytes;
+
+    public int getMinDocumentFrequency() {
+        return minDocumentFrequency;
+    }
+
+    public int getMaxVocabularySize() {
+        return maxVocabularySize;
+    }
+
+    public Ranking getRanking() {
+        return ranking;
+    }
+
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    public BitSet retainedTokens(Vocabulary vocabulary, int categoriesCount, Occurrences occurrences,
+                                 IntToLongFunction modelBytesPerToken) {
+        int vocabularySize = vocabulary.size();
+        long[] frequencies = new long[vocabularySize];
+        long[] categoryTotals = new long[categoriesCount];
+        long total = 0L;
+        for (int tokenId = 0; tokenId < vocabularySize; ++tokenId) {
+            for (int categoryIndex = 0; categoryIndex < categoriesCount; ++categoryIndex) {
+                long count = occurrences.count(categoryIndex, tokenId);
+                frequencies[tokenId] += count;
+                categoryTotals[categoryIndex] += count;
+            }
+            total += frequencies[tokenId];
+        }
+
+        double[] scores = new double[vocabularySize];
+        for (int tokenId = 0; tokenId < vocabularySize; ++tokenId) {
+            scores[tokenId] = ranking == Ranking.CHI_SQUARED ?
+                    chiSquared(tokenId, frequencies[tokenId], categoryTotals, total, occurrences) : frequencies[tokenId];
+        }
+        int[] rankedTokenIds = IntStream.range(0, vocabularySize)
+                .filter(tokenId -> frequencies[tokenId] >= minDocumentFrequency)
+                .boxed()
+                .sorted((first, second) -> scores[first] != scores[second] ?
+                        Double.compare(scores[second], scores[first]) : Integer.compare(first, second))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        BitSet retained = new BitSet(vocabularySize);
+        long bytesBefore = 0L;
+        long bytesAfter = 0L;
+        for (int tokenId = 0; tokenId < vocabularySize; ++tokenId) {
+            bytesBefore += tokenBytes(vocabulary.token(tokenId), tokenId, modelBytesPerToken);
+        }
+        int retainedCount = 0;
+        for (int tokenId : rankedTokenIds) {
+            long tokenBytes = tokenBytes(vocabulary.token(tokenId), tokenId, modelBytesPerToken);
+            if ((maxVocabularySize > 0 && retainedCount >= maxVocabularySize) ||
+                    (memoryBudgetBytes > 0 && bytesAfter + tokenBytes > memoryBudgetBytes)) {
+                break;
+            }
+            retained.set(tokenId);
+            retainedCount += 1;
+            bytesAfter += tokenBytes;
+        }
+        log.info("Vocabulary pruned from {} to {} tokens, estimated model size reduced from {} to {} bytes, {} bytes saved",
+                vocabularySize, retainedCount, bytesBefore, bytesAfter, bytesBefore - bytesAfter);
+        return retained;
+    }
+
+    private double chiSquared(int tokenId, long frequency, long[] categoryTotals, long total, Occurrences occurrences) {
+        double maxChiSquared = 0.0;
+        for (int categoryIndex = 0; categoryIndex < categoryTotals.length; ++categoryIndex) {
+            double inCategory = occurrences.count(categoryIndex, tokenId);
+            double outOfCategory = frequency - inCategory;
+            double otherInCategory = categoryTotals[categoryIndex] - inCategory;
+            double otherOutOfCategory = total - categoryTotals[categoryIndex] - outOfCategory;
+            double denominator = (inCategory + outOfCategory) * (otherInCategory + otherOutOfCategory) *
+                    (inCategory + otherInCategory) * (outOfCategory + otherOutOfCategory);
+            if (denominator > 0.0) {
+                double difference = inCategory * otherOutOfCategory - outOfCategory * otherInCategory;
+                maxChiSquared = Math.max(maxChiSquared, total * difference * difference / denominator);
+            }
+        }
+        return maxChiSquared;
+    }
+
+    private static long tokenBytes(String token, int tokenId, IntToLongFunction modelBytesPerToken) {
+        return TOKEN_OVERHEAD_BYTES + token.length() + modelBytesPerToken.applyAsLong(tokenId);
+    }
+
+    @Override
+    public String toString() {
+        return "VocabularyPruning{" +
+                "minDocumentFrequency=" + minDocumentFrequency +
+                ", maxVocabularySize=" + maxVocabularySize +
+                ", ranking=" + ranking +
+                ", memoryBudgetBytes=" + memoryBudgetBytes +
+                '}';
+    }
+
+    @FunctionalInterface
+    public interface Occurrences {
+
+        long count(int categoryIndex, int tokenId);
+    }
+
+    public static final class Builder {
+
+        private int minDocumentFrequency;
+        private int maxVocabularySize;
+        private Ranking ranking = Ranking.FREQUENCY;
+        private long memoryBudgetBytes;
+
+        private Builder() {
+        }
+
+        public static Builder vocabularyPruningBuilder() {
+            return new Builder();
+        }
+
+        public Builder withMinDocumentFrequency(int minDocumentFrequency) {
+            this.minDocumentFrequency = minDocumentFrequency;
+            return this;
+        }
+
+        public Builder withMaxVocabularySize(int maxVocabularySize) {
+            this.maxVocabularySize = maxVocabularySize;
+            return this;
+        }
+
+        public Builder withRanking(Ranking ranking) {
+            this.ranking = ranking;
+            return this;
+        }
+
+        public Builder withMemoryBudgetBytes(long memoryBudgetBytes) {
+            this.memoryBudgetBytes = memoryBudgetBytes;
+            return this;
+        }
+
+        public VocabularyPruning build() {
+            if (minDocumentFrequency < 0 || maxVocabularySize < 0 || memoryBudgetBytes < 0) {
+                throw new IllegalArgumentException("Vocabulary pruning limits cannot be negative");
+            }
+            VocabularyPruning pruning = new VocabularyPruning();
+            pruning.minDocumentFrequency = this.minDocumentFrequency;
+            pruning.maxVocabularySize = this.maxVocabularySize;
+            pruning.ranking = this.ranking;
+            pruning.memoryBudgetBytes = this.memoryBudgetBytes;
+            return pruning;
+        }
+    }
+}
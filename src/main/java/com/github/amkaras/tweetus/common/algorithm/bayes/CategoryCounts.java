@@ -0,0 +1,213 @@
+package com.github.amkaras.tweetus.common.algorithm.bayes;
+
+import com.github.amkaras.tweetus.common.algorithm.ModelSnapshot;
+import com.github.amkaras.tweetus.common.algorithm.Vocabulary;
+import com.github.amkaras.tweetus.common.algorithm.VocabularyPruning;
+import com.github.amkaras.tweetus.common.model.BinaryClassificationCategory;
+import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.github.amkaras.tweetus.common.model.ClassificationType.BINARY;
+
+/*
+Counts are indexed by position of the category, which for enum values() is the category ordinal
+ */
+public class CategoryCounts {
+
+    private final List<ClassificationCategory> categories;
+    private final Vocabulary vocabulary;
+    private final long[][] countsByCategory;
+    private final long[] totalsByCategory;
+    private final int[] distinctTokensByCategory;
+
+    public CategoryCounts(List<? extends ClassificationCategory> categories) {
+        this(categories, new Vocabulary());
+    }
+
+    public CategoryCounts(List<? extends ClassificationCategory> categories, Vocabulary vocabulary) {
+        this.categories = List.copyOf(categories);
+        this.vocabulary = vocabulary;
+        this.countsByCategory = new long[categories.size()][Math.max(16, vocabulary.size())];
+        this.totalsByCategory = new long[categories.size()];
+        this.distinctTokensByCategory = new int[categories.size()];
+    }
+
+    public static CategoryCounts of(Map<ClassificationCategory, Map<String, Long>> dictionary) {
+        CategoryCounts counts = new CategoryCounts(List.copyOf(dictionary.keySet()));
+        for (int categoryIndex = 0; categoryIndex < counts.categories.size(); ++categoryIndex) {
+            for (Map.Entry<String, Long> tokenWithCount : dictionary.get(counts.categories.get(categoryIndex)).entrySet()) {
+                counts.add(categoryIndex, tokenWithCount.getKey(), tokenWithCount.getValue());
+            }
+        }
+        return counts;
+    }
+
+    public CategoryCounts copy() {
+        CategoryCounts copy = new CategoryCounts(categories, vocabulary.copy());
+        for (int categoryIndex = 0; categoryIndex < categories.size(); ++categoryIndex) {
+            copy.countsByCategory[categoryIndex] =
+                    Arrays.copyOf(countsByCategory[categoryIndex], countsByCategory[categoryIndex].length);
+        }
+        System.arraycopy(totalsByCategory, 0, copy.totalsByCategory, 0, categories.size());
+        System.arraycopy(distinctTokensByCategory, 0, copy.distinctTokensByCategory, 0, categories.size());
+        return copy;
+    }
+
+    static List<ClassificationCategory> categoriesOf(ClassificationType classificationType) {
+        return BINARY == classificationType ?
+                List.of(BinaryClassificationCategory.values()) : List.of(DifferentialClassificationCategory.values());
+    }
+
+    public List<ClassificationCategory> getCategories() {
+        return categories;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    public int categoryIndex(ClassificationCategory category) {
+        int categoryIndex = categories.indexOf(category);
+        if (categoryIndex < 0) {
+            throw new IllegalArgumentException("Category " + category + " is not counted");
+        }
+        return categoryIndex;
+    }
+
+    public void add(int categoryIndex, String token, long count) {
+        if (count <= 0) {
+            return;
+        }
+        add(categoryIndex, vocabulary.intern(token), count);
+    }
+
+    /*
+    Merging shards left to right assigns the same ids as counting all entries sequentially
+     */
+    public CategoryCounts merge(CategoryCounts other) {
+        if (!categories.equals(other.categories)) {
+            throw new IllegalArgumentException("Cannot merge counts of categories " + other.categories +
+                    " into counts of categories " + categories);
+        }
+        for (int otherTokenId = 0; otherTokenId < other.vocabulary.size(); ++otherTokenId) {
+            int tokenId = Vocabulary.UNKNOWN;
+            for (int categoryIndex = 0; categoryIndex < categories.size(); ++categoryIndex) {
+                long count = other.count(categoryIndex, otherTokenId);
+                if (count > 0) {
+                    if (tokenId == Vocabulary.UNKNOWN) {
+                        tokenId = vocabulary.intern(other.vocabulary.token(otherTokenId));
+                    }
+                    add(categoryIndex, tokenId, count);
+                }
+            }
+        }
+        return this;
+    }
+
+    private void add(int categoryIndex, int tokenId, long count) {
+        long[] counts = countsByCategory[categoryIndex];
+        if (tokenId >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(tokenId + 1, counts.length * 2));
+            countsByCategory[categoryIndex] = counts;
+        }
+        if (counts[tokenId] == 0) {
+            distinctTokensByCategory[categoryIndex] += 1;
+        }
+        counts[tokenId] += count;
+        totalsByCategory[categoryIndex] += count;
+    }
+
+    public long count(int categoryIndex, int tokenId) {
+        long[] counts = countsByCategory[categoryIndex];
+        return tokenId >= 0 && tokenId < counts.length ? counts[tokenId] : 0L;
+    }
+
+    public long total(int categoryIndex) {
+        return totalsByCategory[categoryIndex];
+    }
+
+    public int distinctTokens(int categoryIndex) {
+        return distinctTokensByCategory[categoryIndex];
+    }
+
+    public CategoryCounts prune(VocabularyPruning pruning) {
+        BitSet retainedTokens = pruning.retainedTokens(vocabulary, categories.size(), this::count,
+                tokenId -> categories.size() * (long) (Long.BYTES + Double.BYTES));
+        CategoryCounts prunedCounts = new CategoryCounts(categories);
+        for (int tokenId = retainedTokens.nextSetBit(0); tokenId >= 0; tokenId = retainedTokens.nextSetBit(tokenId + 1)) {
+            for (int categoryIndex = 0; categoryIndex < categories.size(); ++categoryIndex) {
+                prunedCounts.add(categoryIndex, vocabulary.token(tokenId), count(categoryIndex, tokenId));
+            }
+        }
+        return prunedCounts;
+    }
+
+    public void writeTo(ModelSnapshot.Writer writer) throws IOException {
+        writer.writeInt(categories.size());
+        for (ClassificationCategory category : categories) {
+            writer.writeCategory(category);
+        }
+        vocabulary.writeTo(writer);
+        for (int categoryIndex = 0; categoryIndex < categories.size(); ++categoryIndex) {
+            writer.writeInt(distinctTokensByCategory[categoryIndex]);
+            long[] counts = countsByCategory[categoryIndex];
+            for (int tokenId = 0; tokenId < Math.min(counts.length, vocabulary.size()); ++tokenId) {
+                if (counts[tokenId] > 0) {
+                    writer.writeInt(tokenId);
+                    writer.writeLong(counts[tokenId]);
+                }
+            }
+        }
+    }
+
+    public static CategoryCounts readFrom(ModelSnapshot.Reader reader) {
+        int categoriesCount = reader.readInt();
+        List<ClassificationCategory> categories = new ArrayList<>(categoriesCount);
+        for (int categoryIndex = 0; categoryIndex < categoriesCount; ++categoryIndex) {
+            categories.add(reader.readCategory());
+        }
+        Vocabulary vocabulary = Vocabulary.readFrom(reader);
+        CategoryCounts counts = new CategoryCounts(categories, vocabulary);
+        for (int categoryIndex = 0; categoryIndex < categoriesCount; ++categoryIndex) {
+            int distinctTokens = reader.readInt();
+            for (int i = 0; i < distinctTokens; ++i) {
+                counts.add(categoryIndex, reader.readInt(), reader.readLong());
+            }
+        }
+        return counts;
+    }
+
+    public Map<ClassificationCategory, Map<String, Long>> toDictionary() {
+        Map<ClassificationCategory, Map<String, Long>> dictionary = new LinkedHashMap<>();
+        for (int categoryIndex = 0; categoryIndex < categories.size(); ++categoryIndex) {
+            Map<String, Long> tokensWithCount = new TreeMap<>();
+            long[] counts = countsByCategory[categoryIndex];
+            for (int tokenId = 0; tokenId < Math.min(counts.length, vocabulary.size()); ++tokenId) {
+                if (counts[tokenId] > 0) {
+                    tokensWithCount.put(vocabulary.token(tokenId), counts[tokenId]);
+                }
+            }
+            dictionary.put(categories.get(categoryIndex), tokensWithCount);
+        }
+        return dictionary;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryCounts{" +
+                "categories=" + categories +
+                ", vocabulary=" + vocabulary +
+                ", totalsByCategory=" + Arrays.toString(totalsByCategory) +
+                '}';
+    }
+}
@@ -4,119 +4,156 @@ import com.github.amkaras.tweetus.common.model.BinaryClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationType;
 import com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
 import com.github.amkaras.tweetus.external.opinionfinder.entity.DictionaryEntry;
 import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
 import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
-import java.util.function.Consumer;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.github.amkaras.tweetus.common.model.ClassificationType.BINARY;
-import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.NEGATIVE;
-import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.NEUTRAL;
-import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.POSITIVE;
-import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.STRONG_NEGATIVE;
-import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.STRONG_POSITIVE;
-import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.WEAK_NEGATIVE;
-import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.WEAK_POSITIVE;
 import static com.github.amkaras.tweetus.common.util.FiltersFactory.atLeastThreeCharacters;
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.toMap;
+import static com.github.amkaras.tweetus.common.util.Tokenizer.splitOnly;
+import static java.util.stream.Collectors.toList;
 import static org.springframework.util.StringUtils.containsWhitespace;
 
 public class DictionaryBuilder {
 
     private static final Logger log = LoggerFactory.getLogger(DictionaryBuilder.class);
 
+    private static final int SHARDS_PER_WORKER = 4;
+
     private final StanfordLemmatizerClient lemmatizerClient;
+    private final ForkJoinPool pool;
+    private final HashingVectorizer hashingVectorizer;
 
     public DictionaryBuilder(StanfordLemmatizerClient lemmatizerClient) {
+        this(lemmatizerClient, null, null);
+    }
+
+    public DictionaryBuilder(StanfordLemmatizerClient lemmatizerClient, ForkJoinPool pool) {
+        this(lemmatizerClient, pool, null);
+    }
+
+    /*
+    Partial counts are merged in shard order, so the result is identical to the sequential build
+     */
+    public DictionaryBuilder(StanfordLemmatizerClient lemmatizerClient, ForkJoinPool pool,
+                             HashingVectorizer hashingVectorizer) {
         this.lemmatizerClient = lemmatizerClient;
+        this.pool = pool;
+        this.hashingVectorizer = hashingVectorizer;
     }
 
     public Map<ClassificationCategory, Map<String, Long>> build(
             List<OpinionFinderAnalysis> analyzedTweets,
             ClassificationType classificationType,
             boolean lemmatizationEnabled) {
-
-        Map<ClassificationCategory, List<DictionaryEntry>> entriesPerCategory = analyzedTweets.stream()
-                .map(OpinionFinderAnalysis::getDictionary)
-                .flatMap(Set::stream)
-                .collect(groupingBy(entry -> DifferentialClassificationCategory.getByName(entry.getPolarity())));
-
-        if (BINARY == classificationType) {
-            List<DictionaryEntry> negativeEntries = new ArrayList<>();
-            reduceNotNullDifferentialCategoriesConsumer(negativeEntries, STRONG_NEGATIVE, NEGATIVE, WEAK_NEGATIVE)
-                    .accept(entriesPerCategory);
-            List<DictionaryEntry> neutralEntries = new ArrayList<>();
-            reduceNotNullDifferentialCategoriesConsumer(neutralEntries, NEUTRAL).accept(entriesPerCategory);
-            List<DictionaryEntry> positiveEntries = new ArrayList<>();
-            reduceNotNullDifferentialCategoriesConsumer(positiveEntries, STRONG_POSITIVE, POSITIVE, WEAK_POSITIVE)
-                    .accept(entriesPerCategory);
-            entriesPerCategory = Map.of(
-                    BinaryClassificationCategory.NEGATIVE, negativeEntries,
-                    BinaryClassificationCategory.NEUTRAL, neutralEntries,
-                    BinaryClassificationCategory.POSITIVE, positiveEntries);
-        }
-
-        var dictionary = entriesPerCategory.entrySet().stream()
-                .collect(toMap(Map.Entry::getKey, entry -> toDictionary(entry.getValue(), lemmatizationEnabled)));
-        if (BINARY == classificationType) {
-            validateDictionary(dictionary, BinaryClassificationCategory.values());
-        } else {
-            validateDictionary(dictionary, DifferentialClassificationCategory.values());
-        }
+        var dictionary = buildCounts(analyzedTweets, classificationType, lemmatizationEnabled).toDictionary();
         log.debug("Created dictionary: {}", dictionary);
         return new TreeMap<>(dictionary);
     }
 
-    private Map<String, Long> toDictionary(List<DictionaryEntry> entries, boolean lemmatizationEnabled) {
+    public CategoryCounts buildCounts(
+            List<OpinionFinderAnalysis> analyzedTweets,
+            ClassificationType classificationType,
+            boolean lemmatizationEnabled) {
+        var counts = count(analyzedTweets, classificationType, lemmatizationEnabled);
+        validateCounts(counts);
+        log.debug("Created dictionary counts: {}", counts);
+        return counts;
+    }
 
-        final Map<String, Long> dictionary = new TreeMap<>();
+    public CategoryCounts count(
+            List<OpinionFinderAnalysis> analyzedTweets,
+            ClassificationType classificationType,
+            boolean lemmatizationEnabled) {
 
-        for (DictionaryEntry entry : entries) {
-            var token = entry.getToken().toLowerCase();
-            if (lemmatizationEnabled && !containsWhitespace(token)) {
-                var lemmatizedToken = lemmatizerClient.lemmatize(token).get(0);
-                if (!lemmatizedToken.equals(token)) {
-                    log.debug("Lemmatized token {} to {}", token, lemmatizedToken);
-                    token = lemmatizedToken;
+        List<ClassificationCategory> categories = CategoryCounts.categoriesOf(classificationType);
+        Map<String, String> lemmas = lemmatizationEnabled ? lemmatizeTokens(analyzedTweets) : Map.of();
+        CategoryCounts counts;
+        if (pool == null) {
+            counts = countShard(analyzedTweets, categories, classificationType, lemmas);
+        } else {
+            Stopwatch sw = Stopwatch.createStarted();
+            int shardsCount = pool.getParallelism() * SHARDS_PER_WORKER;
+            int shardSize = Math.max(1, (analyzedTweets.size() + shardsCount - 1) / shardsCount);
+            List<List<OpinionFinderAnalysis>> shards = Lists.partition(analyzedTweets, shardSize);
+            counts = pool.submit(() -> shards.parallelStream()
+                    .map(shard -> countShard(shard, categories, classificationType, lemmas))
+                    .reduce(CategoryCounts::merge)
+                    .orElseGet(() -> new CategoryCounts(categories)))
+                    .join();
+            log.info("Counted {} analyses in {} shards in {}", analyzedTweets.size(), shards.size(), sw.stop());
+        }
+        return counts;
+    }
+
+    private CategoryCounts countShard(List<OpinionFinderAnalysis> analyzedTweets,
+                                      List<ClassificationCategory> categories,
+                                      ClassificationType classificationType,
+                                      Map<String, String> lemmas) {
+        var counts = new CategoryCounts(categories);
+        for (OpinionFinderAnalysis analysis : analyzedTweets) {
+            for (DictionaryEntry entry : analysis.getDictionary()) {
+                var category = (DifferentialClassificationCategory) DifferentialClassificationCategory.getByName(entry.getPolarity());
+                var token = toToken(entry, lemmas);
+                if (!atLeastThreeCharacters().test(token)) {
+                    continue;
+                }
+                int categoryIndex = counts.categoryIndex(BINARY == classificationType ?
+                        BinaryClassificationCategory.map(category) : category);
+                if (hashingVectorizer == null) {
+                    counts.add(categoryIndex, token, 1L);
+                } else {
+                    for (String feature : hashingVectorizer.tokenFeatures(splitOnly(token))) {
+                        counts.add(categoryIndex, feature, 1L);
+                    }
                 }
-            }
-            if (atLeastThreeCharacters().test(token)) {
-                long count = dictionary.containsKey(token) ? dictionary.get(token) : 0;
-                dictionary.put(token, count + 1);
             }
         }
+        return counts;
+    }
 
-        return dictionary;
+    private Map<String, String> lemmatizeTokens(List<OpinionFinderAnalysis> analyzedTweets) {
+        List<String> tokens = analyzedTweets.stream()
+                .flatMap(analysis -> analysis.getDictionary().stream())
+                .map(entry -> entry.getToken().toLowerCase())
+                .filter(token -> !containsWhitespace(token))
+                .distinct()
+                .collect(toList());
+        List<List<String>> lemmatizedTokens = lemmatizerClient.lemmatizeAll(tokens);
+        Map<String, String> lemmas = new HashMap<>();
+        for (int i = 0; i < tokens.size(); ++i) {
+            lemmas.put(tokens.get(i), lemmatizedTokens.get(i).get(0));
+        }
+        return lemmas;
     }
 
-    private Consumer<Map<ClassificationCategory, List<DictionaryEntry>>> reduceNotNullDifferentialCategoriesConsumer(
-            List<DictionaryEntry> targetList, DifferentialClassificationCategory... categoriesToBeReduced) {
-        return entries -> {
-            for (ClassificationCategory category : categoriesToBeReduced) {
-                var entriesByCategory = entries.get(category);
-                if (entriesByCategory != null) {
-                    targetList.addAll(entries.get(category));
-                }
-            }
-        };
+    private String toToken(DictionaryEntry entry, Map<String, String> lemmas) {
+        var token = entry.getToken().toLowerCase();
+        var lemmatizedToken = lemmas.get(token);
+        if (lemmatizedToken != null && !lemmatizedToken.equals(token)) {
+            log.debug("Lemmatized token {} to {}", token, lemmatizedToken);
+            token = lemmatizedToken;
+        }
+        return token;
     }
 
-    private void validateDictionary(Map<ClassificationCategory, Map<String, Long>> entriesPerCategory,
-                                    ClassificationCategory[] expectedCategories) {
-        if (!entriesPerCategory.keySet()
-                .containsAll(Set.of(expectedCategories)) ||
-                entriesPerCategory.values().stream().anyMatch(Map::isEmpty)) {
-            throw new RuntimeException("Created dictionary either doesn't contain all expected categories " +
-                    "or at least one of them is empty!");
+    private void validateCounts(CategoryCounts counts) {
+        for (int categoryIndex = 0; categoryIndex < counts.getCategories().size(); ++categoryIndex) {
+            if (counts.distinctTokens(categoryIndex) == 0) {
+                throw new RuntimeException("Created dictionary either doesn't contain all expected categories " +
+                        "or at least one of them is empty!");
+            }
         }
     }
 }
@@ -0,0 +1,111 @@
+package com.github.amkaras.tweetus.common.algorithm.bayes;
+
+import com.github.amkaras.tweetus.common.algorithm.ModelSnapshot;
+import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.github.amkaras.tweetus.common.model.ClassificationType.BINARY;
+import static com.github.amkaras.tweetus.common.model.ClassificationType.DIFFERENTIAL;
+
+public class IncrementalNaiveBayesModel {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalNaiveBayesModel.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ClassificationType classificationType;
+    private final CategoryCounts counts;
+    private long version;
+    private long compiledVersion = -1;
+    private NaiveBayesModel compiledModel;
+
+    public IncrementalNaiveBayesModel(ClassificationType classificationType) {
+        this(classificationType, new CategoryCounts(CategoryCounts.categoriesOf(classificationType)));
+    }
+
+    private IncrementalNaiveBayesModel(ClassificationType classificationType, CategoryCounts counts) {
+        this.classificationType = classificationType;
+        this.counts = counts;
+    }
+
+    public ClassificationType getClassificationType() {
+        return classificationType;
+    }
+
+    public void add(CategoryCounts partialCounts) {
+        lock.writeLock().lock();
+        try {
+            counts.merge(partialCounts);
+            version += 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            for (int categoryIndex = 0; categoryIndex < counts.getCategories().size(); ++categoryIndex) {
+                if (counts.distinctTokens(categoryIndex) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public synchronized NaiveBayesModel model() {
+        CategoryCounts countsCopy;
+        long copiedVersion;
+        lock.readLock().lock();
+        try {
+            if (compiledVersion == version) {
+                return compiledModel;
+            }
+            countsCopy = counts.copy();
+            copiedVersion = version;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Stopwatch sw = Stopwatch.createStarted();
+        compiledModel = NaiveBayesModel.compile(countsCopy);
+        compiledVersion = copiedVersion;
+        log.info("Naive Bayes model version {} compiled in {}", copiedVersion, sw.stop());
+        return compiledModel;
+    }
+
+    public long writeSnapshot(Path path) throws IOException {
+        lock.readLock().lock();
+        try {
+            ModelSnapshot.write(path, ModelSnapshot.Kind.NAIVE_BAYES, "online-" + version, Map.of(), counts::writeTo);
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static IncrementalNaiveBayesModel readSnapshot(Path path) throws IOException {
+        CategoryCounts counts = CategoryCounts.readFrom(ModelSnapshot.read(path, ModelSnapshot.Kind.NAIVE_BAYES).payload());
+        ClassificationType classificationType =
+                counts.getCategories().equals(CategoryCounts.categoriesOf(BINARY)) ? BINARY : DIFFERENTIAL;
+        return new IncrementalNaiveBayesModel(classificationType, counts);
+    }
+}
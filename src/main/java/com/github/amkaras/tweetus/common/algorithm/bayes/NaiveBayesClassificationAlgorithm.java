@@ -1,137 +1,88 @@
 package com.github.amkaras.tweetus.common.algorithm.bayes;
 
 import com.github.amkaras.tweetus.common.algorithm.ClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TweetsClassificationRunner;
 import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
-import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
 import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.Function;
-
-import static com.github.amkaras.tweetus.common.util.Tokenizer.prepareTokens;
-import static java.util.Comparator.comparing;
-import static java.util.Comparator.reverseOrder;
-import static java.util.Map.entry;
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class NaiveBayesClassificationAlgorithm implements ClassificationAlgorithm {
 
     private static final Logger log = LoggerFactory.getLogger(NaiveBayesClassificationAlgorithm.class);
 
-    private final StanfordLemmatizerClient lemmatizerClient;
-    private List<Tweet> tweets = new CopyOnWriteArrayList<>();
-
-    public NaiveBayesClassificationAlgorithm(StanfordLemmatizerClient lemmatizerClient) {
-        this.lemmatizerClient = lemmatizerClient;
-    }
+    private final TweetsClassificationRunner runner;
+    private final HashingVectorizer hashingVectorizer;
 
-    @Override
-    public Map<Tweet, Optional<ClassificationCategory>> classify(
-            List<Tweet> tweets, Set<Document> classifiedDocuments, boolean lemmatizationEnabled, int k) {
-        throw new UnsupportedOperationException("Classification with given parameters is not supported using Naive Bayes algorithm");
+    public NaiveBayesClassificationAlgorithm() {
+        this(TweetsClassificationRunner.sequential(), null);
     }
 
-    @Override
-    public Map<Tweet, Optional<ClassificationCategory>> classify(
-            List<Tweet> tweets, Map<ClassificationCategory, Map<String, Long>> dictionary, boolean lemmatizationEnabled) {
-        this.tweets = tweets;
-        return tweets.stream()
-                .map(tweet -> entry(tweet, mapToTokens(lemmatizationEnabled).apply(tweet)))
-                .collect(toMap(Entry::getKey,
-                        tweetWithTokens -> chooseMostProbableCategory(tweetWithTokens, dictionary)));
+    public NaiveBayesClassificationAlgorithm(ForkJoinPool classificationPool) {
+        this(TweetsClassificationRunner.parallel(classificationPool), null);
     }
 
-    private Function<Tweet, List<String>> mapToTokens(boolean lemmatizationEnabled) {
-        return tweet -> lemmatizationEnabled ?
-                prepareTokens(lemmatizerClient.lemmatize(tweet.getContent())) : prepareTokens(tweet);
+    /*
+    Hashing vectorizer has to be the one the dictionary was built with
+     */
+    public NaiveBayesClassificationAlgorithm(ForkJoinPool classificationPool, HashingVectorizer hashingVectorizer) {
+        this(TweetsClassificationRunner.parallel(classificationPool), hashingVectorizer);
     }
 
-    private Optional<ClassificationCategory> chooseMostProbableCategory(
-            Entry<Tweet, List<String>> tweetWithTokens,
-            Map<ClassificationCategory, Map<String, Long>> dictionary) {
-
-        log.info("Tweet {}: {}", tweetWithTokens.getKey().getId(), tweetWithTokens.getKey().getContent());
-        final var tokens = tweetWithTokens.getValue();
-        log.info("Tokens are {}", tokens);
-
-        var laplaceSmoothingParameter = calculateLaplaceSmoothingParameter(dictionary);
-
-        var categoriesByProbability = dictionary.entrySet().stream()
-                .map(toCategoryWithProbabilityDecorator(tokens, laplaceSmoothingParameter))
-                .sorted(comparing(CategoryWithProbabilityDecorator::getProbability, reverseOrder()))
-                .collect(toList());
-
-        var mostProbableCategory = selectCategory(categoriesByProbability);
-        log.info("Tweet classified as {}", mostProbableCategory);
-        log.info("Classified {} out of {} tweets", this.tweets.indexOf(tweetWithTokens.getKey()) + 1, this.tweets.size());
-        return mostProbableCategory;
+    private NaiveBayesClassificationAlgorithm(TweetsClassificationRunner runner, HashingVectorizer hashingVectorizer) {
+        this.runner = runner;
+        this.hashingVectorizer = hashingVectorizer;
     }
 
-    private static double perCategoryProbability(
-            List<String> tokens, Map<String, Long> wordsWithOccurrences, int laplaceSmoothingParameter) {
-
-        var divider = wordsWithOccurrences.values().stream()
-                .mapToInt(Long::intValue)
-                .sum()
-                + laplaceSmoothingParameter;
-
-        return tokens.stream()
-                .map(token -> (double) (wordsWithOccurrences.getOrDefault(token, 0L) + 1L) / (double) divider)
-                .mapToDouble(Double::doubleValue)
-                .reduce(1.0, (a, b) -> a * b);
+    @Override
+    public Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classify(
+            List<TokenizedTweet> tweets, Set<Document> classifiedDocuments, List<Integer> k) {
+        throw new UnsupportedOperationException("Classification with given parameters is not supported using Naive Bayes algorithm");
     }
 
-    private int calculateLaplaceSmoothingParameter(Map<ClassificationCategory, Map<String, Long>> dictionary) {
-        return dictionary.values().stream()
-                .mapToInt(Map::size)
-                .sum();
+    @Override
+    public Map<Tweet, Optional<ClassificationCategory>> classify(
+            List<TokenizedTweet> tweets, Map<ClassificationCategory, Map<String, Long>> dictionary) {
+        return classify(tweets, NaiveBayesModel.compile(dictionary));
     }
 
-    private Optional<ClassificationCategory> selectCategory(List<CategoryWithProbabilityDecorator> categoriesByProbability) {
-        return categoriesByProbability.get(0).getProbability() == categoriesByProbability.get(1).getProbability() ?
-                Optional.empty() : Optional.of(categoriesByProbability.get(0).getCategory());
+    public Map<Tweet, Optional<ClassificationCategory>> classify(List<TokenizedTweet> tweets, CategoryCounts counts) {
+        return classify(tweets, NaiveBayesModel.compile(counts));
     }
 
-    private Function<Entry<ClassificationCategory, Map<String, Long>>, CategoryWithProbabilityDecorator> toCategoryWithProbabilityDecorator(
-            List<String> tokens, int laplaceSmoothingParameter) {
-        return entry -> CategoryWithProbabilityDecorator.of(entry.getKey(), tokens, entry.getValue(), laplaceSmoothingParameter);
+    public Map<Tweet, Optional<ClassificationCategory>> classify(List<TokenizedTweet> tweets, NaiveBayesModel model) {
+        Map<Tweet, Optional<ClassificationCategory>> classifications = new HashMap<>();
+        runner.run(tweets, tweet -> chooseMostProbableCategory(tweet, model))
+                .forEach((tweet, category) -> classifications.put(tweet.getTweet(), category));
+        return classifications;
     }
 
-    private static final class CategoryWithProbabilityDecorator {
-
-        private ClassificationCategory category;
-        private double probability;
+    private Optional<ClassificationCategory> chooseMostProbableCategory(TokenizedTweet tweet, NaiveBayesModel model) {
 
-        public static CategoryWithProbabilityDecorator of(ClassificationCategory classificationCategory,
-                                                          List<String> tokens,
-                                                          Map<String, Long> wordsWithOccurrences,
-                                                          int laplaceSmoothingParameter) {
-            var decorator = new CategoryWithProbabilityDecorator(
-                    classificationCategory, perCategoryProbability(tokens, wordsWithOccurrences, laplaceSmoothingParameter));
-            log.info("Probability for category {} is {}", decorator.getCategory(), decorator.getProbability());
-            return decorator;
-        }
-
-        private CategoryWithProbabilityDecorator(ClassificationCategory category, double probability) {
-            this.category = category;
-            this.probability = probability;
-        }
+        log.info("Tweet {}: {}", tweet.getId(), tweet.getContent());
+        final var tokens = hashingVectorizer == null ? tweet.getTokens() : hashingVectorizer.tokenFeatures(tweet.getTokens());
+        log.info("Tokens are {}", tokens);
 
-        public ClassificationCategory getCategory() {
-            return category;
+        var logScores = model.logScores(tokens);
+        if (log.isDebugEnabled()) {
+            for (int categoryIndex = 0; categoryIndex < logScores.length; ++categoryIndex) {
+                log.debug("Log-probability for category {} is {}",
+                        model.getCategories().get(categoryIndex), logScores[categoryIndex]);
+            }
         }
 
-        public double getProbability() {
-            return probability;
-        }
+        var mostProbableCategory = model.mostProbableCategory(logScores);
+        log.info("Tweet classified as {}", mostProbableCategory);
+        return mostProbableCategory;
     }
 }
@@ -0,0 +1,102 @@
+package com.github.amkaras.tweetus.common.algorithm.bayes;
+
+import com.github.amkaras.tweetus.common.algorithm.Vocabulary;
+import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+Laplace smoothing, vocabulary size is the sum of all categories' dictionary sizes
+ */
+public class NaiveBayesModel {
+
+    private final List<ClassificationCategory> categories;
+    private final Vocabulary vocabulary;
+    private final double[] logPriors;
+    private final double[] unseenTokenLogLikelihoods;
+    private final double[] logLikelihoods;
+
+    private NaiveBayesModel(List<ClassificationCategory> categories,
+                            Vocabulary vocabulary,
+                            double[] logPriors,
+                            double[] unseenTokenLogLikelihoods,
+                            double[] logLikelihoods) {
+        this.categories = categories;
+        this.vocabulary = vocabulary;
+        this.logPriors = logPriors;
+        this.unseenTokenLogLikelihoods = unseenTokenLogLikelihoods;
+        this.logLikelihoods = logLikelihoods;
+    }
+
+    public static NaiveBayesModel compile(Map<ClassificationCategory, Map<String, Long>> dictionary) {
+        return compile(CategoryCounts.of(dictionary));
+    }
+
+    /*
+    Counts do not carry count of training documents per category, so all categories get the same prior
+     */
+    public static NaiveBayesModel compile(CategoryCounts counts) {
+        List<ClassificationCategory> categories = counts.getCategories();
+        int categoriesCount = categories.size();
+        if (categoriesCount < 2) {
+            throw new IllegalArgumentException("Naive Bayes model requires at least two categories");
+        }
+        long laplaceSmoothingParameter = 0;
+        for (int categoryIndex = 0; categoryIndex < categoriesCount; ++categoryIndex) {
+            laplaceSmoothingParameter += counts.distinctTokens(categoryIndex);
+        }
+
+        Vocabulary vocabulary = counts.getVocabulary();
+        double[] logPriors = new double[categoriesCount];
+        double[] unseenTokenLogLikelihoods = new double[categoriesCount];
+        double[] logLikelihoods = new double[vocabulary.size() * categoriesCount];
+        for (int categoryIndex = 0; categoryIndex < categoriesCount; ++categoryIndex) {
+            double logDivider = Math.log(counts.total(categoryIndex) + laplaceSmoothingParameter);
+            logPriors[categoryIndex] = -Math.log(categoriesCount);
+            unseenTokenLogLikelihoods[categoryIndex] = -logDivider;
+            for (int tokenId = 0; tokenId < vocabulary.size(); ++tokenId) {
+                logLikelihoods[tokenId * categoriesCount + categoryIndex] =
+                        Math.log(counts.count(categoryIndex, tokenId) + 1L) - logDivider;
+            }
+        }
+        return new NaiveBayesModel(categories, vocabulary, logPriors, unseenTokenLogLikelihoods, logLikelihoods);
+    }
+
+    public List<ClassificationCategory> getCategories() {
+        return categories;
+    }
+
+    public double[] logScores(List<String> tokens) {
+        double[] scores = logPriors.clone();
+        for (String token : tokens) {
+            int tokenId = vocabulary.idOf(token);
+            if (tokenId == Vocabulary.UNKNOWN || tokenId * scores.length >= logLikelihoods.length) {
+                for (int categoryIndex = 0; categoryIndex < scores.length; ++categoryIndex) {
+                    scores[categoryIndex] += unseenTokenLogLikelihoods[categoryIndex];
+                }
+                continue;
+            }
+            int offset = tokenId * scores.length;
+            for (int categoryIndex = 0; categoryIndex < scores.length; ++categoryIndex) {
+                scores[categoryIndex] += logLikelihoods[offset + categoryIndex];
+            }
+        }
+        return scores;
+    }
+
+    public Optional<ClassificationCategory> mostProbableCategory(double[] scores) {
+        int best = -1;
+        int secondBest = -1;
+        for (int categoryIndex = 0; categoryIndex < scores.length; ++categoryIndex) {
+            if (best < 0 || scores[categoryIndex] > scores[best]) {
+                secondBest = best;
+                best = categoryIndex;
+            } else if (secondBest < 0 || scores[categoryIndex] > scores[secondBest]) {
+                secondBest = categoryIndex;
+            }
+        }
+        return scores[best] == scores[secondBest] ? Optional.empty() : Optional.of(categories.get(best));
+    }
+}
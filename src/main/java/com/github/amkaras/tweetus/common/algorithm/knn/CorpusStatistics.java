@@ -0,0 +1,78 @@
+package com.github.amkaras.tweetus.common.algorithm.knn;
+
+import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
+import com.github.amkaras.tweetus.common.util.Tokenizer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class CorpusStatistics implements TermStatistics {
+
+    private final HashingVectorizer hashingVectorizer;
+    private final int documentsCount;
+    private final Map<String, Integer> documentFrequencies = new HashMap<>();
+    private final Map<UUID, Map<String, Integer>> termFrequenciesByDocumentId = new HashMap<>();
+
+    private CorpusStatistics(Collection<Document> documents, HashingVectorizer hashingVectorizer) {
+        this.hashingVectorizer = hashingVectorizer;
+        this.documentsCount = documents.size();
+        for (Document document : documents) {
+            Map<String, Integer> termFrequencies = countTerms(document, hashingVectorizer);
+            termFrequenciesByDocumentId.put(document.getId(), termFrequencies);
+            termFrequencies.keySet().forEach(token -> documentFrequencies.merge(token, 1, Integer::sum));
+        }
+    }
+
+    public static CorpusStatistics of(Collection<Document> documents) {
+        return new CorpusStatistics(documents, null);
+    }
+
+    public static CorpusStatistics of(Collection<Document> documents, HashingVectorizer hashingVectorizer) {
+        return new CorpusStatistics(documents, hashingVectorizer);
+    }
+
+    public int getDocumentsCount() {
+        return documentsCount;
+    }
+
+    public int documentFrequency(String token) {
+        return documentFrequencies.getOrDefault(token, 0);
+    }
+
+    @Override
+    public double inverseDocumentFrequency(String token) {
+        int df = documentFrequency(token);
+        return df == 0 ? 0.0 : Math.log10((double) documentsCount / df);
+    }
+
+    @Override
+    public Map<String, Integer> termFrequencies(Document document) {
+        Map<String, Integer> termFrequencies = termFrequenciesByDocumentId.get(document.getId());
+        return termFrequencies != null ? termFrequencies : countTerms(document, hashingVectorizer);
+    }
+
+    @Override
+    public Map<String, Integer> termFrequencies(List<String> tokens) {
+        return countTerms(tokens, hashingVectorizer);
+    }
+
+    static Map<String, Integer> countTerms(Document document) {
+        return countTerms(document, null);
+    }
+
+    static Map<String, Integer> countTerms(Document document, HashingVectorizer hashingVectorizer) {
+        return countTerms(Tokenizer.splitOnly(document.getContent()), hashingVectorizer);
+    }
+
+    static Map<String, Integer> countTerms(List<String> tokens, HashingVectorizer hashingVectorizer) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : hashingVectorizer == null ? tokens : hashingVectorizer.features(tokens)) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+        return termFrequencies;
+    }
+}
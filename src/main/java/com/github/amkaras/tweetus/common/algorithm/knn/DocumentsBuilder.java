@@ -5,10 +5,13 @@ import com.github.amkaras.tweetus.common.logic.WeightedClassificationCategorySel
 import com.github.amkaras.tweetus.common.model.BinaryClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.github.amkaras.tweetus.common.util.AnalysesIndex;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
 import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
 import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
 import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -27,33 +30,48 @@ public class DocumentsBuilder {
     private static final String SPACE = " ";
     private final WeightedClassificationCategorySelector categorySelector = new WeightedClassificationCategorySelector();
     private final StanfordLemmatizerClient lemmatizerClient;
+    private final TokenFilters tokenFilters;
 
-    public DocumentsBuilder(StanfordLemmatizerClient lemmatizerClient) {
+    public DocumentsBuilder(StanfordLemmatizerClient lemmatizerClient, TokenFilters tokenFilters) {
         this.lemmatizerClient = lemmatizerClient;
+        this.tokenFilters = tokenFilters;
     }
 
     public Set<Document> build(List<Tweet> tweets, List<OpinionFinderAnalysis> analyses,
                                ClassificationType classificationType, boolean lemmatizationEnabled) {
+        AnalysesIndex analysesIndex = AnalysesIndex.of(analyses);
         Map<Tweet, OpinionFinderAnalysis> matchedAnalyses = tweets.stream()
-                .collect(Collectors.toMap(identity(), tweet -> analyses.stream()
-                        .filter(analysis -> analysis.getEntityId().equals(tweet.getId()))
-                        .findFirst()
+                .collect(Collectors.toMap(identity(), tweet -> analysesIndex.find(tweet.getId())
                         .orElseThrow(() -> new IllegalStateException("There's no analysis matching tweet id"))));
-        Set<Document> documents = new HashSet<>();
+        List<Tweet> categorizedTweets = new ArrayList<>();
+        List<ClassificationCategory> categories = new ArrayList<>();
         for (Map.Entry<Tweet, OpinionFinderAnalysis> analysisEntry : matchedAnalyses.entrySet()) {
             Optional<? extends ClassificationCategory> maybeCategory = selectCategory(classificationType, analysisEntry.getValue());
-            maybeCategory.ifPresent(classificationCategory -> documents.add(
-                    documentBuilder()
-                            .withContent(getContent(analysisEntry.getKey(), lemmatizationEnabled))
-                            .withCategory(classificationCategory)
-                            .build()));
+            maybeCategory.ifPresent(classificationCategory -> {
+                categorizedTweets.add(analysisEntry.getKey());
+                categories.add(classificationCategory);
+            });
+        }
+        List<String> contents = getContents(categorizedTweets, lemmatizationEnabled);
+        Set<Document> documents = new HashSet<>();
+        for (int i = 0; i < contents.size(); ++i) {
+            documents.add(documentBuilder()
+                    .withContent(contents.get(i))
+                    .withCategory(categories.get(i))
+                    .build());
         }
         return documents;
     }
 
-    private String getContent(Tweet tweet, boolean lemmatizationEnabled) {
-        String content = join(SPACE, prepareTokens(tweet));
-        return lemmatizationEnabled ? join(SPACE, lemmatizerClient.lemmatize(content)) : content;
+    private List<String> getContents(List<Tweet> tweets, boolean lemmatizationEnabled) {
+        List<String> contents = tweets.stream()
+                .map(tweet -> join(SPACE, prepareTokens(tweet, tokenFilters)))
+                .collect(Collectors.toList());
+        return lemmatizationEnabled ?
+                lemmatizerClient.lemmatizeAll(contents).stream()
+                        .map(lemmas -> join(SPACE, lemmas))
+                        .collect(Collectors.toList()) :
+                contents;
     }
 
     private Optional<? extends ClassificationCategory> selectCategory(ClassificationType classificationType, OpinionFinderAnalysis analysis) {
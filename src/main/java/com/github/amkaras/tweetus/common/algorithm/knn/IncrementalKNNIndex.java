@@ -0,0 +1,328 @@
+package com.github.amkaras.tweetus.common.algorithm.knn;
+
+import com.github.amkaras.tweetus.common.algorithm.Vocabulary;
+import com.github.amkaras.tweetus.common.algorithm.VocabularyPruning;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.SparseVector;
+import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+import com.github.amkaras.tweetus.common.util.Tokenizer;
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/*
+Documents are weighted with the IDF snapshot taken when re-weighting of the previous one has finished
+ */
+public class IncrementalKNNIndex implements TermStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalKNNIndex.class);
+
+    private static final int COMPACTION_MIN_REMOVED_COUNT = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> documentFrequencies = new HashMap<>();
+    private final Map<UUID, Integer> documentIndexesById = new HashMap<>();
+    private final Deque<UUID> documentIdsByAge = new ArrayDeque<>();
+    private final List<IndexedDocument> documentsByIndex = new ArrayList<>();
+    private final Deque<Integer> documentIndexesToReweight = new ArrayDeque<>();
+    private int reweightBatchSize;
+    private int maxDocumentsCount;
+    private HashingVectorizer hashingVectorizer;
+    private VocabularyPruning pruning;
+    private TokenFilters tokenFilters;
+    private Vocabulary vocabulary = new Vocabulary();
+    private int documentsCount;
+    private Map<String, Double> inverseDocumentFrequencies = new HashMap<>();
+    private Set<String> prunedTerms = Set.of();
+    private boolean inverseDocumentFrequenciesOutdated;
+    private InvertedIndex index = new InvertedIndex(List.of(), List.of());
+
+    private IncrementalKNNIndex() {
+    }
+
+    public void add(Document document) {
+        write(() -> {
+            if (documentIndexesById.containsKey(document.getId())) {
+                throw new IllegalArgumentException("Document " + document.getId() + " is already indexed");
+            }
+            Map<String, Integer> termFrequencies = termFrequencies(document);
+            termFrequencies.keySet().forEach(token -> {
+                vocabulary.intern(token);
+                documentFrequencies.merge(token, 1, Integer::sum);
+            });
+            documentsCount += 1;
+            int documentIndex = index.add(document, vector(termFrequencies));
+            documentIndexesById.put(document.getId(), documentIndex);
+            documentIdsByAge.add(document.getId());
+            documentsByIndex.add(new IndexedDocument(document, termFrequencies));
+            inverseDocumentFrequenciesOutdated = true;
+            while (maxDocumentsCount > 0 && documentsCount > maxDocumentsCount) {
+                removeOldest();
+            }
+            return null;
+        });
+    }
+
+    public boolean remove(Document document) {
+        return write(() -> remove(document.getId()));
+    }
+
+    public int reweight() {
+        return write(() -> {
+            if (documentIndexesToReweight.isEmpty() && inverseDocumentFrequenciesOutdated) {
+                takeSnapshot();
+                documentIndexesToReweight.addAll(documentIndexesById.values());
+                log.debug("IDF snapshot taken, {} documents to re-weight", documentIndexesToReweight.size());
+            }
+            for (int i = 0; i < reweightBatchSize && !documentIndexesToReweight.isEmpty(); ++i) {
+                int documentIndex = documentIndexesToReweight.poll();
+                IndexedDocument document = documentsByIndex.get(documentIndex);
+                if (document != null) {
+                    index.update(documentIndex, vector(document.termFrequencies));
+                }
+            }
+            return documentIndexesToReweight.size();
+        });
+    }
+
+    public int getDocumentsCount() {
+        return read(() -> documentsCount);
+    }
+
+    public <R> R read(Supplier<R> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    InvertedIndex getInvertedIndex() {
+        return index;
+    }
+
+    /*
+    Only terms of prepared tokens are indexed, as in the vocabulary of a corpus
+     */
+    @Override
+    public Map<String, Integer> termFrequencies(Document document) {
+        return CorpusStatistics.countTerms(Tokenizer.prepareTokens(document.getContent(), tokenFilters), hashingVectorizer);
+    }
+
+    @Override
+    public Map<String, Integer> termFrequencies(List<String> tokens) {
+        return CorpusStatistics.countTerms(tokens, hashingVectorizer);
+    }
+
+    /*
+    Terms which appeared after the last snapshot are weighted with their current document frequency
+     */
+    @Override
+    public double inverseDocumentFrequency(String token) {
+        if (prunedTerms.contains(token)) {
+            return 0.0;
+        }
+        Double inverseDocumentFrequency = inverseDocumentFrequencies.get(token);
+        return inverseDocumentFrequency != null ? inverseDocumentFrequency : currentInverseDocumentFrequency(token);
+    }
+
+    private <R> R write(Supplier<R> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeOldest() {
+        UUID documentId = documentIdsByAge.poll();
+        while (!documentIndexesById.containsKey(documentId)) {
+            documentId = documentIdsByAge.poll();
+        }
+        remove(documentId);
+    }
+
+    private boolean remove(UUID documentId) {
+        Integer documentIndex = documentIndexesById.remove(documentId);
+        if (documentIndex == null) {
+            return false;
+        }
+        IndexedDocument document = documentsByIndex.set(documentIndex, null);
+        document.termFrequencies.keySet().forEach(token -> documentFrequencies.computeIfPresent(token,
+                (__, frequency) -> frequency == 1 ? null : frequency - 1));
+        documentsCount -= 1;
+        index.remove(documentIndex);
+        inverseDocumentFrequenciesOutdated = true;
+        if (index.getRemovedCount() >= Math.max(COMPACTION_MIN_REMOVED_COUNT, index.size() / 4)) {
+            compact();
+        }
+        return true;
+    }
+
+    private SparseVector vector(Map<String, Integer> termFrequencies) {
+        Map<Integer, Double> weights = new HashMap<>();
+        termFrequencies.forEach((token, frequency) -> {
+            int termId = vocabulary.idOf(token);
+            double tfidf = frequency * inverseDocumentFrequency(token);
+            if (termId != Vocabulary.UNKNOWN && tfidf != 0.0) {
+                weights.put(termId, tfidf);
+            }
+        });
+        return new SparseVector(weights);
+    }
+
+    private void takeSnapshot() {
+        Map<String, Double> inverseDocumentFrequencies = new HashMap<>();
+        documentFrequencies.keySet()
+                .forEach(token -> inverseDocumentFrequencies.put(token, currentInverseDocumentFrequency(token)));
+        this.inverseDocumentFrequencies = inverseDocumentFrequencies;
+        prunedTerms = pruning == null ? Set.of() : prunedTerms();
+        inverseDocumentFrequenciesOutdated = false;
+    }
+
+    private Set<String> prunedTerms() {
+        List<ClassificationCategory> documentCategories = new ArrayList<>(documentsCount);
+        List<Set<String>> documentTerms = new ArrayList<>(documentsCount);
+        documentsByIndex.stream()
+                .filter(document -> document != null)
+                .forEach(document -> {
+                    documentCategories.add(document.document.getCategory());
+                    documentTerms.add(document.termFrequencies.keySet());
+                });
+        BitSet retainedTerms = KNNClassificationAlgorithm.retainedTerms(
+                vocabulary, documentCategories, documentTerms, pruning);
+        Set<String> prunedTerms = new HashSet<>();
+        for (int termId = retainedTerms.nextClearBit(0); termId < vocabulary.size();
+             termId = retainedTerms.nextClearBit(termId + 1)) {
+            prunedTerms.add(vocabulary.token(termId));
+        }
+        return prunedTerms;
+    }
+
+    private double currentInverseDocumentFrequency(String token) {
+        int documentFrequency = documentFrequencies.getOrDefault(token, 0);
+        return documentFrequency == 0 ?
+                0.0 : Math.log10((double) (documentsCount + 1) / documentFrequency);
+    }
+
+    private void compact() {
+        Stopwatch sw = Stopwatch.createStarted();
+        List<IndexedDocument> documents = new ArrayList<>(documentsCount);
+        documentsByIndex.stream()
+                .filter(document -> document != null)
+                .forEach(documents::add);
+        documentsByIndex.clear();
+        documentsByIndex.addAll(documents);
+        documentIdsByAge.clear();
+        documentIndexesToReweight.clear();
+        vocabulary = new Vocabulary();
+        for (int documentIndex = 0; documentIndex < documents.size(); ++documentIndex) {
+            IndexedDocument document = documents.get(documentIndex);
+            documentIndexesById.put(document.document.getId(), documentIndex);
+            documentIdsByAge.add(document.document.getId());
+            document.termFrequencies.keySet().forEach(vocabulary::intern);
+        }
+        takeSnapshot();
+        List<Document> indexedDocuments = new ArrayList<>(documents.size());
+        List<SparseVector> vectors = new ArrayList<>(documents.size());
+        documents.forEach(document -> {
+            indexedDocuments.add(document.document);
+            vectors.add(vector(document.termFrequencies));
+        });
+        index = new InvertedIndex(indexedDocuments, vectors);
+        log.info("KNN index compacted to {} documents in {}", documents.size(), sw.stop());
+    }
+
+    private static final class IndexedDocument {
+
+        private final Document document;
+        private final Map<String, Integer> termFrequencies;
+
+        private IndexedDocument(Document document, Map<String, Integer> termFrequencies) {
+            this.document = document;
+            this.termFrequencies = termFrequencies;
+        }
+    }
+
+    public static final class Builder {
+
+        private int reweightBatchSize = 1000;
+        private int maxDocumentsCount;
+        private HashingVectorizer hashingVectorizer;
+        private VocabularyPruning pruning;
+        private TokenFilters tokenFilters = TokenFilters.defaults();
+
+        private Builder() {
+        }
+
+        public static Builder incrementalKNNIndexBuilder() {
+            return new Builder();
+        }
+
+        public Builder withReweightBatchSize(int reweightBatchSize) {
+            this.reweightBatchSize = reweightBatchSize;
+            return this;
+        }
+
+        /*
+        Zero keeps all documents
+         */
+        public Builder withMaxDocumentsCount(int maxDocumentsCount) {
+            this.maxDocumentsCount = maxDocumentsCount;
+            return this;
+        }
+
+        public Builder withHashingVectorizer(HashingVectorizer hashingVectorizer) {
+            this.hashingVectorizer = hashingVectorizer;
+            return this;
+        }
+
+        public Builder withPruning(VocabularyPruning pruning) {
+            this.pruning = pruning;
+            return this;
+        }
+
+        public Builder withTokenFilters(TokenFilters tokenFilters) {
+            this.tokenFilters = tokenFilters;
+            return this;
+        }
+
+        public IncrementalKNNIndex build() {
+            if (reweightBatchSize < 1) {
+                throw new IllegalArgumentException("Re-weighting batch size has to be positive");
+            }
+            if (maxDocumentsCount < 0) {
+                throw new IllegalArgumentException("Maximum documents count cannot be negative");
+            }
+            IncrementalKNNIndex index = new IncrementalKNNIndex();
+            index.reweightBatchSize = this.reweightBatchSize;
+            index.maxDocumentsCount = this.maxDocumentsCount;
+            index.hashingVectorizer = this.hashingVectorizer;
+            index.pruning = this.pruning;
+            index.tokenFilters = this.tokenFilters;
+            return index;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.github.amkaras.tweetus.common.algorithm.knn;
+
+import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.SparseVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Removed documents keep their index and get negative infinite similarity
+ */
+public class InvertedIndex {
+
+    private final List<Document> documents;
+    private final List<SparseVector> vectors;
+    private final Map<Integer, Postings> postingsByTermId = new HashMap<>();
+    private final BitSet removed = new BitSet();
+
+    public InvertedIndex(List<Document> documents, List<SparseVector> vectors) {
+        this(documents, vectors, true);
+    }
+
+    public static InvertedIndex ofNormalized(List<Document> documents, List<SparseVector> normalizedVectors) {
+        return new InvertedIndex(documents, normalizedVectors, false);
+    }
+
+    private InvertedIndex(List<Document> documents, List<SparseVector> vectors, boolean normalize) {
+        if (documents.size() != vectors.size()) {
+            throw new IllegalArgumentException("Each indexed document requires exactly one vector");
+        }
+        this.documents = new ArrayList<>(documents);
+        this.vectors = new ArrayList<>(vectors.size());
+        for (int documentIndex = 0; documentIndex < vectors.size(); ++documentIndex) {
+            SparseVector vector = normalize ? vectors.get(documentIndex).normalized() : vectors.get(documentIndex);
+            this.vectors.add(vector);
+            for (int i = 0; i < vector.size(); ++i) {
+                postingsByTermId.computeIfAbsent(vector.getTermIdAt(i), __ -> new Postings())
+                        .add(documentIndex, vector.getWeightAt(i));
+            }
+        }
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public int getDocumentsCount() {
+        return documents.size() - removed.cardinality();
+    }
+
+    public int getRemovedCount() {
+        return removed.cardinality();
+    }
+
+    public boolean isRemoved(int documentIndex) {
+        return removed.get(documentIndex);
+    }
+
+    public int add(Document document, SparseVector vector) {
+        int documentIndex = documents.size();
+        SparseVector normalizedVector = vector.normalized();
+        documents.add(document);
+        vectors.add(normalizedVector);
+        for (int i = 0; i < normalizedVector.size(); ++i) {
+            postingsByTermId.computeIfAbsent(normalizedVector.getTermIdAt(i), __ -> new Postings())
+                    .add(documentIndex, normalizedVector.getWeightAt(i));
+        }
+        return documentIndex;
+    }
+
+    public void update(int documentIndex, SparseVector vector) {
+        SparseVector previousVector = vectors.get(documentIndex);
+        SparseVector normalizedVector = vector.normalized();
+        for (int i = 0; i < previousVector.size(); ++i) {
+            postingsByTermId.get(previousVector.getTermIdAt(i)).set(documentIndex, 0.0f);
+        }
+        for (int i = 0; i < normalizedVector.size(); ++i) {
+            postingsByTermId.computeIfAbsent(normalizedVector.getTermIdAt(i), __ -> new Postings())
+                    .set(documentIndex, normalizedVector.getWeightAt(i));
+        }
+        vectors.set(documentIndex, normalizedVector);
+    }
+
+    public void remove(int documentIndex) {
+        removed.set(documentIndex);
+    }
+
+    public Document getDocument(int documentIndex) {
+        return documents.get(documentIndex);
+    }
+
+    public SparseVector getVector(int documentIndex) {
+        return vectors.get(documentIndex);
+    }
+
+    public double[] cosineSimilarities(SparseVector query) {
+        double[] similarities = new double[documents.size()];
+        SparseVector normalizedQuery = query.normalized();
+        for (int i = 0; i < normalizedQuery.size(); ++i) {
+            Postings postings = postingsByTermId.get(normalizedQuery.getTermIdAt(i));
+            if (postings == null) {
+                continue;
+            }
+            double queryWeight = normalizedQuery.getWeightAt(i);
+            for (int j = 0; j < postings.size; ++j) {
+                similarities[postings.documentIndexes[j]] += queryWeight * postings.weights[j];
+            }
+        }
+        excludeRemoved(similarities, 0, similarities.length);
+        return similarities;
+    }
+
+    public double[] cosineSimilarities(SparseVector query, int[] documentIndexes) {
+        double[] similarities = new double[documentIndexes.length];
+        SparseVector normalizedQuery = query.normalized();
+        for (int i = 0; i < documentIndexes.length; ++i) {
+            similarities[i] = removed.get(documentIndexes[i]) ?
+                    Double.NEGATIVE_INFINITY : normalizedQuery.dotProduct(vectors.get(documentIndexes[i]));
+        }
+        return similarities;
+    }
+
+    /*
+    Similarities are summed in the same order as for a single query, so results are identical
+     */
+    public void cosineSimilarities(List<SparseVector> queries, int documentsTileSize, SimilaritiesConsumer consumer) {
+        int queriesCount = queries.size();
+        double[][] queryWeights = new double[queriesCount][];
+        Postings[][] queryPostings = new Postings[queriesCount][];
+        int[][] postingsCursors = new int[queriesCount][];
+        for (int queryPosition = 0; queryPosition < queriesCount; ++queryPosition) {
+            SparseVector normalizedQuery = queries.get(queryPosition).normalized();
+            queryWeights[queryPosition] = new double[normalizedQuery.size()];
+            queryPostings[queryPosition] = new Postings[normalizedQuery.size()];
+            postingsCursors[queryPosition] = new int[normalizedQuery.size()];
+            for (int i = 0; i < normalizedQuery.size(); ++i) {
+                queryWeights[queryPosition][i] = normalizedQuery.getWeightAt(i);
+                queryPostings[queryPosition][i] = postingsByTermId.get(normalizedQuery.getTermIdAt(i));
+            }
+        }
+
+        double[] tile = new double[Math.min(documentsTileSize, documents.size())];
+        for (int from = 0; from < documents.size(); from += documentsTileSize) {
+            int to = Math.min(from + documentsTileSize, documents.size());
+            for (int queryPosition = 0; queryPosition < queriesCount; ++queryPosition) {
+                Arrays.fill(tile, 0, to - from, 0.0);
+                for (int i = 0; i < queryWeights[queryPosition].length; ++i) {
+                    double queryWeight = queryWeights[queryPosition][i];
+                    Postings postings = queryPostings[queryPosition][i];
+                    if (postings == null) {
+                        continue;
+                    }
+                    int cursor = postingsCursors[queryPosition][i];
+                    while (cursor < postings.size && postings.documentIndexes[cursor] < to) {
+                        tile[postings.documentIndexes[cursor] - from] += queryWeight * postings.weights[cursor];
+                        cursor += 1;
+                    }
+                    postingsCursors[queryPosition][i] = cursor;
+                }
+                excludeRemoved(tile, from, to);
+                consumer.accept(queryPosition, from, tile, to - from);
+            }
+        }
+    }
+
+    private void excludeRemoved(double[] similarities, int from, int to) {
+        for (int documentIndex = removed.nextSetBit(from); documentIndex >= 0 && documentIndex < to;
+             documentIndex = removed.nextSetBit(documentIndex + 1)) {
+            similarities[documentIndex - from] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    @FunctionalInterface
+    public interface SimilaritiesConsumer {
+
+        void accept(int queryPosition, int firstDocumentIndex, double[] similarities, int length);
+    }
+
+    private static final class Postings {
+
+        private int[] documentIndexes = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        private void add(int documentIndex, float weight) {
+            if (size == documentIndexes.length) {
+                documentIndexes = Arrays.copyOf(documentIndexes, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            documentIndexes[size] = documentIndex;
+            weights[size] = weight;
+            size += 1;
+        }
+
+        private void set(int documentIndex, float weight) {
+            int position = Arrays.binarySearch(documentIndexes, 0, size, documentIndex);
+            if (position >= 0) {
+                weights[position] = weight;
+                return;
+            }
+            if (weight == 0.0f) {
+                return;
+            }
+            position = -position - 1;
+            add(documentIndex, weight);
+            System.arraycopy(documentIndexes, position, documentIndexes, position + 1, size - 1 - position);
+            System.arraycopy(weights, position, weights, position + 1, size - 1 - position);
+            documentIndexes[position] = documentIndex;
+            weights[position] = weight;
+        }
+    }
+}
@@ -1,273 +1,444 @@
 package com.github.amkaras.tweetus.common.algorithm.knn;
 
 import com.github.amkaras.tweetus.common.algorithm.ClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.algorithm.ModelSnapshot;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TweetsClassificationRunner;
+import com.github.amkaras.tweetus.common.algorithm.Vocabulary;
+import com.github.amkaras.tweetus.common.algorithm.VocabularyPruning;
 import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
-import com.github.amkaras.tweetus.common.algorithm.knn.model.DocumentWithTokenCompoundKey;
 import com.github.amkaras.tweetus.common.algorithm.knn.model.DocumentsNotDeterminableException;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.KNNSearchParameters;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.Neighbor;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.SparseVector;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
 import com.github.amkaras.tweetus.common.util.Tokenizer;
-import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
 import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
 import com.google.common.base.Stopwatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ThreadLocalRandom;
-
-import static com.github.amkaras.tweetus.common.algorithm.knn.model.Document.Builder.documentBuilder;
-import static com.github.amkaras.tweetus.common.util.LoggingUtils.formatDocumentsLog;
-import static com.github.amkaras.tweetus.common.util.Tokenizer.join;
-import static com.github.amkaras.tweetus.common.util.Tokenizer.prepareTokens;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.amkaras.tweetus.common.util.LoggingUtils.formatDistancesLog;
+import static com.github.amkaras.tweetus.common.util.LoggingUtils.formatNeighborsLog;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
-import static java.util.stream.Collectors.toSet;
 
 public class KNNClassificationAlgorithm implements ClassificationAlgorithm {
 
     public static final Logger log = LoggerFactory.getLogger(KNNClassificationAlgorithm.class);
 
-    private final StanfordLemmatizerClient lemmatizerClient;
-    private Map<UUID, Document> documentsUniverse = new HashMap<>();
-    private List<Tweet> tweets = new CopyOnWriteArrayList<>();
+    private static final int DOCUMENTS_TILE_SIZE = 4096;
+
+    private final TweetsClassificationRunner runner;
+    private final KNNSearchParameters parameters;
+
+    public KNNClassificationAlgorithm() {
+        this(TweetsClassificationRunner.sequential(), KNNSearchParameters.exact());
+    }
+
+    public KNNClassificationAlgorithm(ForkJoinPool classificationPool) {
+        this(TweetsClassificationRunner.parallel(classificationPool), KNNSearchParameters.exact());
+    }
+
+    public KNNClassificationAlgorithm(KNNSearchParameters parameters) {
+        this(TweetsClassificationRunner.sequential(), parameters);
+    }
+
+    public KNNClassificationAlgorithm(ForkJoinPool classificationPool, KNNSearchParameters parameters) {
+        this(TweetsClassificationRunner.parallel(classificationPool), parameters);
+    }
 
-    public KNNClassificationAlgorithm(StanfordLemmatizerClient lemmatizerClient) {
-        this.lemmatizerClient = lemmatizerClient;
+    private KNNClassificationAlgorithm(TweetsClassificationRunner runner, KNNSearchParameters parameters) {
+        this.runner = runner;
+        this.parameters = parameters;
+        if (parameters.isBatched() && parameters.isApproximate()) {
+            log.warn("Batch scoring is not used with approximate search, tweets are scored one by one");
+        }
     }
 
     @Override
     public Map<Tweet, Optional<ClassificationCategory>> classify(
-            List<Tweet> tweets, Map<ClassificationCategory, Map<String, Long>> dictionary, boolean lemmatizationEnabled) {
+            List<TokenizedTweet> tweets, Map<ClassificationCategory, Map<String, Long>> dictionary) {
         throw new UnsupportedOperationException("Classification with given parameters is not supported using KNN algorithm");
     }
 
     @Override
-    public Map<Tweet, Optional<ClassificationCategory>> classify(
-            List<Tweet> tweets, Set<Document> classifiedDocuments, boolean lemmatizationEnabled, int k) {
+    public Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classify(
+            List<TokenizedTweet> tweets, Set<Document> classifiedDocuments, List<Integer> k) {
+        return classify(tweets, corpus(classifiedDocuments), k);
+    }
 
-        this.documentsUniverse = classifiedDocuments.stream()
-                .collect(toMap(Document::getId, identity()));
+    public Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classify(
+            List<TokenizedTweet> tweets, KNNCorpus corpus, List<Integer> k) {
+        return classify(tweets, corpus.getVocabulary(), corpus.getIndex(), corpus.getStatistics(), k);
+    }
 
-        tweets = tweets.stream()
-                .peek(tweet -> tweet.setContent(join(prepareTokens(tweet))))
-                .collect(toList());
+    public KNNCorpus corpus(Set<Document> classifiedDocuments) {
+        return corpus(classifiedDocuments, null);
+    }
 
-        if (lemmatizationEnabled) {
-            tweets = tweets.stream()
-                    .peek(tweet -> {
-                        log.debug("Non lemmatized tweet {}: {}", tweet.getId(), tweet.getContent());
-                        String lemmatized = join(lemmatizerClient.lemmatize(tweet.getContent()));
-                        tweet.setContent(lemmatized);
-                        log.debug("Lemmatized tweet {}: {}", tweet.getId(), tweet.getContent());
-                    })
-                    .collect(toList());
+    /*
+    Terms pruned from the vocabulary are left out of the vectors, IDF is still calculated over the whole corpus
+     */
+    public KNNCorpus corpus(Set<Document> classifiedDocuments, VocabularyPruning pruning) {
+        Vocabulary vocabulary = vocabulary(classifiedDocuments);
+        if (pruning != null) {
+            vocabulary = prunedVocabulary(vocabulary, classifiedDocuments, pruning);
+        }
+        CorpusStatistics statistics = CorpusStatistics.of(classifiedDocuments, parameters.getHashingVectorizer());
+        InvertedIndex index = invertedIndex(vocabulary, List.copyOf(classifiedDocuments), statistics);
+        return new KNNCorpus(vocabulary, statistics, index);
+    }
+
+    public KNNCorpus corpus(ModelSnapshot.Reader snapshotPayload) {
+        Stopwatch sw = Stopwatch.createStarted();
+        KNNCorpus corpus = KNNCorpus.readFrom(snapshotPayload, parameters.getHashingVectorizer());
+        log.info("Corpus of {} documents restored from snapshot in {}", corpus.getIndex().getDocumentsCount(), sw.stop());
+        return corpus;
+    }
+
+    public Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classify(
+            List<TokenizedTweet> tweets, IncrementalKNNIndex incrementalIndex, List<Integer> k) {
+        return incrementalIndex.read(() -> classify(tweets, incrementalIndex.getVocabulary(),
+                incrementalIndex.getInvertedIndex(), incrementalIndex, k));
+    }
+
+    private Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classify(
+            List<TokenizedTweet> tweets, Vocabulary vocabulary, InvertedIndex index, TermStatistics statistics,
+            List<Integer> k) {
+
+        LshIndex lshIndex = parameters.isApproximate() ? lshIndex(index) : null;
+
+        Map<TokenizedTweet, Map<Integer, Optional<ClassificationCategory>>> categoriesPerTweet;
+        if (parameters.isBatched() && lshIndex == null) {
+            categoriesPerTweet = runner.runInBatches(tweets, parameters.getBatchSize(),
+                    batch -> classifyBatch(batch, vocabulary, index, statistics, k));
+        } else {
+            categoriesPerTweet = runner.run(tweets,
+                    tweet -> classifyTweet(tweet, vocabulary, index, lshIndex, statistics, k));
         }
 
-        Set<String> distinctTokens = classifiedDocuments.stream()
-                .map(Document::getContent)
-                .map(Tokenizer::prepareTokens)
+        Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classificationsPerK = new LinkedHashMap<>();
+        k.forEach(currentK -> classificationsPerK.put(currentK, new HashMap<>()));
+        categoriesPerTweet.forEach((tweet, categories) -> categories
+                .forEach((currentK, category) -> classificationsPerK.get(currentK).put(tweet.getTweet(), category)));
+        return classificationsPerK;
+    }
+
+    Vocabulary vocabulary(Set<Document> classifiedDocuments) {
+        Vocabulary vocabulary = new Vocabulary();
+        classifiedDocuments.stream()
+                .map(this::terms)
                 .flatMap(List::stream)
-                .collect(toSet());
+                .forEach(vocabulary::intern);
+        return vocabulary;
+    }
 
-        Map<DocumentWithTokenCompoundKey, Double> vectorsMatrix =
-                vectorsMatrix(distinctTokens, classifiedDocuments, Set.copyOf(documentsUniverse.values()));
-        log.debug("Vectors matrix is: {}", vectorsMatrix);
+    private List<String> terms(Document document) {
+        HashingVectorizer hashingVectorizer = parameters.getHashingVectorizer();
+        List<String> tokens = Tokenizer.prepareTokens(document.getContent(), parameters.getTokenFilters());
+        return hashingVectorizer == null ? tokens : hashingVectorizer.features(tokens);
+    }
 
-        this.tweets = tweets;
-        return tweets.stream().collect(toMap(identity(),
-                tweet -> classifyTweet(tweet, distinctTokens, vectorsMatrix, classifiedDocuments, k)));
+    private Vocabulary prunedVocabulary(Vocabulary vocabulary, Set<Document> classifiedDocuments,
+                                        VocabularyPruning pruning) {
+        List<ClassificationCategory> documentCategories = new ArrayList<>(classifiedDocuments.size());
+        List<Set<String>> documentTerms = new ArrayList<>(classifiedDocuments.size());
+        for (Document document : classifiedDocuments) {
+            documentCategories.add(document.getCategory());
+            documentTerms.add(new HashSet<>(terms(document)));
+        }
+        BitSet retainedTerms = retainedTerms(vocabulary, documentCategories, documentTerms, pruning);
+        Vocabulary prunedVocabulary = new Vocabulary();
+        retainedTerms.stream().forEach(termId -> prunedVocabulary.intern(vocabulary.token(termId)));
+        return prunedVocabulary;
     }
 
-    Map<DocumentWithTokenCompoundKey, Double> vectorsMatrix(Set<String> distinctTokens,
-                                                            Set<Document> documentsToBeIncludedInMatrix,
-                                                            Set<Document> documentsUniverse) {
-        Stopwatch sw = Stopwatch.createStarted();
-        Map<DocumentWithTokenCompoundKey, Double> vectorsMatrix = new LinkedHashMap<>();
-        for (Document document : documentsToBeIncludedInMatrix) {
-            for (String token : distinctTokens) {
-                vectorsMatrix.put(new DocumentWithTokenCompoundKey(document, token), TFIDF(token, document, documentsUniverse));
-            }
+    static BitSet retainedTerms(Vocabulary vocabulary, List<ClassificationCategory> documentCategories,
+                                List<? extends Collection<String>> documentTerms, VocabularyPruning pruning) {
+        List<ClassificationCategory> categories = documentCategories.stream()
+                .distinct()
+                .collect(toList());
+        long[][] documentFrequencies = new long[categories.size()][vocabulary.size()];
+        for (int i = 0; i < documentTerms.size(); ++i) {
+            long[] categoryDocumentFrequencies = documentFrequencies[categories.indexOf(documentCategories.get(i))];
+            documentTerms.get(i).forEach(term -> categoryDocumentFrequencies[vocabulary.idOf(term)] += 1);
         }
-        log.info("Vectors matrix calculated in {}", sw.stop());
-        return vectorsMatrix;
+        return pruning.retainedTokens(vocabulary, categories.size(),
+                (categoryIndex, termId) -> documentFrequencies[categoryIndex][termId],
+                termId -> Arrays.stream(documentFrequencies).mapToLong(frequencies -> frequencies[termId]).sum() *
+                        2L * (Integer.BYTES + Float.BYTES));
     }
 
-    double TFIDF(String distinctToken, Document document, Set<Document> documentsUniverse) {
+    InvertedIndex invertedIndex(Vocabulary vocabulary,
+                                List<Document> documentsToBeIndexed,
+                                CorpusStatistics statistics) {
         Stopwatch sw = Stopwatch.createStarted();
-        double tf = (double) Tokenizer.splitOnly(document.getContent()).stream()
-                .filter(maybeToken -> maybeToken.equals(distinctToken))
-                .count();
-        double df = (double) documentsUniverse.stream()
-                .map(Document::getContent)
-                .map(Tokenizer::splitOnly)
-                .flatMap(List::stream)
-                .filter(content -> content.equals(distinctToken))
-                .count();
-        double n = documentsUniverse.size();
-        double logarithm = Math.log10(n / df);
-        double tfidf = tf * logarithm;
-        log.debug("Document{} {}: \"{}\", Token: \"{}\", TF-IDF: {}, TF: {}, DF: {}, Documents count: {}, Logarithm: {}",
+        List<SparseVector> vectors = documentsToBeIndexed.stream()
+                .map(document -> vector(document, vocabulary, statistics))
+                .collect(toList());
+        InvertedIndex index = new InvertedIndex(documentsToBeIndexed, vectors);
+        log.info("Inverted index calculated in {}", sw.stop());
+        return index;
+    }
+
+    private LshIndex lshIndex(InvertedIndex index) {
+        Stopwatch sw = Stopwatch.createStarted();
+        LshIndex lshIndex = new LshIndex(index, parameters.getLshParameters());
+        log.info("LSH index with {} calculated in {}", parameters.getLshParameters(), sw.stop());
+        return lshIndex;
+    }
+
+    SparseVector vector(Document document, Vocabulary vocabulary, TermStatistics statistics) {
+        Map<Integer, Double> weights = weights(statistics.termFrequencies(document), vocabulary, statistics);
+        log.debug("Document{} {}: \"{}\", Vector: {}",
                 document.getHumanName() == null ? "" : " " + document.getHumanName(), document.getId(),
-                document.getContent(), distinctToken, tfidf, tf, df, n, logarithm);
-        Stopwatch stop = sw.stop();
-        if (ThreadLocalRandom.current().nextInt(10_000) == 9999) {
-            log.info("TFIDF calculated in {}", stop);
+                document.getContent(), weights);
+        return new SparseVector(weights);
+    }
+
+    private Map<Integer, Double> weights(Map<String, Integer> termFrequencies, Vocabulary vocabulary,
+                                         TermStatistics statistics) {
+        Map<Integer, Double> weights = new HashMap<>();
+        for (Map.Entry<String, Integer> termFrequency : termFrequencies.entrySet()) {
+            int termId = vocabulary.idOf(termFrequency.getKey());
+            if (termId == Vocabulary.UNKNOWN) {
+                continue;
+            }
+            double tfidf = termFrequency.getValue() * statistics.inverseDocumentFrequency(termFrequency.getKey());
+            if (tfidf != 0.0) {
+                weights.put(termId, tfidf);
+            }
         }
-        return tfidf;
+        return weights;
     }
 
-    private Optional<ClassificationCategory> classifyTweet(Tweet tweet, Set<String> distinctTokens,
-                                                           Map<DocumentWithTokenCompoundKey, Double> vectorsMatrix,
-                                                           Set<Document> classifiedDocuments, int k) {
-        Document documentFromTweet = documentBuilder()
-                .withContent(tweet.getContent())
-                .build();
-        Map<DocumentWithTokenCompoundKey, Double> vectorsMatrixForTestDocument =
-                vectorsMatrix(distinctTokens, Set.of(documentFromTweet), classifiedDocuments);
-        log.debug("Vectors matrix for test document is: {}", vectorsMatrixForTestDocument);
-        Optional<ClassificationCategory> category =
-                categoryByNearestNeighbors(distinctTokens, vectorsMatrix, vectorsMatrixForTestDocument, k, tweet.getId());
-        log.info("Classified {} out of {} tweets", this.tweets.indexOf(tweet) + 1, this.tweets.size());
-        return category;
+    private SparseVector vector(TokenizedTweet tweet, Vocabulary vocabulary, TermStatistics statistics) {
+        SparseVector vectorForTestDocument =
+                new SparseVector(weights(statistics.termFrequencies(tweet.getTokens()), vocabulary, statistics));
+        log.debug("Vector for test document {} is: {}", tweet.getTokens(), vectorForTestDocument);
+        return vectorForTestDocument;
+    }
+
+    private Map<Integer, Optional<ClassificationCategory>> classifyTweet(TokenizedTweet tweet, Vocabulary vocabulary,
+                                                                         InvertedIndex index, LshIndex lshIndex,
+                                                                         TermStatistics statistics, List<Integer> k) {
+        return categoriesByNearestNeighbors(index, lshIndex, vector(tweet, vocabulary, statistics), k, tweet.getId());
+    }
+
+    Map<TokenizedTweet, Map<Integer, Optional<ClassificationCategory>>> classifyBatch(
+            List<TokenizedTweet> tweets, Vocabulary vocabulary, InvertedIndex index,
+            TermStatistics statistics, List<Integer> k) {
+
+        List<SparseVector> vectors = tweets.stream()
+                .map(tweet -> vector(tweet, vocabulary, statistics))
+                .collect(toList());
+        int closestCount = Math.min(maxK(k) + 1, index.getDocumentsCount());
+        TopKSelector[] selectors = new TopKSelector[tweets.size()];
+        for (int tweetPosition = 0; tweetPosition < selectors.length; ++tweetPosition) {
+            selectors[tweetPosition] = new TopKSelector(closestCount);
+        }
+
+        Stopwatch distancesSw = Stopwatch.createStarted();
+        index.cosineSimilarities(vectors, DOCUMENTS_TILE_SIZE, (queryPosition, firstDocumentIndex, similarities, length) -> {
+            TopKSelector selector = selectors[queryPosition];
+            for (int i = 0; i < length; ++i) {
+                selector.offer(firstDocumentIndex + i, 1.0d - similarities[i]);
+            }
+        });
+        log.info("Distances for batch of {} tweets calculated in {}", tweets.size(), distancesSw.stop());
+
+        Map<TokenizedTweet, Map<Integer, Optional<ClassificationCategory>>> categoriesPerTweet = new HashMap<>();
+        for (int tweetPosition = 0; tweetPosition < tweets.size(); ++tweetPosition) {
+            TokenizedTweet tweet = tweets.get(tweetPosition);
+            TopKSelector selector = selectors[tweetPosition];
+            categoriesPerTweet.put(tweet, categoriesByClosestDocuments(index, selector.sortedIndexes(),
+                    selector.sortedValues(), index.getDocumentsCount(), k, tweet.getId()));
+        }
+        return categoriesPerTweet;
     }
 
     Optional<ClassificationCategory> categoryByNearestNeighbors(
-            Set<String> distinctTokens, Map<DocumentWithTokenCompoundKey, Double> vectorsMatrixForClassifiedDocuments,
-            Map<DocumentWithTokenCompoundKey, Double> vectorForTestDocument, int k, String tweetId) {
+            InvertedIndex index, SparseVector vectorForTestDocument, int k, String tweetId) {
+        return categoriesByNearestNeighbors(index, vectorForTestDocument, List.of(k), tweetId).get(k);
+    }
+
+    Map<Integer, Optional<ClassificationCategory>> categoriesByNearestNeighbors(
+            InvertedIndex index, SparseVector vectorForTestDocument, List<Integer> k, String tweetId) {
+        return categoriesByNearestNeighbors(index, null, vectorForTestDocument, k, tweetId);
+    }
+
+    Map<Integer, Optional<ClassificationCategory>> categoriesByNearestNeighbors(
+            InvertedIndex index, LshIndex lshIndex, SparseVector vectorForTestDocument, List<Integer> k, String tweetId) {
 
         Stopwatch categorySw = Stopwatch.createStarted();
 
-        Set<UUID> documentIds = vectorsMatrixForClassifiedDocuments.keySet().stream()
-                .map(key -> key.getDocument().getId())
-                .collect(toSet());
+        int maxK = maxK(k);
 
-        if (k > documentIds.size()) {
-            log.error("K parameter cannot be greater than documents count which is {}", documentIds.size());
-            return Optional.empty();
+        Stopwatch distancesSw = Stopwatch.createStarted();
+        int[] candidates = candidates(index, lshIndex, vectorForTestDocument, maxK, tweetId);
+        double[] cosineSimilarities = candidates == null ?
+                index.cosineSimilarities(vectorForTestDocument) :
+                index.cosineSimilarities(vectorForTestDocument, candidates);
+        double[] distancesFromDocuments = new double[cosineSimilarities.length];
+        for (int i = 0; i < cosineSimilarities.length; ++i) {
+            distancesFromDocuments[i] = 1.0d - cosineSimilarities[i];
+        }
+        log.info("Distances calculated in {}. Array size is {}", distancesSw.stop(), distancesFromDocuments.length);
+        if (log.isDebugEnabled()) {
+            log.debug("Distances are: {}", formatDistancesLog(allDocuments(index, candidates, distancesFromDocuments)));
         }
 
-        Stopwatch distancesSw = Stopwatch.createStarted();
-        Map<UUID, Double> distancesFromDocuments = new HashMap<>();
-        for (UUID id : documentIds) {
-            Map<DocumentWithTokenCompoundKey, Double> vectorForClassifiedDocument =
-                    vectorsMatrixForClassifiedDocuments.entrySet().stream()
-                            .filter(entry -> entry.getKey().getDocument().getId().equals(id))
-                            .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
-            double dotProduct =
-                    dotProduct(vectorForTestDocument, vectorForClassifiedDocument, distinctTokens);
-            double magnitude =
-                    magnitude(vectorForTestDocument.values(), vectorForClassifiedDocument.values());
-            double cosineSimilarity = dotProduct / magnitude;
-            double cosineDistance = 1.0d - cosineSimilarity;
-            log.debug("Document{} {}. Cosine distance: {}, cosine similarity: {}, dot product: {}, magnitude: {}",
-                    !documentsUniverse.containsKey(id) || documentsUniverse.get(id).getHumanName() == null ?
-                            "" : " " + documentsUniverse.get(id).getHumanName(),
-                    id, cosineDistance, cosineSimilarity, dotProduct, magnitude);
-            distancesFromDocuments.put(id, cosineDistance);
+        int scoredCount = candidates == null ? index.getDocumentsCount() : candidates.length;
+        int[] closest = TopKSelector.smallest(distancesFromDocuments, Math.min(maxK + 1, scoredCount));
+        int[] closestDocumentIndexes = new int[closest.length];
+        double[] closestDistances = new double[closest.length];
+        for (int i = 0; i < closest.length; ++i) {
+            closestDocumentIndexes[i] = documentIndex(candidates, closest[i]);
+            closestDistances[i] = distancesFromDocuments[closest[i]];
         }
-        log.info("Distances calculated in {}. Map size is {}", distancesSw.stop(), distancesFromDocuments.size());
-        log.debug("Distances are: {}", formatDocumentsLog(documentsUniverse, distancesFromDocuments));
-
-        try {
-            Set<UUID> closestDocuments = closestDocuments(distancesFromDocuments, k);
-            log.info("Closest documents for tweet {}: {}", tweetId, formatDocumentsLog(documentsUniverse, closestDocuments));
-            Map<ClassificationCategory, Integer> closestCategoriesCount = closestDocuments.stream()
-                    .map(id -> vectorsMatrixForClassifiedDocuments.keySet().stream()
-                            .filter(key -> key.getDocument().getId().equals(id))
-                            .findAny()
-                            .orElseThrow(IllegalStateException::new)
-                            .getDocument()
-                            .getCategory())
-                    .collect(toMap(identity(), c -> 1, Integer::sum));
-            log.info("Closest categories: {}", closestCategoriesCount);
-            if (closestCategoriesCount.size() < 1) {
-                throw new IllegalStateException();
-            } else if (closestCategoriesCount.size() == 1) {
-                ClassificationCategory category = closestCategoriesCount.entrySet().stream()
-                        .findFirst()
-                        .get()
-                        .getKey();
-                return Optional.of(category);
-            } else {
-                OptionalInt maxCount = closestCategoriesCount.values().stream()
-                        .mapToInt(Integer::intValue)
-                        .max();
-                List<ClassificationCategory> categoriesMatchingMaxCount = closestCategoriesCount.entrySet().stream()
-                        .filter(entry -> maxCount.getAsInt() == entry.getValue())
-                        .map(Map.Entry::getKey)
-                        .collect(toList());
-                return categoriesMatchingMaxCount.size() == 1 ?
-                        Optional.of(categoriesMatchingMaxCount.get(0)) : Optional.empty();
+
+        Map<Integer, Optional<ClassificationCategory>> categories = categoriesByClosestDocuments(
+                index, closestDocumentIndexes, closestDistances, scoredCount, k, tweetId);
+        log.info("Category by nearest neighbors selected in {}", categorySw.stop());
+        return categories;
+    }
+
+    private Map<Integer, Optional<ClassificationCategory>> categoriesByClosestDocuments(
+            InvertedIndex index, int[] closestDocumentIndexes, double[] closestDistances, int scoredCount,
+            List<Integer> k, String tweetId) {
+        Map<Integer, Optional<ClassificationCategory>> categories = new LinkedHashMap<>();
+        for (int currentK : k) {
+            if (currentK > index.getDocumentsCount()) {
+                log.error("K parameter cannot be greater than documents count which is {}", index.getDocumentsCount());
+                categories.put(currentK, Optional.empty());
+                continue;
+            }
+            try {
+                List<Neighbor> closestDocuments =
+                        closestDocuments(index, closestDocumentIndexes, closestDistances, scoredCount, currentK);
+                log.info("Closest documents for tweet {} and K = {}: {}", tweetId, currentK,
+                        formatNeighborsLog(closestDocuments));
+                categories.put(currentK, categoryByMajorityVote(closestDocuments));
+            } catch (DocumentsNotDeterminableException e) {
+                log.error("Unable to determine closest documents for parameter K = {}. " +
+                        "Exception message is: {}", currentK, e.getMessage());
+                categories.put(currentK, Optional.empty());
             }
-        } catch (DocumentsNotDeterminableException e) {
-            log.error("Unable to determine closest documents for parameter K = {}. " +
-                    "Exception message is: {}", k, e.getMessage());
-            return Optional.empty();
-        } finally {
-            log.info("Category by nearest neighbors selected in {}", categorySw.stop());
         }
+        return categories;
     }
 
-    Set<UUID> closestDocuments(Map<UUID, Double> distancesFromDocuments, int k)
+    private int maxK(List<Integer> k) {
+        return k.stream()
+                .mapToInt(Integer::intValue)
+                .max()
+                .orElse(0);
+    }
+
+    /*
+    Approximate search falls back to exact one when too few candidates were found to detect a tie on the K boundary
+     */
+    private int[] candidates(InvertedIndex index, LshIndex lshIndex, SparseVector vectorForTestDocument,
+                             int maxK, String tweetId) {
+        if (lshIndex == null) {
+            return null;
+        }
+        int[] candidates = lshIndex.candidates(vectorForTestDocument);
+        if (index.getRemovedCount() > 0) {
+            candidates = Arrays.stream(candidates)
+                    .filter(documentIndex -> !index.isRemoved(documentIndex))
+                    .toArray();
+        }
+        if (candidates.length < Math.min(maxK + 1, index.getDocumentsCount())) {
+            log.debug("Only {} LSH candidates found for tweet {}, falling back to exact search", candidates.length, tweetId);
+            return null;
+        }
+        log.debug("Scoring {} LSH candidates out of {} documents for tweet {}",
+                candidates.length, index.getDocumentsCount(), tweetId);
+        return candidates;
+    }
+
+    private Optional<ClassificationCategory> categoryByMajorityVote(List<Neighbor> closestDocuments) {
+        Map<ClassificationCategory, Integer> closestCategoriesCount = closestDocuments.stream()
+                .map(Neighbor::getCategory)
+                .collect(toMap(identity(), c -> 1, Integer::sum));
+        log.info("Closest categories: {}", closestCategoriesCount);
+        if (closestCategoriesCount.size() < 1) {
+            throw new IllegalStateException();
+        } else if (closestCategoriesCount.size() == 1) {
+            ClassificationCategory category = closestCategoriesCount.entrySet().stream()
+                    .findFirst()
+                    .get()
+                    .getKey();
+            return Optional.of(category);
+        } else {
+            OptionalInt maxCount = closestCategoriesCount.values().stream()
+                    .mapToInt(Integer::intValue)
+                    .max();
+            List<ClassificationCategory> categoriesMatchingMaxCount = closestCategoriesCount.entrySet().stream()
+                    .filter(entry -> maxCount.getAsInt() == entry.getValue())
+                    .map(Map.Entry::getKey)
+                    .collect(toList());
+            return categoriesMatchingMaxCount.size() == 1 ?
+                    Optional.of(categoriesMatchingMaxCount.get(0)) : Optional.empty();
+        }
+    }
+
+    List<Neighbor> closestDocuments(InvertedIndex index, double[] distancesFromDocuments, int k)
             throws DocumentsNotDeterminableException {
-        if (k > distancesFromDocuments.size()) {
+        int[] closest = TopKSelector.smallest(distancesFromDocuments,
+                Math.max(0, Math.min(k + 1, distancesFromDocuments.length)));
+        double[] closestDistances = new double[closest.length];
+        for (int i = 0; i < closest.length; ++i) {
+            closestDistances[i] = distancesFromDocuments[closest[i]];
+        }
+        return closestDocuments(index, closest, closestDistances, distancesFromDocuments.length, k);
+    }
+
+    private List<Neighbor> closestDocuments(InvertedIndex index, int[] closestDocumentIndexes,
+                                            double[] closestDistances, int scoredCount, int k)
+            throws DocumentsNotDeterminableException {
+        if (k < 1) {
+            throw new DocumentsNotDeterminableException("K parameter has to be positive");
+        } else if (k > scoredCount) {
             throw new DocumentsNotDeterminableException("K parameter too large");
-        } else if (k == distancesFromDocuments.size()) {
-            return distancesFromDocuments.keySet();
         }
-        List<Double> sortedDistances = distancesFromDocuments.values().stream()
-                .sorted()
-                .collect(toList());
-        if (sortedDistances.get(k - 1).equals(sortedDistances.get(k))) {
+        if (k < scoredCount && Double.compare(closestDistances[k - 1], closestDistances[k]) == 0) {
             throw new DocumentsNotDeterminableException("Not unique result for K parameter");
         }
-        List<Double> validDistances = sortedDistances.stream()
-                .limit(k)
-                .collect(toList());
-        return distancesFromDocuments.entrySet().stream()
-                .filter(entry -> validDistances.contains(entry.getValue()))
-                .map(Map.Entry::getKey)
-                .collect(toSet());
-    }
-
-    double dotProduct(Map<DocumentWithTokenCompoundKey, Double> vectorForClassifiedDocument,
-                      Map<DocumentWithTokenCompoundKey, Double> vectorForTestDocument,
-                      Set<String> distinctTokens) {
-        double sum = 0.0;
-        for (String token : distinctTokens) {
-            double weightForClassifiedDocument = getWeightByToken(vectorForClassifiedDocument, token);
-            double weightForTestDocument = getWeightByToken(vectorForTestDocument, token);
-            sum += (weightForClassifiedDocument * weightForTestDocument);
+        List<Neighbor> neighbors = new ArrayList<>(k);
+        for (int i = 0; i < k; ++i) {
+            neighbors.add(new Neighbor(index.getDocument(closestDocumentIndexes[i]), closestDistances[i]));
         }
-        return sum;
-    }
-
-    double magnitude(Collection<Double> valuesFromVectorForTestDocument,
-                     Collection<Double> valuesForVectorForClassifiedDocument) {
-        double documentDistancesSquared = valuesFromVectorForTestDocument.stream()
-                .mapToDouble(value -> Math.pow(value, 2))
-                .sum();
-        double baseDistancesSquared = valuesForVectorForClassifiedDocument.stream()
-                .mapToDouble(value -> Math.pow(value, 2))
-                .sum();
-        return Math.sqrt(documentDistancesSquared) * Math.sqrt(baseDistancesSquared);
-    }
-
-    private double getWeightByToken(Map<DocumentWithTokenCompoundKey, Double> vector, String token) {
-        return vector.entrySet().stream()
-                .filter(entry -> entry.getKey().getToken().equals(token))
-                .findFirst()
-                .orElseThrow(IllegalStateException::new)
-                .getValue();
+        return neighbors;
+    }
+
+    private List<Neighbor> allDocuments(InvertedIndex index, int[] candidates, double[] distancesFromDocuments) {
+        List<Neighbor> documents = new ArrayList<>(distancesFromDocuments.length);
+        for (int i = 0; i < distancesFromDocuments.length; ++i) {
+            documents.add(new Neighbor(index.getDocument(documentIndex(candidates, i)), distancesFromDocuments[i]));
+        }
+        return documents;
+    }
+
+    private int documentIndex(int[] candidates, int position) {
+        return candidates == null ? position : candidates[position];
     }
 }
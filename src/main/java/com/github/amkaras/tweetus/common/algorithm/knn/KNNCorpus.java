@@ -0,0 +1,115 @@
+package com.github.amkaras.tweetus.common.algorithm.knn;
+
+import com.github.amkaras.tweetus.common.algorithm.ModelSnapshot;
+import com.github.amkaras.tweetus.common.algorithm.Vocabulary;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.SparseVector;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.amkaras.tweetus.common.algorithm.knn.model.Document.Builder.documentBuilder;
+
+/*
+Vectors are kept normalised in a snapshot, so restoring does not recalculate any weights
+ */
+public class KNNCorpus {
+
+    private final Vocabulary vocabulary;
+    private final TermStatistics statistics;
+    private final InvertedIndex index;
+
+    KNNCorpus(Vocabulary vocabulary, TermStatistics statistics, InvertedIndex index) {
+        this.vocabulary = vocabulary;
+        this.statistics = statistics;
+        this.index = index;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    public TermStatistics getStatistics() {
+        return statistics;
+    }
+
+    public InvertedIndex getIndex() {
+        return index;
+    }
+
+    public void writeTo(ModelSnapshot.Writer writer) throws IOException {
+        vocabulary.writeTo(writer);
+        for (int termId = 0; termId < vocabulary.size(); ++termId) {
+            writer.writeDouble(statistics.inverseDocumentFrequency(vocabulary.token(termId)));
+        }
+        writer.writeInt(index.getDocumentsCount());
+        for (int documentIndex = 0; documentIndex < index.size(); ++documentIndex) {
+            if (index.isRemoved(documentIndex)) {
+                continue;
+            }
+            Document document = index.getDocument(documentIndex);
+            writer.writeNullableString(document.getHumanName());
+            writer.writeString(document.getContent());
+            writer.writeCategory(document.getCategory());
+            index.getVector(documentIndex).writeTo(writer);
+        }
+    }
+
+    /*
+    Hashing vectorizer has to be the one the corpus was trained with
+     */
+    public static KNNCorpus readFrom(ModelSnapshot.Reader reader, HashingVectorizer hashingVectorizer) {
+        Vocabulary vocabulary = Vocabulary.readFrom(reader);
+        double[] inverseDocumentFrequencies = new double[vocabulary.size()];
+        for (int termId = 0; termId < inverseDocumentFrequencies.length; ++termId) {
+            inverseDocumentFrequencies[termId] = reader.readDouble();
+        }
+        int documentsCount = reader.readInt();
+        List<Document> documents = new ArrayList<>(documentsCount);
+        List<SparseVector> vectors = new ArrayList<>(documentsCount);
+        for (int i = 0; i < documentsCount; ++i) {
+            documents.add(documentBuilder()
+                    .withHumanName(reader.readNullableString())
+                    .withContent(reader.readString())
+                    .withCategory(reader.readCategory())
+                    .build());
+            vectors.add(SparseVector.readFrom(reader));
+        }
+        return new KNNCorpus(vocabulary, new InverseDocumentFrequencyTable(
+                vocabulary, inverseDocumentFrequencies, hashingVectorizer),
+                InvertedIndex.ofNormalized(documents, vectors));
+    }
+
+    private static final class InverseDocumentFrequencyTable implements TermStatistics {
+
+        private final Vocabulary vocabulary;
+        private final double[] inverseDocumentFrequencies;
+        private final HashingVectorizer hashingVectorizer;
+
+        private InverseDocumentFrequencyTable(Vocabulary vocabulary, double[] inverseDocumentFrequencies,
+                                              HashingVectorizer hashingVectorizer) {
+            this.vocabulary = vocabulary;
+            this.inverseDocumentFrequencies = inverseDocumentFrequencies;
+            this.hashingVectorizer = hashingVectorizer;
+        }
+
+        @Override
+        public Map<String, Integer> termFrequencies(Document document) {
+            return CorpusStatistics.countTerms(document, hashingVectorizer);
+        }
+
+        @Override
+        public Map<String, Integer> termFrequencies(List<String> tokens) {
+            return CorpusStatistics.countTerms(tokens, hashingVectorizer);
+        }
+
+        @Override
+        public double inverseDocumentFrequency(String token) {
+            int termId = vocabulary.idOf(token);
+            return termId == Vocabulary.UNKNOWN ? 0.0 : inverseDocumentFrequencies[termId];
+        }
+    }
+}
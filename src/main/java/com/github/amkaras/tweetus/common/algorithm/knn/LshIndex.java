@@ -0,0 +1,91 @@
+package com.github.amkaras.tweetus.common.algorithm.knn;
+
+import com.github.amkaras.tweetus.common.algorithm.knn.model.LshParameters;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.SparseVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LshIndex {
+
+    private static final int[] NO_DOCUMENTS = new int[0];
+
+    private final LshParameters parameters;
+    private final List<Map<Integer, int[]>> bucketsPerTable;
+
+    public LshIndex(InvertedIndex index, LshParameters parameters) {
+        this.parameters = parameters;
+        this.bucketsPerTable = new ArrayList<>(parameters.getTables());
+        for (int table = 0; table < parameters.getTables(); ++table) {
+            Map<Integer, List<Integer>> buckets = new HashMap<>();
+            for (int documentIndex = 0; documentIndex < index.size(); ++documentIndex) {
+                buckets.computeIfAbsent(signature(index.getVector(documentIndex), table), __ -> new ArrayList<>())
+                        .add(documentIndex);
+            }
+            Map<Integer, int[]> compactBuckets = new HashMap<>();
+            buckets.forEach((signature, documentIndexes) -> compactBuckets.put(signature, documentIndexes.stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray()));
+            bucketsPerTable.add(compactBuckets);
+        }
+    }
+
+    public LshParameters getParameters() {
+        return parameters;
+    }
+
+    /*
+    Sorted ascending, so ties between candidates are resolved the same way as in exact search
+     */
+    public int[] candidates(SparseVector query) {
+        int[][] matchingBuckets = new int[parameters.getTables()][];
+        int candidatesCount = 0;
+        for (int table = 0; table < parameters.getTables(); ++table) {
+            matchingBuckets[table] = bucketsPerTable.get(table).getOrDefault(signature(query, table), NO_DOCUMENTS);
+            candidatesCount += matchingBuckets[table].length;
+        }
+        int[] candidates = new int[candidatesCount];
+        int offset = 0;
+        for (int[] bucket : matchingBuckets) {
+            System.arraycopy(bucket, 0, candidates, offset, bucket.length);
+            offset += bucket.length;
+        }
+        Arrays.sort(candidates);
+        int distinctCount = 0;
+        for (int i = 0; i < candidates.length; ++i) {
+            if (i == 0 || candidates[i] != candidates[i - 1]) {
+                candidates[distinctCount++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(candidates, distinctCount);
+    }
+
+    /*
+    Hyperplane components are derived from a hash of the term id, so no projection matrix has to be stored
+     */
+    int signature(SparseVector vector, int table) {
+        int signature = 0;
+        for (int hyperplane = 0; hyperplane < parameters.getHyperplanes(); ++hyperplane) {
+            long hyperplaneSeed = mix(parameters.getSeed() + (long) table * parameters.getHyperplanes() + hyperplane);
+            double projection = 0.0;
+            for (int i = 0; i < vector.size(); ++i) {
+                float weight = vector.getWeightAt(i);
+                projection += (mix(hyperplaneSeed + vector.getTermIdAt(i)) & 1L) == 0 ? weight : -weight;
+            }
+            if (projection > 0.0) {
+                signature |= 1 << hyperplane;
+            }
+        }
+        return signature;
+    }
+
+    private static long mix(long value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.amkaras.tweetus.common.algorithm.knn;
+
+import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
+
+import java.util.List;
+import java.util.Map;
+
+public interface TermStatistics {
+
+    Map<String, Integer> termFrequencies(Document document);
+
+    Map<String, Integer> termFrequencies(List<String> tokens);
+
+    double inverseDocumentFrequency(String token);
+}
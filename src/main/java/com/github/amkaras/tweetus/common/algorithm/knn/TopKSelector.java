@@ -0,0 +1,115 @@
+package com.github.amkaras.tweetus.common.algorithm.knn;
+
+import java.util.Arrays;
+
+/*
+Equal values are ordered by index, so the selection does not depend on the order of offers
+ */
+public class TopKSelector {
+
+    private final int count;
+    private final int[] heapIndexes;
+    private final double[] heapValues;
+    private int size;
+    private boolean sorted;
+
+    public TopKSelector(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Cannot select " + count + " values");
+        }
+        this.count = count;
+        this.heapIndexes = new int[count];
+        this.heapValues = new double[count];
+    }
+
+    public static int[] smallest(double[] values, int count) {
+        if (count < 0 || count > values.length) {
+            throw new IllegalArgumentException("Cannot select " + count + " out of " + values.length + " values");
+        }
+        TopKSelector selector = new TopKSelector(count);
+        for (int index = 0; index < values.length; ++index) {
+            selector.offer(index, values[index]);
+        }
+        return selector.sortedIndexes();
+    }
+
+    public void offer(int index, double value) {
+        if (sorted) {
+            throw new IllegalStateException("Cannot offer values after selection was sorted");
+        }
+        if (size < count) {
+            siftUp(size, index, value);
+            size += 1;
+        } else if (count > 0 && isBefore(value, index, heapValues[0], heapIndexes[0])) {
+            siftDown(size, index, value);
+        }
+    }
+
+    public int[] sortedIndexes() {
+        sort();
+        return Arrays.copyOf(heapIndexes, size);
+    }
+
+    public double[] sortedValues() {
+        sort();
+        return Arrays.copyOf(heapValues, size);
+    }
+
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        for (int position = size - 1; position > 0; --position) {
+            int largestIndex = heapIndexes[0];
+            double largestValue = heapValues[0];
+            siftDown(position, heapIndexes[position], heapValues[position]);
+            heapIndexes[position] = largestIndex;
+            heapValues[position] = largestValue;
+        }
+        sorted = true;
+    }
+
+    private void siftUp(int position, int index, double value) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!isBefore(heapValues[parent], heapIndexes[parent], value, index)) {
+                break;
+            }
+            heapIndexes[position] = heapIndexes[parent];
+            heapValues[position] = heapValues[parent];
+            position = parent;
+        }
+        heapIndexes[position] = index;
+        heapValues[position] = value;
+    }
+
+    private void siftDown(int heapSize, int index, double value) {
+        if (heapSize == 0) {
+            return;
+        }
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize &&
+                    isBefore(heapValues[child], heapIndexes[child], heapValues[child + 1], heapIndexes[child + 1])) {
+                child += 1;
+            }
+            if (!isBefore(value, index, heapValues[child], heapIndexes[child])) {
+                break;
+            }
+            heapIndexes[position] = heapIndexes[child];
+            heapValues[position] = heapValues[child];
+            position = child;
+        }
+        heapIndexes[position] = index;
+        heapValues[position] = value;
+    }
+
+    private static boolean isBefore(double firstValue, int firstIndex, double secondValue, int secondIndex) {
+        int comparison = Double.compare(firstValue, secondValue);
+        return comparison < 0 || (comparison == 0 && firstIndex < secondIndex);
+    }
+}
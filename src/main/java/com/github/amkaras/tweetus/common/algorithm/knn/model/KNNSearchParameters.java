@@ -0,0 +1,93 @@
+package com.github.amkaras.tweetus.common.algorithm.knn.model;
+
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+
+public class KNNSearchParameters {
+
+    private LshParameters lshParameters;
+    private int batchSize;
+    private HashingVectorizer hashingVectorizer;
+    private TokenFilters tokenFilters;
+
+    public static KNNSearchParameters exact() {
+        return Builder.knnSearchParametersBuilder().build();
+    }
+
+    public LshParameters getLshParameters() {
+        return lshParameters;
+    }
+
+    public boolean isApproximate() {
+        return lshParameters != null;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isBatched() {
+        return batchSize > 1;
+    }
+
+    public HashingVectorizer getHashingVectorizer() {
+        return hashingVectorizer;
+    }
+
+    public TokenFilters getTokenFilters() {
+        return tokenFilters;
+    }
+
+    @Override
+    public String toString() {
+        return "KNNSearchParameters{" +
+                "lshParameters=" + lshParameters +
+                ", batchSize=" + batchSize +
+                ", hashingVectorizer=" + hashingVectorizer +
+                '}';
+    }
+
+    public static final class Builder {
+
+        private LshParameters lshParameters;
+        private int batchSize;
+        private HashingVectorizer hashingVectorizer;
+        private TokenFilters tokenFilters = TokenFilters.defaults();
+
+        private Builder() {
+        }
+
+        public static Builder knnSearchParametersBuilder() {
+            return new Builder();
+        }
+
+        public Builder withLshParameters(LshParameters lshParameters) {
+            this.lshParameters = lshParameters;
+            return this;
+        }
+
+        public Builder withBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder withHashingVectorizer(HashingVectorizer hashingVectorizer) {
+            this.hashingVectorizer = hashingVectorizer;
+            return this;
+        }
+
+        public Builder withTokenFilters(TokenFilters tokenFilters) {
+            this.tokenFilters = tokenFilters;
+            return this;
+        }
+
+        public KNNSearchParameters build() {
+            KNNSearchParameters parameters = new KNNSearchParameters();
+            parameters.lshParameters = this.lshParameters;
+            parameters.batchSize = this.batchSize;
+            parameters.hashingVectorizer = this.hashingVectorizer;
+            parameters.tokenFilters = this.tokenFilters;
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.amkaras.tweetus.common.algorithm.knn.model;
+
+public class LshParameters {
+
+    private static final long DEFAULT_SEED = 42L;
+
+    private final int tables;
+    private final int hyperplanes;
+    private final long seed;
+
+    public LshParameters(int tables, int hyperplanes, long seed) {
+        if (tables < 1) {
+            throw new IllegalArgumentException("At least one hash table is required");
+        }
+        if (hyperplanes < 1 || hyperplanes > Integer.SIZE - 1) {
+            throw new IllegalArgumentException("Hyperplanes count has to be between 1 and " + (Integer.SIZE - 1));
+        }
+        this.tables = tables;
+        this.hyperplanes = hyperplanes;
+        this.seed = seed;
+    }
+
+    public LshParameters(int tables, int hyperplanes) {
+        this(tables, hyperplanes, DEFAULT_SEED);
+    }
+
+    public int getTables() {
+        return tables;
+    }
+
+    public int getHyperplanes() {
+        return hyperplanes;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "LshParameters{" +
+                "tables=" + tables +
+                ", hyperplanes=" + hyperplanes +
+                ", seed=" + seed +
+                '}';
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.amkaras.tweetus.common.algorithm.knn.model;
+
+import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+
+public class Neighbor {
+
+    private final Document document;
+    private final double distance;
+
+    public Neighbor(Document document, double distance) {
+        this.document = document;
+        this.distance = distance;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public ClassificationCategory getCategory() {
+        return document.getCategory();
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "Neighbor{" +
+                "document=" + document.getId() +
+                ", category=" + document.getCategory() +
+                ", distance=" + distance +
+                '}';
+    }
+}
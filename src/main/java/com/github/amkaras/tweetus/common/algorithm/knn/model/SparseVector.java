@@ -0,0 +1,117 @@
+package com.github.amkaras.tweetus.common.algorithm.knn.model;
+
+import com.github.amkaras.tweetus.common.algorithm.ModelSnapshot;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+public class SparseVector {
+
+    private final int[] termIds;
+    private final float[] weights;
+
+    public SparseVector(Map<Integer, Double> weights) {
+        this.termIds = weights.keySet().stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .toArray();
+        this.weights = new float[termIds.length];
+        for (int i = 0; i < termIds.length; ++i) {
+            this.weights[i] = weights.get(termIds[i]).floatValue();
+        }
+    }
+
+    private SparseVector(int[] termIds, float[] weights) {
+        this.termIds = termIds;
+        this.weights = weights;
+    }
+
+    public void writeTo(ModelSnapshot.Writer writer) throws IOException {
+        writer.writeInt(termIds.length);
+        for (int i = 0; i < termIds.length; ++i) {
+            writer.writeInt(termIds[i]);
+            writer.writeFloat(weights[i]);
+        }
+    }
+
+    public static SparseVector readFrom(ModelSnapshot.Reader reader) {
+        int size = reader.readInt();
+        int[] termIds = new int[size];
+        float[] weights = new float[size];
+        for (int i = 0; i < size; ++i) {
+            termIds[i] = reader.readInt();
+            weights[i] = reader.readFloat();
+            if (i > 0 && termIds[i] <= termIds[i - 1]) {
+                throw new IllegalStateException("Term ids of sparse vector are not sorted ascending");
+            }
+        }
+        return new SparseVector(termIds, weights);
+    }
+
+    public int size() {
+        return termIds.length;
+    }
+
+    public int getTermIdAt(int position) {
+        return termIds[position];
+    }
+
+    public float getWeightAt(int position) {
+        return weights[position];
+    }
+
+    public double getWeight(int termId) {
+        int position = Arrays.binarySearch(termIds, termId);
+        return position < 0 ? 0.0 : weights[position];
+    }
+
+    public boolean isEmpty() {
+        return termIds.length == 0;
+    }
+
+    public double dotProduct(SparseVector other) {
+        double sum = 0.0;
+        int i = 0;
+        int j = 0;
+        while (i < termIds.length && j < other.termIds.length) {
+            if (termIds[i] < other.termIds[j]) {
+                ++i;
+            } else if (termIds[i] > other.termIds[j]) {
+                ++j;
+            } else {
+                sum += (double) weights[i++] * other.weights[j++];
+            }
+        }
+        return sum;
+    }
+
+    public double norm() {
+        double sumOfSquares = 0.0;
+        for (float weight : weights) {
+            sumOfSquares += (double) weight * weight;
+        }
+        return Math.sqrt(sumOfSquares);
+    }
+
+    public SparseVector normalized() {
+        double norm = norm();
+        if (norm == 0.0) {
+            return this;
+        }
+        float[] normalizedWeights = new float[weights.length];
+        for (int i = 0; i < weights.length; ++i) {
+            normalizedWeights[i] = (float) (weights[i] / norm);
+        }
+        return new SparseVector(termIds, normalizedWeights);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SparseVector{weights={");
+        for (int i = 0; i < termIds.length; ++i) {
+            sb.append(i == 0 ? "" : ", ").append(termIds[i]).append('=').append(weights[i]);
+        }
+        return sb.append("}}").toString();
+    }
+}
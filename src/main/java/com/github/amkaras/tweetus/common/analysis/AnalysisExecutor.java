@@ -1,11 +1,19 @@
 package com.github.amkaras.tweetus.common.analysis;
 
 import com.github.amkaras.tweetus.common.algorithm.ClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.algorithm.ModelSnapshot;
+import com.github.amkaras.tweetus.common.algorithm.VocabularyPruning;
+import com.github.amkaras.tweetus.common.algorithm.knn.KNNClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.KNNSearchParameters;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.LshParameters;
 import com.github.amkaras.tweetus.common.logic.WeightedClassificationCategorySelector;
 import com.github.amkaras.tweetus.common.model.Algorithm;
 import com.github.amkaras.tweetus.common.model.BinaryClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.github.amkaras.tweetus.common.util.AnalysesIndex;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
 import com.github.amkaras.tweetus.configuration.FeatureToggles;
 import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
 import com.github.amkaras.tweetus.external.opinionfinder.service.OpinionFinderAnalysisService;
@@ -14,15 +22,26 @@ import com.github.amkaras.tweetus.external.twitter.service.TweetService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Predicate;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
+import static com.github.amkaras.tweetus.common.algorithm.VocabularyPruning.Builder.vocabularyPruningBuilder;
+import static com.github.amkaras.tweetus.common.algorithm.knn.model.KNNSearchParameters.Builder.knnSearchParametersBuilder;
 import static com.github.amkaras.tweetus.common.model.ClassificationType.BINARY;
+import static com.github.amkaras.tweetus.common.util.HashingVectorizer.Builder.hashingVectorizerBuilder;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 public abstract class AnalysisExecutor {
 
@@ -31,19 +50,23 @@ public abstract class AnalysisExecutor {
     private final TweetService tweetService;
     private final OpinionFinderAnalysisService opinionFinderAnalysisService;
     private final WeightedClassificationCategorySelector categorySelector;
+    private final Set<String> snapshotTrainingSetIds = new HashSet<>();
     protected final FeatureToggles featureToggles;
+    protected final TokenFilters tokenFilters;
 
     protected ClassificationAlgorithm algorithm;
     protected List<Tweet> trainingSet;
     protected List<OpinionFinderAnalysis> trainingSetAnalyses;
     protected List<Tweet> testSet;
     protected List<OpinionFinderAnalysis> testSetAnalyses;
+    private AnalysesIndex testSetAnalysesIndex;
 
     protected AnalysisExecutor(TweetService tweetService, OpinionFinderAnalysisService opinionFinderAnalysisService,
-                               FeatureToggles featureToggles) {
+                               FeatureToggles featureToggles, TokenFilters tokenFilters) {
         this.tweetService = tweetService;
         this.opinionFinderAnalysisService = opinionFinderAnalysisService;
         this.featureToggles = featureToggles;
+        this.tokenFilters = tokenFilters;
         this.categorySelector = new WeightedClassificationCategorySelector();
     }
 
@@ -53,8 +76,28 @@ public abstract class AnalysisExecutor {
         return featureToggles.isBayesAnalysisExecutorEnabled() && featureToggles.isKnnAnalysisExecutorEnabled();
     }
 
+    KNNClassificationAlgorithm knnAlgorithm(ForkJoinPool classificationPool) {
+        KNNSearchParameters parameters = knnSearchParametersBuilder()
+                .withLshParameters(featureToggles.isKnnAnalysisAnnEnabled() ? new LshParameters(
+                        featureToggles.getKnnAnalysisAnnTables(), featureToggles.getKnnAnalysisAnnHyperplanes()) : null)
+                .withBatchSize(featureToggles.getKnnAnalysisBatchSize())
+                .withHashingVectorizer(hashingVectorizer(featureToggles))
+                .withTokenFilters(tokenFilters)
+                .build();
+        return new KNNClassificationAlgorithm(classificationPool, parameters);
+    }
+
+    static HashingVectorizer hashingVectorizer(FeatureToggles featureToggles) {
+        return featureToggles.isHashingVectorizerEnabled() ? hashingVectorizerBuilder()
+                .withFeaturesCount(featureToggles.getHashingVectorizerFeatures())
+                .withBigramsEnabled(featureToggles.isHashingVectorizerBigramsEnabled())
+                .withCharacterNGramLength(featureToggles.getHashingVectorizerCharacterNGramLength())
+                .build() : null;
+    }
+
     void prepareTrainingSet(int size) {
         log.info("Preparing training set");
+        snapshotTrainingSetIds.clear();
         tweetService.markAllAsNotBelongingToTrainingSet();
         tweetService.markAsBelongingToTrainingSet(size);
         log.info("Fetching tweets from training set");
@@ -66,10 +109,128 @@ public abstract class AnalysisExecutor {
     void prepareTestSet(int size) {
         log.info("Fetching tweets to classify");
         this.testSet = filterOutDuplicatedContents(tweetService.findAnalyzedNotBelongingToTrainingSet(size));
+        if (!snapshotTrainingSetIds.isEmpty()) {
+            this.testSet = testSet.stream()
+                    .filter(tweet -> !snapshotTrainingSetIds.contains(tweet.getId()))
+                    .collect(toList());
+        }
         log.info("Fetched {} tweets", testSet.size());
         fetchAnalysesForTestSet();
     }
 
+    static VocabularyPruning vocabularyPruning(FeatureToggles featureToggles) {
+        return featureToggles.isVocabularyPruningEnabled() ? vocabularyPruningBuilder()
+                .withMinDocumentFrequency(featureToggles.getVocabularyPruningMinDocumentFrequency())
+                .withMaxVocabularySize(featureToggles.getVocabularyPruningMaxVocabularySize())
+                .withRanking(featureToggles.getVocabularyPruningRanking())
+                .withMemoryBudgetBytes(featureToggles.getVocabularyPruningMemoryBudgetBytes())
+                .build() : null;
+    }
+
+    void reportPruning(AnalysisResults prunedResults, AnalysisResults unprunedResults) {
+        log.info("Accuracy changed by {} percentage points after vocabulary pruning, from {}% to {}%",
+                prunedResults.getAccuracy() - unprunedResults.getAccuracy(),
+                unprunedResults.getAccuracy(), prunedResults.getAccuracy());
+    }
+
+    String snapshotName(Algorithm algorithm, ClassificationType type, boolean lemmatizationEnabled) {
+        String snapshotName = String.join("-", algorithm.name().toLowerCase(), type.name().toLowerCase(),
+                lemmatizationEnabled ? "lemmatized" : "non-lemmatized");
+        if (featureToggles.isHashingVectorizerEnabled()) {
+            snapshotName = String.join("-", snapshotName, "hashed",
+                    String.valueOf(featureToggles.getHashingVectorizerFeatures()),
+                    featureToggles.isHashingVectorizerBigramsEnabled() ? "bigrams" : "unigrams",
+                    String.valueOf(featureToggles.getHashingVectorizerCharacterNGramLength()));
+        }
+        return featureToggles.isVocabularyPruningEnabled() ? snapshotName + "-pruned" : snapshotName;
+    }
+
+    /*
+    Tweets of the snapshot's training set are excluded from the test set, until a new training set is prepared
+     */
+    Optional<ModelSnapshot.Reader> readSnapshot(String snapshotName, ModelSnapshot.Kind kind, int trainingSetSize) {
+        if (!featureToggles.isModelSnapshotsEnabled()) {
+            return Optional.empty();
+        }
+        Path path = snapshotPath(snapshotName);
+        if (!Files.exists(path)) {
+            log.info("No snapshot of {} model at {}", snapshotName, path);
+            return Optional.empty();
+        }
+        try {
+            ModelSnapshot snapshot = ModelSnapshot.read(path, kind);
+            Map<String, String> parameters = snapshotParameters(trainingSetSize);
+            if (!snapshot.getParameters().equals(parameters)) {
+                log.info("Snapshot of {} model at {} was built with {} instead of {}, model will be trained",
+                        snapshotName, path, snapshot.getParameters(), parameters);
+                return Optional.empty();
+            }
+            ModelSnapshot.Reader payload = snapshot.payload();
+            int trainingSetIdsCount = payload.readInt();
+            List<String> trainingSetIds = new ArrayList<>(trainingSetIdsCount);
+            for (int i = 0; i < trainingSetIdsCount; ++i) {
+                trainingSetIds.add(payload.readString());
+            }
+            if (!ModelSnapshot.trainingSetIdentity(trainingSetIds).equals(snapshot.getTrainingSetIdentity())) {
+                throw new IOException("Training set of snapshot " + path + " does not match its identity");
+            }
+            snapshotTrainingSetIds.addAll(trainingSetIds);
+            log.info("Snapshot of {} model trained on {} tweets with identity {} read from {}",
+                    snapshotName, trainingSetIdsCount, snapshot.getTrainingSetIdentity(), path);
+            return Optional.of(payload);
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to read snapshot of {} model from {}, model will be trained", snapshotName, path, e);
+            return Optional.empty();
+        }
+    }
+
+    void writeSnapshot(String snapshotName, ModelSnapshot.Kind kind, int trainingSetSize,
+                       ModelSnapshot.PayloadWriter modelWriter) {
+        if (!featureToggles.isModelSnapshotsEnabled()) {
+            return;
+        }
+        Path path = snapshotPath(snapshotName);
+        List<String> trainingSetIds = trainingSet.stream()
+                .map(Tweet::getId)
+                .collect(toList());
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            String trainingSetIdentity = ModelSnapshot.trainingSetIdentity(trainingSetIds);
+            ModelSnapshot.write(path, kind, trainingSetIdentity, snapshotParameters(trainingSetSize), writer -> {
+                writer.writeInt(trainingSetIds.size());
+                for (String tweetId : trainingSetIds) {
+                    writer.writeString(tweetId);
+                }
+                modelWriter.write(writer);
+            });
+            log.info("Snapshot of {} model written to {}", snapshotName, path);
+        } catch (IOException e) {
+            log.error("Unable to write snapshot of {} model to {}", snapshotName, path, e);
+        }
+    }
+
+    /*
+    Training set size is the requested one, the training set shrinks after filtering
+     */
+    private Map<String, String> snapshotParameters(int trainingSetSize) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("training.set.size", String.valueOf(trainingSetSize));
+        if (featureToggles.isVocabularyPruningEnabled()) {
+            parameters.put("pruning.min.df", String.valueOf(featureToggles.getVocabularyPruningMinDocumentFrequency()));
+            parameters.put("pruning.max.size", String.valueOf(featureToggles.getVocabularyPruningMaxVocabularySize()));
+            parameters.put("pruning.ranking", featureToggles.getVocabularyPruningRanking().name());
+            parameters.put("pruning.memory.budget",
+                    String.valueOf(featureToggles.getVocabularyPruningMemoryBudgetBytes()));
+        }
+        return parameters;
+    }
+
+    private Path snapshotPath(String snapshotName) {
+        return Paths.get(featureToggles.getModelSnapshotsDirectory()).resolve(snapshotName + ".bin");
+    }
+
     AnalysisResults compareResults(Map<Tweet, Optional<ClassificationCategory>> algorithmClassifications,
                                    ClassificationType type, Algorithm algorithm) {
 
@@ -83,7 +244,7 @@ public abstract class AnalysisExecutor {
                 log.debug("Cannot select category using {} algorithm for tweet {}", algorithm, tweet.getId());
                 continue;
             }
-            OpinionFinderAnalysis ofAnalysis = chooseByTweetId(testSetAnalyses, tweet.getId());
+            OpinionFinderAnalysis ofAnalysis = testSetAnalysesIndex.find(tweet.getId()).get();
             var maybeOfClassification = categorySelector.select(
                     ofAnalysis.getSubjectiveClues(), ofAnalysis.getPolarityClassifiers());
             if (maybeOfClassification.isEmpty()) {
@@ -109,7 +270,7 @@ public abstract class AnalysisExecutor {
         log.info("Fetching analyses for training set tweets");
         this.trainingSetAnalyses = fetchAnalysesForTweets(trainingSet);
         log.info("Fetched {} analyses", trainingSetAnalyses.size());
-        this.trainingSet = filterOutNotClassifiableWithOpinionFinder(this.trainingSet, this.trainingSetAnalyses);
+        this.trainingSet = filterOutNotClassifiableWithOpinionFinder(this.trainingSet, AnalysesIndex.of(trainingSetAnalyses));
         this.trainingSetAnalyses = filterOutWhenTweetIdNotPresent(this.trainingSetAnalyses, this.trainingSet);
     }
 
@@ -117,7 +278,8 @@ public abstract class AnalysisExecutor {
         log.info("Fetching analyses for test set tweets");
         this.testSetAnalyses = fetchAnalysesForTweets(testSet);
         log.info("Fetched {} analyses", testSetAnalyses.size());
-        this.testSet = filterOutNotClassifiableWithOpinionFinder(this.testSet, this.testSetAnalyses);
+        this.testSetAnalysesIndex = AnalysesIndex.of(testSetAnalyses);
+        this.testSet = filterOutNotClassifiableWithOpinionFinder(this.testSet, testSetAnalysesIndex);
         this.testSetAnalyses = filterOutWhenTweetIdNotPresent(this.testSetAnalyses, this.testSet);
     }
 
@@ -128,17 +290,11 @@ public abstract class AnalysisExecutor {
         return opinionFinderAnalysisService.findByEntityIds(ids);
     }
 
-    private OpinionFinderAnalysis chooseByTweetId(List<OpinionFinderAnalysis> analyses, String tweetId) {
-        return analyses.stream()
-                .filter(analysis -> analysis.getEntityId().equals(tweetId))
-                .findFirst()
-                .get();
-    }
-
     private List<Tweet> filterOutDuplicatedContents(List<Tweet> tweets) {
         final List<Tweet> filtered = new ArrayList<>();
+        final Set<String> normalizedContents = new HashSet<>(tweets.size() * 2);
         for (Tweet tweet : tweets) {
-            if (filtered.stream().noneMatch(duplicatedContent(tweet))) {
+            if (normalizedContents.add(tweet.getContent().toLowerCase())) {
                 filtered.add(tweet);
             } else {
                 log.debug("Duplicated content: {}", tweet.getContent());
@@ -148,10 +304,10 @@ public abstract class AnalysisExecutor {
     }
 
     private List<Tweet> filterOutNotClassifiableWithOpinionFinder(
-            List<Tweet> tweets, List<OpinionFinderAnalysis> analyses) {
+            List<Tweet> tweets, AnalysesIndex analyses) {
         return tweets.stream()
                 .filter(tweet -> {
-                    OpinionFinderAnalysis analysis = chooseByTweetId(analyses, tweet.getId());
+                    OpinionFinderAnalysis analysis = analyses.find(tweet.getId()).get();
                     return categorySelector
                             .select(analysis.getSubjectiveClues(), analysis.getPolarityClassifiers()).isPresent();
                 })
@@ -160,13 +316,11 @@ public abstract class AnalysisExecutor {
 
     private List<OpinionFinderAnalysis> filterOutWhenTweetIdNotPresent(
             List<OpinionFinderAnalysis> analyses, List<Tweet> tweets) {
+        Set<String> tweetIds = tweets.stream()
+                .map(Tweet::getId)
+                .collect(toSet());
         return analyses.stream()
-                .filter(analysis -> tweets.stream().anyMatch(tweet -> analysis.getEntityId().equals(tweet.getId())))
+                .filter(analysis -> tweetIds.contains(analysis.getEntityId()))
                 .collect(toList());
     }
-
-    private Predicate<Tweet> duplicatedContent(Tweet tweet) {
-        return maybeDuplicatedContentTweet -> maybeDuplicatedContentTweet.getContent().toLowerCase()
-                .equals(tweet.getContent().toLowerCase());
-    }
 }
@@ -6,6 +6,7 @@ import com.github.amkaras.tweetus.common.model.BinaryClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationType;
 import com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory;
+import com.github.amkaras.tweetus.common.util.AnalysesIndex;
 import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
 import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
 
@@ -21,12 +22,14 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 
 import static com.github.amkaras.tweetus.common.model.ClassificationType.DIFFERENTIAL;
 import static java.lang.String.format;
 import static java.math.RoundingMode.HALF_UP;
+import static java.util.stream.Collectors.toList;
 
 public class AnalysisResultsExporter {
 
@@ -95,8 +98,9 @@ public class AnalysisResultsExporter {
         List<String> csv = new ArrayList<>(trainingSet.size() + 1);
         String header = "Tweet ID,Tweet content,OpinionFinder classification";
         csv.add(header);
+        AnalysesIndex analysesIndex = AnalysesIndex.of(trainingSetAnalyses);
         trainingSet.forEach(tweet -> {
-            String opinionFinderClassification = getOpinionFinderClassification(tweet, trainingSetAnalyses, classificationType);
+            String opinionFinderClassification = getOpinionFinderClassification(tweet, analysesIndex, classificationType);
             if (!N_A.equals(opinionFinderClassification)) {
                 csv.add(format("%s,%s,%s", tweet.getId(), csvEscaped(tweet.getContent()), opinionFinderClassification));
             }
@@ -119,16 +123,25 @@ public class AnalysisResultsExporter {
             header += ",KNN non lemmatized classification K=" + valuesOfParameterK.get(i);
         }
         csv.add(header);
+        AnalysesIndex analysesIndex = AnalysesIndex.of(testSetAnalyses);
+        var bayesByTweetId = byTweetId(bayesClassifications);
+        var nonLemmatizedBayesByTweetId = byTweetId(nonLemmatizedBayesClassifications);
+        var knnByTweetId = knnClassifications.stream()
+                .map(this::byTweetId)
+                .collect(toList());
+        var nonLemmatizedKNNByTweetId = nonLemmatizedKNNClassifications.stream()
+                .map(this::byTweetId)
+                .collect(toList());
         testSet.forEach(tweet -> {
-            String opinionFinderClassification = getOpinionFinderClassification(tweet, testSetAnalyses, classificationType);
+            String opinionFinderClassification = getOpinionFinderClassification(tweet, analysesIndex, classificationType);
             if (!N_A.equals(opinionFinderClassification)) {
-                String bayesLemmatized = getAlgorithmClassification(tweet, bayesClassifications);
-                String bayesNonLemmatized = getAlgorithmClassification(tweet, nonLemmatizedBayesClassifications);
+                String bayesLemmatized = getAlgorithmClassification(tweet, bayesByTweetId);
+                String bayesNonLemmatized = getAlgorithmClassification(tweet, nonLemmatizedBayesByTweetId);
                 String row = format("%s,%s,%s,%s,%s", tweet.getId(), csvEscaped(tweet.getContent()),
                         opinionFinderClassification, bayesLemmatized, bayesNonLemmatized);
                 for (int j = 0; j < valuesOfParameterK.size(); ++j) {
-                    row += format(",%s", getAlgorithmClassification(tweet, knnClassifications.get(j)));
-                    row += format(",%s", getAlgorithmClassification(tweet, nonLemmatizedKNNClassifications.get(j)));
+                    row += format(",%s", getAlgorithmClassification(tweet, knnByTweetId.get(j)));
+                    row += format(",%s", getAlgorithmClassification(tweet, nonLemmatizedKNNByTweetId.get(j)));
                 }
                 csv.add(row);
             }
@@ -140,11 +153,8 @@ public class AnalysisResultsExporter {
         return format("\"%s\"", nonCsvEscaped.replace("\"", "\"\"").replace("\n", " "));
     }
 
-    private String getOpinionFinderClassification(Tweet tweet, List<OpinionFinderAnalysis> analyses, ClassificationType classificationType) {
-        OpinionFinderAnalysis opinionFinderAnalysis = analyses.stream()
-                .filter(analysis -> analysis.getEntityId().equals(tweet.getId()))
-                .findFirst()
-                .get();
+    private String getOpinionFinderClassification(Tweet tweet, AnalysesIndex analyses, ClassificationType classificationType) {
+        OpinionFinderAnalysis opinionFinderAnalysis = analyses.find(tweet.getId()).get();
         Optional<DifferentialClassificationCategory> maybeOpinionFinderDifferentialClassification =
                 categorySelector.select(opinionFinderAnalysis.getSubjectiveClues(), opinionFinderAnalysis.getPolarityClassifiers());
         return maybeOpinionFinderDifferentialClassification.isPresent() ?
@@ -154,15 +164,21 @@ public class AnalysisResultsExporter {
                 : N_A;
     }
 
-    private String getAlgorithmClassification(Tweet tweet, Map<Tweet, Optional<ClassificationCategory>> classifications) {
-        Optional<ClassificationCategory> maybeClassification = classifications.entrySet().stream()
-                .filter(entry -> tweet.getId().equals(entry.getKey().getId()))
-                .findFirst()
-                .get()
-                .getValue();
+    private String getAlgorithmClassification(Tweet tweet, Map<String, Optional<ClassificationCategory>> classifications) {
+        Optional<ClassificationCategory> maybeClassification = classifications.get(tweet.getId());
+        if (maybeClassification == null) {
+            throw new NoSuchElementException("No classification of tweet " + tweet.getId());
+        }
         return maybeClassification.isPresent() ? maybeClassification.get().toString() : N_A;
     }
 
+    private Map<String, Optional<ClassificationCategory>> byTweetId(
+            Map<Tweet, Optional<ClassificationCategory>> classifications) {
+        Map<String, Optional<ClassificationCategory>> classificationsByTweetId = new HashMap<>(classifications.size() * 2);
+        classifications.forEach((tweet, classification) -> classificationsByTweetId.putIfAbsent(tweet.getId(), classification));
+        return classificationsByTweetId;
+    }
+
     private List<String> dictionary(Map<ClassificationCategory, Map<String, Long>> dictionary) {
         List<String> rows = new ArrayList<>();
         dictionary.forEach((category, tokensWithCount) -> tokensWithCount.forEach((token, count) -> {
@@ -1,14 +1,17 @@
 package com.github.amkaras.tweetus.common.analysis;
 
 import com.github.amkaras.tweetus.common.algorithm.ClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweets;
 import com.github.amkaras.tweetus.common.algorithm.bayes.DictionaryBuilder;
 import com.github.amkaras.tweetus.common.algorithm.bayes.NaiveBayesClassificationAlgorithm;
 import com.github.amkaras.tweetus.common.algorithm.knn.DocumentsBuilder;
-import com.github.amkaras.tweetus.common.algorithm.knn.KNNClassificationAlgorithm;
 import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
 import com.github.amkaras.tweetus.common.model.Algorithm;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
 import com.github.amkaras.tweetus.configuration.FeatureToggles;
 import com.github.amkaras.tweetus.external.opinionfinder.service.OpinionFinderAnalysisService;
 import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
@@ -26,12 +29,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-
-import static java.util.stream.Collectors.toList;
+import java.util.concurrent.ForkJoinPool;
 
 @Component
 public class ComparativeAnalysisExecutor extends AnalysisExecutor {
 
+    private final StanfordLemmatizerClient lemmatizerClient;
     private final DictionaryBuilder dictionaryBuilder;
     private final DocumentsBuilder documentsBuilder;
     private final AnalysisResultsExporter exporter = new AnalysisResultsExporter();
@@ -51,14 +54,17 @@ public class ComparativeAnalysisExecutor extends AnalysisExecutor {
     @Autowired
     public ComparativeAnalysisExecutor(TweetService tweetService,
                                        OpinionFinderAnalysisService opinionFinderAnalysisService,
-                                       FeatureToggles featureToggles) {
-        super(tweetService, opinionFinderAnalysisService, featureToggles);
-        final StanfordLemmatizerClient lemmatizerClient = featureToggles.isStanfordNlpClasspathConfigured() ?
-                StanfordLemmatizerClient.createConfigured() : StanfordLemmatizerClient.createNotConfigured();
-        this.dictionaryBuilder = new DictionaryBuilder(lemmatizerClient);
-        this.documentsBuilder = new DocumentsBuilder(lemmatizerClient);
-        this.bayesAlgorithm = new NaiveBayesClassificationAlgorithm(lemmatizerClient);
-        this.knnAlgorithm = new KNNClassificationAlgorithm(lemmatizerClient);
+                                       FeatureToggles featureToggles,
+                                       ForkJoinPool classificationPool,
+                                       StanfordLemmatizerClient lemmatizerClient,
+                                       TokenFilters tokenFilters) {
+        super(tweetService, opinionFinderAnalysisService, featureToggles, tokenFilters);
+        final HashingVectorizer hashingVectorizer = hashingVectorizer(featureToggles);
+        this.lemmatizerClient = lemmatizerClient;
+        this.dictionaryBuilder = new DictionaryBuilder(lemmatizerClient, classificationPool, hashingVectorizer);
+        this.documentsBuilder = new DocumentsBuilder(lemmatizerClient, tokenFilters);
+        this.bayesAlgorithm = new NaiveBayesClassificationAlgorithm(classificationPool, hashingVectorizer);
+        this.knnAlgorithm = knnAlgorithm(classificationPool);
     }
 
     @PostConstruct
@@ -101,29 +107,33 @@ public class ComparativeAnalysisExecutor extends AnalysisExecutor {
             log.debug("Processed. Documents are {}", documents);
         }
 
+        TokenizedTweets tokenizedTweets = new TokenizedTweets(lemmatizerClient, tokenFilters);
+
         if (nonLemmatizedModeEnabled) {
             log.info("Classifying using Bayes with lemmatization disabled:");
             Stopwatch bayesSw = Stopwatch.createStarted();
-            nonLemmatizedBayesClassifications = bayesAlgorithm.classify(deepCopy(testSet), nonLemmatizedDictionary, false);
+            List<TokenizedTweet> nonLemmatizedTestSet = tokenizedTweets.tokenize(testSet, false);
+            nonLemmatizedBayesClassifications = bayesAlgorithm.classify(nonLemmatizedTestSet, nonLemmatizedDictionary);
             log.info("Classification with Bayes algorithm and lemmatization disabled took {}", bayesSw.stop());
-            featureToggles.getKnnAnalysisParameterK().forEach(k -> {
-                log.info("Classifying using KNN with k = {} and lemmatization disabled:", k);
-                Stopwatch knnSw = Stopwatch.createStarted();
-                nonLemmatizedKNNClassifications.add(knnAlgorithm.classify(deepCopy(testSet), nonLemmatizedDocuments, false, k));
-                log.info("Classification with KNN algorithm and lemmatization disabled took {}", knnSw.stop());
-            });
+            log.info("Classifying using KNN with k = {} and lemmatization disabled:", featureToggles.getKnnAnalysisParameterK());
+            Stopwatch knnSw = Stopwatch.createStarted();
+            var classificationsPerK = knnAlgorithm.classify(
+                    nonLemmatizedTestSet, nonLemmatizedDocuments, featureToggles.getKnnAnalysisParameterK());
+            featureToggles.getKnnAnalysisParameterK().forEach(k -> nonLemmatizedKNNClassifications.add(classificationsPerK.get(k)));
+            log.info("Classification with KNN algorithm and lemmatization disabled took {}", knnSw.stop());
         }
         if (lemmatizedModeEnabled) {
             log.info("Classifying using Bayes with lemmatization enabled:");
             Stopwatch bayesSw = Stopwatch.createStarted();
-            bayesClassifications = bayesAlgorithm.classify(deepCopy(testSet), dictionary, true);
+            List<TokenizedTweet> lemmatizedTestSet = tokenizedTweets.tokenize(testSet, true);
+            bayesClassifications = bayesAlgorithm.classify(lemmatizedTestSet, dictionary);
             log.info("Classification with Bayes algorithm and lemmatization enabled took {}", bayesSw.stop());
-            featureToggles.getKnnAnalysisParameterK().forEach(k -> {
-                log.info("Classifying using KNN with k = {} and lemmatization enabled:", k);
-                Stopwatch knnSw = Stopwatch.createStarted();
-                knnClassifications.add(knnAlgorithm.classify(deepCopy(testSet), documents, true, k));
-                log.info("Classification with KNN algorithm and lemmatization enabled took {}", knnSw.stop());
-            });
+            log.info("Classifying using KNN with k = {} and lemmatization enabled:", featureToggles.getKnnAnalysisParameterK());
+            Stopwatch knnSw = Stopwatch.createStarted();
+            var classificationsPerK = knnAlgorithm.classify(
+                    lemmatizedTestSet, documents, featureToggles.getKnnAnalysisParameterK());
+            featureToggles.getKnnAnalysisParameterK().forEach(k -> knnClassifications.add(classificationsPerK.get(k)));
+            log.info("Classification with KNN algorithm and lemmatization enabled took {}", knnSw.stop());
         }
 
         Map<String, AnalysisResults> resultsPerAlgorithm = new HashMap<>();
@@ -158,10 +168,4 @@ public class ComparativeAnalysisExecutor extends AnalysisExecutor {
             log.info("Analysis completed, took {}", sw.stop());
         }
     }
-
-    private List<Tweet> deepCopy(List<Tweet> tweets) {
-        return tweets.stream()
-                .map(Tweet::new)
-                .collect(toList());
-    }
 }
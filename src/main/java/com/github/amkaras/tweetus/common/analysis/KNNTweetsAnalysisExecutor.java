@@ -1,16 +1,23 @@
 package com.github.amkaras.tweetus.common.analysis;
 
+import com.github.amkaras.tweetus.common.algorithm.ModelSnapshot;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweets;
+import com.github.amkaras.tweetus.common.algorithm.VocabularyPruning;
 import com.github.amkaras.tweetus.common.algorithm.knn.DocumentsBuilder;
 import com.github.amkaras.tweetus.common.algorithm.knn.KNNClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.algorithm.knn.KNNCorpus;
 import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
 import com.github.amkaras.tweetus.common.model.Algorithm;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
 import com.github.amkaras.tweetus.configuration.FeatureToggles;
 import com.github.amkaras.tweetus.external.opinionfinder.service.OpinionFinderAnalysisService;
 import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
 import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
 import com.github.amkaras.tweetus.external.twitter.service.TweetService;
+import com.google.common.base.Stopwatch;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -19,25 +26,42 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.amkaras.tweetus.common.algorithm.knn.model.KNNSearchParameters.Builder.knnSearchParametersBuilder;
+import static java.util.stream.Collectors.toMap;
 
 @Component
 public class KNNTweetsAnalysisExecutor extends AnalysisExecutor {
 
+    private final StanfordLemmatizerClient lemmatizerClient;
     private final DocumentsBuilder documentsBuilder;
-    private Set<Document> documents;
-    private Set<Document> nonLemmatizedDocuments;
-    private Map<Tweet, Optional<ClassificationCategory>> knnClassifications;
-    private Map<Tweet, Optional<ClassificationCategory>> nonLemmatizedKNNClassifications;
+    private final KNNClassificationAlgorithm knnAlgorithm;
+    private final KNNClassificationAlgorithm exactAlgorithm;
+    private KNNCorpus corpus;
+    private KNNCorpus nonLemmatizedCorpus;
+    private KNNCorpus unprunedCorpus;
+    private KNNCorpus unprunedNonLemmatizedCorpus;
+    private Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> knnClassifications;
+    private Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> nonLemmatizedKNNClassifications;
+    private Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> unprunedKNNClassifications;
+    private Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> unprunedNonLemmatizedKNNClassifications;
 
     @Autowired
     public KNNTweetsAnalysisExecutor(TweetService tweetService,
                                      OpinionFinderAnalysisService opinionFinderAnalysisService,
-                                     FeatureToggles featureToggles) {
-        super(tweetService, opinionFinderAnalysisService, featureToggles);
-        final StanfordLemmatizerClient lemmatizerClient = featureToggles.isStanfordNlpClasspathConfigured() ?
-                StanfordLemmatizerClient.createConfigured() : StanfordLemmatizerClient.createNotConfigured();
-        this.algorithm = new KNNClassificationAlgorithm(lemmatizerClient);
-        this.documentsBuilder = new DocumentsBuilder(lemmatizerClient);
+                                     FeatureToggles featureToggles,
+                                     ForkJoinPool classificationPool,
+                                     StanfordLemmatizerClient lemmatizerClient,
+                                     TokenFilters tokenFilters) {
+        super(tweetService, opinionFinderAnalysisService, featureToggles, tokenFilters);
+        this.knnAlgorithm = knnAlgorithm(classificationPool);
+        this.algorithm = knnAlgorithm;
+        this.exactAlgorithm = new KNNClassificationAlgorithm(classificationPool, knnSearchParametersBuilder()
+                .withTokenFilters(tokenFilters)
+                .build());
+        this.lemmatizerClient = lemmatizerClient;
+        this.documentsBuilder = new DocumentsBuilder(lemmatizerClient, tokenFilters);
     }
 
     @PostConstruct
@@ -52,42 +76,121 @@ public class KNNTweetsAnalysisExecutor extends AnalysisExecutor {
         List<Integer> k = featureToggles.getKnnAnalysisParameterK();
         boolean lemmatizedModeEnabled = featureToggles.isKnnAnalysisLemmatizedModeEnabled();
         boolean nonLemmatizedModeEnabled = featureToggles.isKnnAnalysisNonLemmatizedModeEnabled();
+        int trainingSetSize = featureToggles.getKnnAnalysisTrainingSetSize();
 
-        prepareTrainingSet(featureToggles.getKnnAnalysisTrainingSetSize());
+        String snapshotName = snapshotName(Algorithm.KNN, classificationType, true);
+        String nonLemmatizedSnapshotName = snapshotName(Algorithm.KNN, classificationType, false);
+        Optional<ModelSnapshot.Reader> snapshot = lemmatizedModeEnabled ?
+                readSnapshot(snapshotName, ModelSnapshot.Kind.KNN, trainingSetSize) : Optional.empty();
+        Optional<ModelSnapshot.Reader> nonLemmatizedSnapshot = nonLemmatizedModeEnabled ?
+                readSnapshot(nonLemmatizedSnapshotName, ModelSnapshot.Kind.KNN, trainingSetSize) : Optional.empty();
 
-        log.info("Processing analyses to documents");
+        if ((!lemmatizedModeEnabled || snapshot.isPresent()) && (!nonLemmatizedModeEnabled || nonLemmatizedSnapshot.isPresent())) {
+            log.info("Restoring corpus from snapshots");
+            corpus = snapshot.map(knnAlgorithm::corpus).orElse(null);
+            nonLemmatizedCorpus = nonLemmatizedSnapshot.map(knnAlgorithm::corpus).orElse(null);
+        } else {
+            VocabularyPruning pruning = vocabularyPruning(featureToggles);
+            prepareTrainingSet(trainingSetSize);
 
-        if (lemmatizedModeEnabled) {
-            documents = documentsBuilder.build(trainingSet, trainingSetAnalyses, classificationType, true);
-            log.info("Processed. Documents are {}", documents);
-        }
-        if (nonLemmatizedModeEnabled) {
-            nonLemmatizedDocuments = documentsBuilder.build(trainingSet, trainingSetAnalyses, classificationType, false);
-            log.info("Processed. Non lemmatized documents are {}", nonLemmatizedDocuments);
+            log.info("Processing analyses to documents");
+
+            if (lemmatizedModeEnabled) {
+                Set<Document> documents = documentsBuilder.build(trainingSet, trainingSetAnalyses, classificationType, true);
+                log.info("Processed. Documents are {}", documents);
+                corpus = knnAlgorithm.corpus(documents, pruning);
+                unprunedCorpus = pruning != null ? knnAlgorithm.corpus(documents) : null;
+                writeSnapshot(snapshotName, ModelSnapshot.Kind.KNN, trainingSetSize, corpus::writeTo);
+            }
+            if (nonLemmatizedModeEnabled) {
+                Set<Document> nonLemmatizedDocuments =
+                        documentsBuilder.build(trainingSet, trainingSetAnalyses, classificationType, false);
+                log.info("Processed. Non lemmatized documents are {}", nonLemmatizedDocuments);
+                nonLemmatizedCorpus = knnAlgorithm.corpus(nonLemmatizedDocuments, pruning);
+                unprunedNonLemmatizedCorpus = pruning != null ? knnAlgorithm.corpus(nonLemmatizedDocuments) : null;
+                writeSnapshot(nonLemmatizedSnapshotName, ModelSnapshot.Kind.KNN, trainingSetSize,
+                        nonLemmatizedCorpus::writeTo);
+            }
         }
 
         prepareTestSet(featureToggles.getKnnAnalysisTestSetSize());
+        TokenizedTweets tokenizedTweets = new TokenizedTweets(lemmatizerClient, tokenFilters);
 
-
-        k.forEach(currentK -> {
-            if (lemmatizedModeEnabled) {
-                log.info("Classifying with lemmatization enabled:");
-                knnClassifications = algorithm.classify(testSet, documents, true, currentK);
+        if (lemmatizedModeEnabled) {
+            log.info("Classifying with lemmatization enabled:");
+            Stopwatch sw = Stopwatch.createStarted();
+            List<TokenizedTweet> lemmatizedTestSet = tokenizedTweets.tokenize(testSet, true);
+            knnClassifications = knnAlgorithm.classify(lemmatizedTestSet, corpus, k);
+            log.info("Classification with lemmatization enabled took {}", sw.stop());
+            if (unprunedCorpus != null) {
+                log.info("Classifying with lemmatization enabled and without vocabulary pruning:");
+                unprunedKNNClassifications = knnAlgorithm.classify(lemmatizedTestSet, unprunedCorpus, k);
             }
-            if (nonLemmatizedModeEnabled) {
-                log.info("Classifying with lemmatization disabled:");
-                nonLemmatizedKNNClassifications = algorithm.classify(testSet, nonLemmatizedDocuments, false, currentK);
-                log.info("Classified {} tweets", nonLemmatizedKNNClassifications.size());
+            if (agreementReportEnabled()) {
+                reportAgreementWithExactSearch(knnClassifications, lemmatizedTestSet, corpus, k);
+            }
+        }
+        if (nonLemmatizedModeEnabled) {
+            log.info("Classifying with lemmatization disabled:");
+            Stopwatch sw = Stopwatch.createStarted();
+            List<TokenizedTweet> nonLemmatizedTestSet = tokenizedTweets.tokenize(testSet, false);
+            nonLemmatizedKNNClassifications = knnAlgorithm.classify(nonLemmatizedTestSet, nonLemmatizedCorpus, k);
+            log.info("Classification with lemmatization disabled took {}", sw.stop());
+            if (unprunedNonLemmatizedCorpus != null) {
+                log.info("Classifying with lemmatization disabled and without vocabulary pruning:");
+                unprunedNonLemmatizedKNNClassifications =
+                        knnAlgorithm.classify(nonLemmatizedTestSet, unprunedNonLemmatizedCorpus, k);
             }
+            if (agreementReportEnabled()) {
+                reportAgreementWithExactSearch(
+                        nonLemmatizedKNNClassifications, nonLemmatizedTestSet, nonLemmatizedCorpus, k);
+            }
+        }
 
+        k.forEach(currentK -> {
             if (lemmatizedModeEnabled) {
-                log.info("Lemmatized analyses results:");
-                compareResults(knnClassifications, classificationType, Algorithm.KNN);
+                log.info("Lemmatized analyses results for k = {}:", currentK);
+                AnalysisResults results = compareResults(knnClassifications.get(currentK), classificationType, Algorithm.KNN);
+                if (unprunedKNNClassifications != null) {
+                    log.info("Lemmatized analyses results for k = {} without vocabulary pruning:", currentK);
+                    reportPruning(results, compareResults(
+                            unprunedKNNClassifications.get(currentK), classificationType, Algorithm.KNN));
+                }
             }
             if (nonLemmatizedModeEnabled) {
-                log.info("Non lemmatized analyses results:");
-                compareResults(nonLemmatizedKNNClassifications, classificationType, Algorithm.KNN);
+                log.info("Non lemmatized analyses results for k = {}:", currentK);
+                AnalysisResults results =
+                        compareResults(nonLemmatizedKNNClassifications.get(currentK), classificationType, Algorithm.KNN);
+                if (unprunedNonLemmatizedKNNClassifications != null) {
+                    log.info("Non lemmatized analyses results for k = {} without vocabulary pruning:", currentK);
+                    reportPruning(results, compareResults(
+                            unprunedNonLemmatizedKNNClassifications.get(currentK), classificationType, Algorithm.KNN));
+                }
             }
         });
     }
+
+    private boolean agreementReportEnabled() {
+        return featureToggles.isKnnAnalysisAnnEnabled() && featureToggles.isKnnAnalysisAnnAgreementReportEnabled();
+    }
+
+    private void reportAgreementWithExactSearch(
+            Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> approximateClassifications,
+            List<TokenizedTweet> tweets, KNNCorpus corpus, List<Integer> k) {
+        log.info("Classifying with exact KNN to compare against approximate KNN:");
+        Stopwatch sw = Stopwatch.createStarted();
+        var exactClassifications = exactAlgorithm.classify(tweets, corpus, k);
+        log.info("Classification with exact KNN took {}", sw.stop());
+        k.forEach(currentK -> {
+            Map<String, Optional<ClassificationCategory>> exactByTweetId = exactClassifications.get(currentK)
+                    .entrySet().stream()
+                    .collect(toMap(entry -> entry.getKey().getId(), Map.Entry::getValue));
+            long agreedCount = approximateClassifications.get(currentK).entrySet().stream()
+                    .filter(entry -> entry.getValue().equals(exactByTweetId.get(entry.getKey().getId())))
+                    .count();
+            int totalCount = approximateClassifications.get(currentK).size();
+            log.info("Approximate KNN agreed with exact KNN for k = {} on {}/{} tweets, which gives {}% agreement",
+                    currentK, agreedCount, totalCount, (agreedCount * 100.0) / totalCount);
+        });
+    }
 }
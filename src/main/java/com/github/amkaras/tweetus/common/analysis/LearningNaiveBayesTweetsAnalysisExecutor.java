@@ -1,10 +1,17 @@
 package com.github.amkaras.tweetus.common.analysis;
 
+import com.github.amkaras.tweetus.common.algorithm.ModelSnapshot;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweets;
+import com.github.amkaras.tweetus.common.algorithm.VocabularyPruning;
+import com.github.amkaras.tweetus.common.algorithm.bayes.CategoryCounts;
 import com.github.amkaras.tweetus.common.algorithm.bayes.DictionaryBuilder;
 import com.github.amkaras.tweetus.common.algorithm.bayes.NaiveBayesClassificationAlgorithm;
 import com.github.amkaras.tweetus.common.model.Algorithm;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
 import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
 import com.github.amkaras.tweetus.configuration.FeatureToggles;
 import com.github.amkaras.tweetus.external.opinionfinder.service.OpinionFinderAnalysisService;
 import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
@@ -14,27 +21,37 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 @Component
 public class LearningNaiveBayesTweetsAnalysisExecutor extends AnalysisExecutor {
 
+    private final StanfordLemmatizerClient lemmatizerClient;
     private final DictionaryBuilder dictionaryBuilder;
-    private Map<ClassificationCategory, Map<String, Long>> dictionary;
-    private Map<ClassificationCategory, Map<String, Long>> nonLemmatizedDictionary;
+    private final NaiveBayesClassificationAlgorithm bayesAlgorithm;
+    private CategoryCounts dictionary;
+    private CategoryCounts nonLemmatizedDictionary;
+    private CategoryCounts unprunedDictionary;
+    private CategoryCounts unprunedNonLemmatizedDictionary;
     private Map<Tweet, Optional<ClassificationCategory>> bayesClassifications;
     private Map<Tweet, Optional<ClassificationCategory>> nonLemmatizedBayesClassifications;
 
     @Autowired
     public LearningNaiveBayesTweetsAnalysisExecutor(TweetService tweetService,
                                                     OpinionFinderAnalysisService opinionFinderAnalysisService,
-                                                    FeatureToggles featureToggles) {
-        super(tweetService, opinionFinderAnalysisService, featureToggles);
-        final StanfordLemmatizerClient lemmatizerClient = featureToggles.isStanfordNlpClasspathConfigured() ?
-                StanfordLemmatizerClient.createConfigured() : StanfordLemmatizerClient.createNotConfigured();
-        this.algorithm = new NaiveBayesClassificationAlgorithm(lemmatizerClient);
-        this.dictionaryBuilder = new DictionaryBuilder(lemmatizerClient);
+                                                    FeatureToggles featureToggles,
+                                                    ForkJoinPool classificationPool,
+                                                    StanfordLemmatizerClient lemmatizerClient,
+                                                    TokenFilters tokenFilters) {
+        super(tweetService, opinionFinderAnalysisService, featureToggles, tokenFilters);
+        final HashingVectorizer hashingVectorizer = hashingVectorizer(featureToggles);
+        this.lemmatizerClient = lemmatizerClient;
+        this.bayesAlgorithm = new NaiveBayesClassificationAlgorithm(classificationPool, hashingVectorizer);
+        this.algorithm = bayesAlgorithm;
+        this.dictionaryBuilder = new DictionaryBuilder(lemmatizerClient, classificationPool, hashingVectorizer);
     }
 
     @PostConstruct
@@ -48,38 +65,79 @@ public class LearningNaiveBayesTweetsAnalysisExecutor extends AnalysisExecutor {
         ClassificationType classificationType = featureToggles.getBayesAnalysisClassificationType();
         boolean lemmatizedModeEnabled = featureToggles.isBayesAnalysisLemmatizedModeEnabled();
         boolean nonLemmatizedModeEnabled = featureToggles.isBayesAnalysisNonLemmatizedModeEnabled();
+        int trainingSetSize = featureToggles.getBayesAnalysisTrainingSetSize();
 
-        prepareTrainingSet(featureToggles.getBayesAnalysisTrainingSetSize());
+        String snapshotName = snapshotName(Algorithm.BAYES, classificationType, true);
+        String nonLemmatizedSnapshotName = snapshotName(Algorithm.BAYES, classificationType, false);
+        Optional<ModelSnapshot.Reader> snapshot = lemmatizedModeEnabled ?
+                readSnapshot(snapshotName, ModelSnapshot.Kind.NAIVE_BAYES, trainingSetSize) : Optional.empty();
+        Optional<ModelSnapshot.Reader> nonLemmatizedSnapshot = nonLemmatizedModeEnabled ?
+                readSnapshot(nonLemmatizedSnapshotName, ModelSnapshot.Kind.NAIVE_BAYES, trainingSetSize) : Optional.empty();
 
-        log.info("Processing analyses to dictionary");
+        if ((!lemmatizedModeEnabled || snapshot.isPresent()) && (!nonLemmatizedModeEnabled || nonLemmatizedSnapshot.isPresent())) {
+            log.info("Restoring dictionary from snapshots");
+            dictionary = snapshot.map(CategoryCounts::readFrom).orElse(null);
+            nonLemmatizedDictionary = nonLemmatizedSnapshot.map(CategoryCounts::readFrom).orElse(null);
+        } else {
+            VocabularyPruning pruning = vocabularyPruning(featureToggles);
+            prepareTrainingSet(trainingSetSize);
 
-        if (lemmatizedModeEnabled) {
-            dictionary = dictionaryBuilder.build(trainingSetAnalyses, classificationType, true);
-            log.info("Processed. Dictionary is {}", dictionary);
-        }
-        if (nonLemmatizedModeEnabled) {
-            nonLemmatizedDictionary = dictionaryBuilder.build(trainingSetAnalyses, classificationType, false);
-            log.info("Processed. Non lemmatized dictionary is {}", nonLemmatizedDictionary);
+            log.info("Processing analyses to dictionary");
+
+            if (lemmatizedModeEnabled) {
+                dictionary = dictionaryBuilder.buildCounts(trainingSetAnalyses, classificationType, true);
+                log.info("Processed. Dictionary is {}", dictionary.toDictionary());
+                if (pruning != null) {
+                    unprunedDictionary = dictionary;
+                    dictionary = dictionary.prune(pruning);
+                }
+                writeSnapshot(snapshotName, ModelSnapshot.Kind.NAIVE_BAYES, trainingSetSize, dictionary::writeTo);
+            }
+            if (nonLemmatizedModeEnabled) {
+                nonLemmatizedDictionary = dictionaryBuilder.buildCounts(trainingSetAnalyses, classificationType, false);
+                log.info("Processed. Non lemmatized dictionary is {}", nonLemmatizedDictionary.toDictionary());
+                if (pruning != null) {
+                    unprunedNonLemmatizedDictionary = nonLemmatizedDictionary;
+                    nonLemmatizedDictionary = nonLemmatizedDictionary.prune(pruning);
+                }
+                writeSnapshot(nonLemmatizedSnapshotName, ModelSnapshot.Kind.NAIVE_BAYES, trainingSetSize,
+                        nonLemmatizedDictionary::writeTo);
+            }
         }
 
         prepareTestSet(featureToggles.getBayesAnalysisTestSetSize());
+        TokenizedTweets tokenizedTweets = new TokenizedTweets(lemmatizerClient, tokenFilters);
+        List<TokenizedTweet> lemmatizedTestSet = null;
+        List<TokenizedTweet> nonLemmatizedTestSet = null;
 
         if (lemmatizedModeEnabled) {
             log.info("Classifying with lemmatization enabled:");
-            bayesClassifications = algorithm.classify(testSet, dictionary, true);
+            lemmatizedTestSet = tokenizedTweets.tokenize(testSet, true);
+            bayesClassifications = bayesAlgorithm.classify(lemmatizedTestSet, dictionary);
         }
         if (nonLemmatizedModeEnabled) {
             log.info("Classifying with lemmatization disabled:");
-            nonLemmatizedBayesClassifications = algorithm.classify(testSet, nonLemmatizedDictionary, false);
+            nonLemmatizedTestSet = tokenizedTweets.tokenize(testSet, false);
+            nonLemmatizedBayesClassifications = bayesAlgorithm.classify(nonLemmatizedTestSet, nonLemmatizedDictionary);
         }
 
         if (lemmatizedModeEnabled) {
             log.info("Lemmatized analyses results:");
-            compareResults(bayesClassifications, classificationType, Algorithm.BAYES);
+            AnalysisResults results = compareResults(bayesClassifications, classificationType, Algorithm.BAYES);
+            if (unprunedDictionary != null) {
+                log.info("Lemmatized analyses results without vocabulary pruning:");
+                reportPruning(results, compareResults(bayesAlgorithm.classify(lemmatizedTestSet, unprunedDictionary),
+                        classificationType, Algorithm.BAYES));
+            }
         }
         if (nonLemmatizedModeEnabled) {
             log.info("Non lemmatized analyses results:");
-            compareResults(nonLemmatizedBayesClassifications, classificationType, Algorithm.BAYES);
+            AnalysisResults results = compareResults(nonLemmatizedBayesClassifications, classificationType, Algorithm.BAYES);
+            if (unprunedNonLemmatizedDictionary != null) {
+                log.info("Non lemmatized analyses results without vocabulary pruning:");
+                reportPruning(results, compareResults(bayesAlgorithm.classify(nonLemmatizedTestSet, unprunedNonLemmatizedDictionary),
+                        classificationType, Algorithm.BAYES));
+            }
         }
     }
 }
@@ -0,0 +1,53 @@
+package com.github.amkaras.tweetus.common.analysis;
+
+import com.github.amkaras.tweetus.common.logic.WeightedClassificationCategorySelector;
+import com.github.amkaras.tweetus.common.model.BinaryClassificationCategory;
+import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.github.amkaras.tweetus.common.util.AnalysesIndex;
+import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.github.amkaras.tweetus.common.model.ClassificationType.BINARY;
+
+class OnlineAgreementReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(OnlineAgreementReporter.class);
+
+    private final String modelName;
+    private final ClassificationType classificationType;
+    private final WeightedClassificationCategorySelector categorySelector = new WeightedClassificationCategorySelector();
+
+    OnlineAgreementReporter(String modelName, ClassificationType classificationType) {
+        this.modelName = modelName;
+        this.classificationType = classificationType;
+    }
+
+    void report(Map<Tweet, Optional<ClassificationCategory>> classifications,
+                Collection<OpinionFinderAnalysis> analyses) {
+        AnalysesIndex analysesIndex = AnalysesIndex.of(analyses);
+        int consistentCount = 0;
+        int totalCount = 0;
+        for (Map.Entry<Tweet, Optional<ClassificationCategory>> entry : classifications.entrySet()) {
+            Optional<? extends ClassificationCategory> ofCategory = analysesIndex.find(entry.getKey().getId())
+                    .flatMap(analysis -> categorySelector.select(
+                            analysis.getSubjectiveClues(), analysis.getPolarityClassifiers()))
+                    .map(category -> classificationType == BINARY ? BinaryClassificationCategory.map(category) : category);
+            if (entry.getValue().isEmpty() || ofCategory.isEmpty()) {
+                continue;
+            }
+            if (entry.getValue().get() == ofCategory.get()) {
+                consistentCount += 1;
+            }
+            totalCount += 1;
+        }
+        log.info("{} classifications of new tweets were consistent with OpinionFinder for {}/{} tweets",
+                modelName, consistentCount, totalCount);
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.amkaras.tweetus.common.analysis;
+
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweets;
+import com.github.amkaras.tweetus.common.algorithm.knn.DocumentsBuilder;
+import com.github.amkaras.tweetus.common.algorithm.knn.IncrementalKNNIndex;
+import com.github.amkaras.tweetus.common.algorithm.knn.KNNClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
+import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+import com.github.amkaras.tweetus.configuration.FeatureToggles;
+import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
+import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.amkaras.tweetus.common.algorithm.knn.IncrementalKNNIndex.Builder.incrementalKNNIndexBuilder;
+import static com.github.amkaras.tweetus.common.algorithm.knn.model.KNNSearchParameters.Builder.knnSearchParametersBuilder;
+
+@Component
+public class OnlineKNNIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(OnlineKNNIndexer.class);
+
+    private final FeatureToggles featureToggles;
+    private final ClassificationType classificationType;
+    private final boolean lemmatizationEnabled;
+    private final int k;
+    private final StanfordLemmatizerClient lemmatizerClient;
+    private final TokenFilters tokenFilters;
+    private final DocumentsBuilder documentsBuilder;
+    private final KNNClassificationAlgorithm knnAlgorithm;
+    private final IncrementalKNNIndex index;
+    private final OnlineAgreementReporter agreementReporter;
+
+    @Autowired
+    public OnlineKNNIndexer(FeatureToggles featureToggles, ForkJoinPool classificationPool,
+                            StanfordLemmatizerClient lemmatizerClient,
+                            TokenFilters tokenFilters) {
+        this.featureToggles = featureToggles;
+        this.classificationType = featureToggles.getKnnAnalysisClassificationType();
+        this.lemmatizationEnabled = featureToggles.isKnnOnlineIndexLemmatizedModeEnabled();
+        this.k = featureToggles.getKnnOnlineIndexParameterK();
+        this.lemmatizerClient = lemmatizerClient;
+        this.tokenFilters = tokenFilters;
+        this.documentsBuilder = new DocumentsBuilder(lemmatizerClient, tokenFilters);
+        this.knnAlgorithm = new KNNClassificationAlgorithm(classificationPool, knnSearchParametersBuilder()
+                .withBatchSize(featureToggles.getKnnAnalysisBatchSize())
+                .withHashingVectorizer(AnalysisExecutor.hashingVectorizer(featureToggles))
+                .withTokenFilters(tokenFilters)
+                .build());
+        this.index = incrementalKNNIndexBuilder()
+                .withReweightBatchSize(featureToggles.getKnnOnlineIndexReweightBatchSize())
+                .withMaxDocumentsCount(featureToggles.getKnnOnlineIndexMaxDocuments())
+                .withHashingVectorizer(AnalysisExecutor.hashingVectorizer(featureToggles))
+                .withPruning(AnalysisExecutor.vocabularyPruning(featureToggles))
+                .withTokenFilters(tokenFilters)
+                .build();
+        this.agreementReporter = new OnlineAgreementReporter("KNN index", classificationType);
+    }
+
+    public void index(List<Tweet> tweets, Collection<OpinionFinderAnalysis> analyses) {
+        if (!featureToggles.isKnnOnlineIndexEnabled() || tweets.isEmpty()) {
+            return;
+        }
+        Stopwatch sw = Stopwatch.createStarted();
+        try {
+            if (index.getDocumentsCount() >= k) {
+                List<TokenizedTweet> tokenizedTweets =
+                        new TokenizedTweets(lemmatizerClient, tokenFilters).tokenize(tweets, lemmatizationEnabled);
+                agreementReporter.report(knnAlgorithm.classify(tokenizedTweets, index, List.of(k)).get(k), analyses);
+            }
+            Set<Document> documents =
+                    documentsBuilder.build(tweets, List.copyOf(analyses), classificationType, lemmatizationEnabled);
+            documents.forEach(index::add);
+            int documentsToReweight = index.reweight();
+            log.info("KNN index updated with {} documents in {}, {} documents indexed, {} waiting for re-weighting",
+                    documents.size(), sw.stop(), index.getDocumentsCount(), documentsToReweight);
+        } catch (RuntimeException e) {
+            log.error("Unable to update KNN index with {} analyses", analyses.size(), e);
+        }
+    }
+}
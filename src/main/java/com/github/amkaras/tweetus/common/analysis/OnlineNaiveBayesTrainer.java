@@ -0,0 +1,106 @@
+package com.github.amkaras.tweetus.common.analysis;
+
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweets;
+import com.github.amkaras.tweetus.common.algorithm.bayes.DictionaryBuilder;
+import com.github.amkaras.tweetus.common.algorithm.bayes.IncrementalNaiveBayesModel;
+import com.github.amkaras.tweetus.common.algorithm.bayes.NaiveBayesClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.model.ClassificationType;
+import com.github.amkaras.tweetus.common.util.StateFile;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+import com.github.amkaras.tweetus.configuration.FeatureToggles;
+import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
+import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+@Component
+public class OnlineNaiveBayesTrainer {
+
+    private static final Logger log = LoggerFactory.getLogger(OnlineNaiveBayesTrainer.class);
+
+    private final FeatureToggles featureToggles;
+    private final ClassificationType classificationType;
+    private final boolean lemmatizationEnabled;
+    private final StateFile snapshotFile;
+    private final StanfordLemmatizerClient lemmatizerClient;
+    private final TokenFilters tokenFilters;
+    private final DictionaryBuilder dictionaryBuilder;
+    private final NaiveBayesClassificationAlgorithm bayesAlgorithm;
+    private final OnlineAgreementReporter agreementReporter;
+    private IncrementalNaiveBayesModel model;
+
+    @Autowired
+    public OnlineNaiveBayesTrainer(FeatureToggles featureToggles, ForkJoinPool classificationPool,
+                                   StanfordLemmatizerClient lemmatizerClient,
+                                   TokenFilters tokenFilters) {
+        this.featureToggles = featureToggles;
+        this.classificationType = featureToggles.getBayesAnalysisClassificationType();
+        this.lemmatizationEnabled = featureToggles.isBayesOnlineTrainingLemmatizedModeEnabled();
+        this.snapshotFile =
+                new StateFile("Naive Bayes model", Paths.get(featureToggles.getBayesOnlineTrainingSnapshotPath()));
+        this.lemmatizerClient = lemmatizerClient;
+        this.tokenFilters = tokenFilters;
+        this.dictionaryBuilder = new DictionaryBuilder(lemmatizerClient, classificationPool);
+        this.bayesAlgorithm = new NaiveBayesClassificationAlgorithm(classificationPool);
+        this.agreementReporter = new OnlineAgreementReporter("Naive Bayes model", classificationType);
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!featureToggles.isBayesOnlineTrainingEnabled()) {
+            return;
+        }
+        model = new IncrementalNaiveBayesModel(classificationType);
+        snapshotFile.restore(path -> {
+            IncrementalNaiveBayesModel restoredModel = IncrementalNaiveBayesModel.readSnapshot(path);
+            if (restoredModel.getClassificationType() != classificationType) {
+                throw new IOException("Naive Bayes snapshot at " + path + " was trained for " +
+                        restoredModel.getClassificationType() + " classification");
+            }
+            model = restoredModel;
+        });
+    }
+
+    /*
+    New tweets are classified with the live model before dictionary entries of their analyses are added to it
+     */
+    public void train(List<Tweet> tweets, Collection<OpinionFinderAnalysis> analyses) {
+        if (!featureToggles.isBayesOnlineTrainingEnabled() || analyses.isEmpty()) {
+            return;
+        }
+        Stopwatch sw = Stopwatch.createStarted();
+        try {
+            if (!model.isEmpty()) {
+                List<TokenizedTweet> tokenizedTweets =
+                        new TokenizedTweets(lemmatizerClient, tokenFilters).tokenize(tweets, lemmatizationEnabled);
+                agreementReporter.report(bayesAlgorithm.classify(tokenizedTweets, model.model()), analyses);
+            }
+            model.add(dictionaryBuilder.count(List.copyOf(analyses), classificationType, lemmatizationEnabled));
+            log.info("Naive Bayes model trained with {} analyses in {}", analyses.size(), sw.stop());
+        } catch (RuntimeException e) {
+            log.error("Unable to train Naive Bayes model with {} analyses", analyses.size(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${toggle.bayes.online.snapshot.interval}")
+    @PreDestroy
+    public void snapshot() {
+        if (featureToggles.isBayesOnlineTrainingEnabled()) {
+            snapshotFile.save(model.getVersion(), model::writeSnapshot);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.amkaras.tweetus.common.util;
+
+import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+First analysis of each entity is kept, the one a scan over the analyses would find
+ */
+public class AnalysesIndex {
+
+    private final Map<String, OpinionFinderAnalysis> analysesByEntityId;
+
+    private AnalysesIndex(Map<String, OpinionFinderAnalysis> analysesByEntityId) {
+        this.analysesByEntityId = analysesByEntityId;
+    }
+
+    public static AnalysesIndex of(Collection<OpinionFinderAnalysis> analyses) {
+        Map<String, OpinionFinderAnalysis> analysesByEntityId = new HashMap<>(analyses.size() * 2);
+        analyses.forEach(analysis -> analysesByEntityId.putIfAbsent(analysis.getEntityId(), analysis));
+        return new AnalysesIndex(analysesByEntityId);
+    }
+
+    public Optional<OpinionFinderAnalysis> find(String entityId) {
+        return Optional.ofNullable(analysesByEntityId.get(entityId));
+    }
+
+    public boolean contains(String entityId) {
+        return analysesByEntityId.containsKey(entityId);
+    }
+
+    public int size() {
+        return analysesByEntityId.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.amkaras.tweetus.common.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /*
+    Moved over the target only when fully written, so a crash never leaves a partially written file
+     */
+    public static void write(Path path, ContentWriter contentWriter) throws IOException {
+        Path temporaryPath = path.toAbsolutePath().resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporaryPath))) {
+                contentWriter.write(output);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        void write(OutputStream output) throws IOException;
+    }
+}
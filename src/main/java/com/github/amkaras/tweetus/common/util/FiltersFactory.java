@@ -10,6 +10,9 @@ import java.util.function.Predicate;
 
 public class FiltersFactory {
 
+    static final Set<String> POLITICIAN_NAMES = Set.of("donald", "trump", "hilary", "hillary", "clinton");
+    static final Set<String> COMMON_WORDS = Set.of("the", "and");
+
     private FiltersFactory() {
     }
 
@@ -21,14 +24,12 @@ public class FiltersFactory {
         return maybeMention -> !maybeMention.startsWith("@");
     }
 
-    public static Predicate<String> withoutPoliticianNames() {
-        final Set<String> politicians = Set.of("donald", "trump", "hilary", "hillary", "clinton");
-        return maybePolitician -> politicians.stream().noneMatch(maybePolitician::contains);
+    public static Predicate<String> withoutEntityNames(SubstringMatcher entityNames) {
+        return maybeEntity -> !entityNames.containsAny(maybeEntity);
     }
 
-    public static Predicate<String> withoutCommonWords() {
-        final Set<String> commonWords = Set.of("the", "and");
-        return maybeCommonWord -> commonWords.stream().noneMatch(maybeCommonWord::contains);
+    public static Predicate<String> withoutCommonWords(SubstringMatcher commonWords) {
+        return maybeCommonWord -> !commonWords.containsAny(maybeCommonWord);
     }
 
     public static Predicate<String> onlyCharacters() {
@@ -0,0 +1,145 @@
+package com.github.amkaras.tweetus.common.util;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Kinds of n-grams are hashed with different seeds, so a unigram does not share its bucket with an equal character n-gram
+ */
+public class HashingVectorizer {
+
+    private static final String FEATURE_PREFIX = "#";
+
+    private final int featuresCount;
+    private final boolean bigramsEnabled;
+    private final int characterNGramLength;
+    private final HashFunction unigramHash = Hashing.murmur3_32(0);
+    private final HashFunction bigramHash = Hashing.murmur3_32(1);
+    private final HashFunction characterNGramHash = Hashing.murmur3_32(2);
+    private final String[] featureNames;
+
+    private HashingVectorizer(int featuresCount, boolean bigramsEnabled, int characterNGramLength) {
+        this.featuresCount = featuresCount;
+        this.bigramsEnabled = bigramsEnabled;
+        this.characterNGramLength = characterNGramLength;
+        this.featureNames = new String[featuresCount];
+    }
+
+    public int getFeaturesCount() {
+        return featuresCount;
+    }
+
+    public boolean isBigramsEnabled() {
+        return bigramsEnabled;
+    }
+
+    public int getCharacterNGramLength() {
+        return characterNGramLength;
+    }
+
+    public List<String> features(List<String> tokens) {
+        return features(tokens, bigramsEnabled);
+    }
+
+    public List<String> tokenFeatures(List<String> tokens) {
+        return features(tokens, false);
+    }
+
+    private List<String> features(List<String> tokens, boolean bigramsEnabled) {
+        List<String> features = new ArrayList<>(tokens.size() * 2);
+        String previousToken = null;
+        for (String token : tokens) {
+            features.add(featureName(unigramHash.hashUnencodedChars(token).asInt()));
+            if (bigramsEnabled && previousToken != null) {
+                features.add(featureName(bigramHash.newHasher()
+                        .putUnencodedChars(previousToken)
+                        .putChar(' ')
+                        .putUnencodedChars(token)
+                        .hash()
+                        .asInt()));
+            }
+            if (characterNGramLength > 0) {
+                addCharacterNGrams(token, features);
+            }
+            previousToken = token;
+        }
+        return features;
+    }
+
+    /*
+    Token is padded with a space on both sides, so n-grams at word boundaries differ from the ones inside words
+     */
+    private void addCharacterNGrams(String token, List<String> features) {
+        String paddedToken = Tokenizer.WHITESPACE + token + Tokenizer.WHITESPACE;
+        for (int start = 0; start + characterNGramLength <= paddedToken.length(); ++start) {
+            features.add(featureName(characterNGramHash.newHasher()
+                    .putUnencodedChars(paddedToken.subSequence(start, start + characterNGramLength))
+                    .hash()
+                    .asInt()));
+        }
+    }
+
+    private String featureName(int hash) {
+        int featureId = Math.floorMod(hash, featuresCount);
+        String featureName = featureNames[featureId];
+        if (featureName == null) {
+            featureName = FEATURE_PREFIX + featureId;
+            featureNames[featureId] = featureName;
+        }
+        return featureName;
+    }
+
+    @Override
+    public String toString() {
+        return "HashingVectorizer{" +
+                "featuresCount=" + featuresCount +
+                ", bigramsEnabled=" + bigramsEnabled +
+                ", characterNGramLength=" + characterNGramLength +
+                '}';
+    }
+
+    public static final class Builder {
+
+        private int featuresCount;
+        private boolean bigramsEnabled;
+        private int characterNGramLength;
+
+        private Builder() {
+        }
+
+        public static Builder hashingVectorizerBuilder() {
+            return new Builder();
+        }
+
+        public Builder withFeaturesCount(int featuresCount) {
+            this.featuresCount = featuresCount;
+            return this;
+        }
+
+        public Builder withBigramsEnabled(boolean bigramsEnabled) {
+            this.bigramsEnabled = bigramsEnabled;
+            return this;
+        }
+
+        /*
+        Zero disables character n-grams
+         */
+        public Builder withCharacterNGramLength(int characterNGramLength) {
+            this.characterNGramLength = characterNGramLength;
+            return this;
+        }
+
+        public HashingVectorizer build() {
+            if (featuresCount < 1) {
+                throw new IllegalArgumentException("Features count has to be positive");
+            }
+            if (characterNGramLength < 0) {
+                throw new IllegalArgumentException("Character n-gram length cannot be negative");
+            }
+            return new HashingVectorizer(featuresCount, bigramsEnabled, characterNGramLength);
+        }
+    }
+}
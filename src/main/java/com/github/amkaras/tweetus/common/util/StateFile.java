@@ -0,0 +1,67 @@
+package com.github.amkaras.tweetus.common.util;
+
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class StateFile {
+
+    private static final Logger log = LoggerFactory.getLogger(StateFile.class);
+
+    private final String description;
+    private final Path path;
+    private long savedVersion;
+
+    public StateFile(String description, Path path) {
+        this.description = description;
+        this.path = path;
+    }
+
+    public boolean restore(Reader reader) {
+        if (!Files.exists(path)) {
+            log.info("No {} at {}", description, path);
+            return false;
+        }
+        Stopwatch sw = Stopwatch.createStarted();
+        try {
+            reader.read(path);
+            log.info("Restored {} from {} in {}", description, path, sw.stop());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to restore {} from {}", description, path, e);
+            return false;
+        }
+    }
+
+    public synchronized boolean save(long version, Writer writer) {
+        if (version == savedVersion) {
+            return false;
+        }
+        Stopwatch sw = Stopwatch.createStarted();
+        try {
+            writer.write(path);
+            savedVersion = version;
+            log.info("Saved {} to {} in {}", description, path, sw.stop());
+            return true;
+        } catch (IOException e) {
+            log.error("Unable to write {} to {}", description, path, e);
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Reader {
+
+        void read(Path path) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Writer {
+
+        void write(Path path) throws IOException;
+    }
+}
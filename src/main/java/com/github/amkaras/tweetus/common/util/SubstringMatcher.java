@@ -0,0 +1,139 @@
+package com.github.amkaras.tweetus.common.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+
+/*
+Aho-Corasick automaton, characters outside of the patterns lead back to the initial state
+ */
+public class SubstringMatcher {
+
+    private static final int OTHER_SYMBOL = 0;
+    private static final int INITIAL_STATE = 0;
+
+    private final List<String> patterns;
+    private final int[] asciiSymbols;
+    private final char[] nonAsciiCharacters;
+    private final int symbolsCount;
+    private final int[][] transitions;
+    private final boolean[] accepting;
+
+    private SubstringMatcher(List<String> patterns) {
+        this.patterns = patterns;
+        this.asciiSymbols = new int[128];
+        TreeSet<Character> alphabet = new TreeSet<>();
+        patterns.forEach(pattern -> pattern.chars().forEach(c -> alphabet.add((char) c)));
+        int symbol = OTHER_SYMBOL;
+        for (char c : alphabet.headSet((char) 128)) {
+            asciiSymbols[c] = ++symbol;
+        }
+        /*
+        Symbol of a non ASCII character follows from its position in the sorted array
+         */
+        this.nonAsciiCharacters = new char[alphabet.tailSet((char) 128).size()];
+        int index = 0;
+        for (char c : alphabet.tailSet((char) 128)) {
+            nonAsciiCharacters[index++] = c;
+        }
+        this.symbolsCount = symbol + nonAsciiCharacters.length + 1;
+
+        List<int[]> trie = new ArrayList<>();
+        List<Boolean> patternEnds = new ArrayList<>();
+        trie.add(new int[symbolsCount]);
+        patternEnds.add(false);
+        for (String pattern : patterns) {
+            int state = INITIAL_STATE;
+            for (int i = 0; i < pattern.length(); ++i) {
+                int patternSymbol = symbol(pattern.charAt(i));
+                if (trie.get(state)[patternSymbol] == INITIAL_STATE) {
+                    trie.get(state)[patternSymbol] = trie.size();
+                    trie.add(new int[symbolsCount]);
+                    patternEnds.add(false);
+                }
+                state = trie.get(state)[patternSymbol];
+            }
+            patternEnds.set(state, true);
+        }
+
+        this.transitions = trie.toArray(new int[0][]);
+        this.accepting = new boolean[transitions.length];
+        int[] failures = new int[transitions.length];
+        Deque<Integer> queue = new ArrayDeque<>();
+        accepting[INITIAL_STATE] = patternEnds.get(INITIAL_STATE);
+        for (int s = 0; s < symbolsCount; ++s) {
+            if (transitions[INITIAL_STATE][s] != INITIAL_STATE) {
+                queue.add(transitions[INITIAL_STATE][s]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            accepting[state] = patternEnds.get(state) || accepting[failures[state]];
+            for (int s = 0; s < symbolsCount; ++s) {
+                int next = transitions[state][s];
+                if (next != INITIAL_STATE && s != OTHER_SYMBOL) {
+                    failures[next] = transitions[failures[state]][s];
+                    queue.add(next);
+                } else {
+                    transitions[state][s] = transitions[failures[state]][s];
+                }
+            }
+        }
+    }
+
+    public static SubstringMatcher of(Collection<String> patterns) {
+        return new SubstringMatcher(List.copyOf(new TreeSet<>(patterns)));
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    public boolean containsAny(CharSequence text) {
+        if (accepting[INITIAL_STATE]) {
+            return true;
+        }
+        int state = INITIAL_STATE;
+        for (int i = 0; i < text.length(); ++i) {
+            state = transitions[state][symbol(text.charAt(i))];
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean containsAny(char[] text, int offset, int length) {
+        if (accepting[INITIAL_STATE]) {
+            return true;
+        }
+        int state = INITIAL_STATE;
+        for (int i = offset; i < offset + length; ++i) {
+            state = transitions[state][symbol(text[i])];
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int symbol(char c) {
+        if (c < 128) {
+            return asciiSymbols[c];
+        }
+        int index = Arrays.binarySearch(nonAsciiCharacters, c);
+        return index >= 0 ? symbolsCount - nonAsciiCharacters.length + index : OTHER_SYMBOL;
+    }
+
+    @Override
+    public String toString() {
+        return "SubstringMatcher{" +
+                "patterns=" + patterns.size() +
+                ", states=" + transitions.length +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.amkaras.tweetus.common.util;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+A token is dropped when it contains any of the terms
+ */
+public class TokenFilters {
+
+    private SubstringMatcher entityNames;
+    private SubstringMatcher commonWords;
+
+    public static TokenFilters defaults() {
+        return Builder.tokenFiltersBuilder()
+                .withEntityNames(FiltersFactory.POLITICIAN_NAMES)
+                .withCommonWords(FiltersFactory.COMMON_WORDS)
+                .build();
+    }
+
+    public SubstringMatcher getEntityNames() {
+        return entityNames;
+    }
+
+    public SubstringMatcher getCommonWords() {
+        return commonWords;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenFilters{" +
+                "entityNames=" + entityNames +
+                ", commonWords=" + commonWords +
+                '}';
+    }
+
+    public static final class Builder {
+
+        private final Set<String> entityNames = new TreeSet<>();
+        private final Set<String> commonWords = new TreeSet<>();
+
+        private Builder() {
+        }
+
+        public static Builder tokenFiltersBuilder() {
+            return new Builder();
+        }
+
+        public Builder withEntityNames(Collection<String> entityNames) {
+            addTerms(this.entityNames, entityNames);
+            return this;
+        }
+
+        public Builder withCommonWords(Collection<String> commonWords) {
+            addTerms(this.commonWords, commonWords);
+            return this;
+        }
+
+        private static void addTerms(Set<String> terms, Collection<String> newTerms) {
+            newTerms.stream()
+                    .map(String::trim)
+                    .filter(term -> !term.isEmpty())
+                    .map(String::toLowerCase)
+                    .forEach(terms::add);
+        }
+
+        public TokenFilters build() {
+            TokenFilters tokenFilters = new TokenFilters();
+            tokenFilters.entityNames = SubstringMatcher.of(entityNames);
+            tokenFilters.commonWords = SubstringMatcher.of(commonWords);
+            return tokenFilters;
+        }
+    }
+}
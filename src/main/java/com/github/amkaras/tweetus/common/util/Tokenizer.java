@@ -3,35 +3,95 @@ package com.github.amkaras.tweetus.common.util;
 import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.function.Function;
 
 import static com.github.amkaras.tweetus.common.util.FiltersFactory.atLeastThreeCharacters;
 import static com.github.amkaras.tweetus.common.util.FiltersFactory.onlyCharacters;
 import static com.github.amkaras.tweetus.common.util.FiltersFactory.withoutCommonCharacters;
 import static com.github.amkaras.tweetus.common.util.FiltersFactory.withoutCommonWords;
+import static com.github.amkaras.tweetus.common.util.FiltersFactory.withoutEntityNames;
 import static com.github.amkaras.tweetus.common.util.FiltersFactory.withoutMentions;
-import static com.github.amkaras.tweetus.common.util.FiltersFactory.withoutPoliticianNames;
 import static java.util.stream.Collectors.toList;
 
+/*
+Single pass equivalent of the FiltersFactory chain, which is still used for the few tokens it cannot handle identically
+ */
 public class Tokenizer {
 
     public static final String WHITESPACES = "\\s+";
     public static final String WHITESPACE = " ";
 
+    private static final byte SEPARATOR = 1;
+    private static final byte WHITESPACE_CHARACTER = 2;
+    private static final byte COMMON_CHARACTER = 3;
+    private static final byte LETTER = 4;
+    private static final byte OTHER = 5;
+
+    /*
+    Separators are characters of \\s regular expression, other whitespace characters are removed from tokens
+     */
+    private static final byte[] CHARACTER_CLASSES = new byte[128];
+    private static final char HORIZONTAL_ELLIPSIS = '\u2026';
+    private static final char KELVIN_SIGN = '\u212A';
+    private static final char CAPITAL_I_WITH_DOT = '\u0130';
+    private static final Set<String> LOCALE_SENSITIVE_LANGUAGES = Set.of("tr", "az", "lt");
+
+    static {
+        for (char c = 0; c < 128; ++c) {
+            if (" \t\n\u000B\f\r".indexOf(c) >= 0) {
+                CHARACTER_CLASSES[c] = SEPARATOR;
+            } else if (Character.isWhitespace(c)) {
+                CHARACTER_CLASSES[c] = WHITESPACE_CHARACTER;
+            } else if (".,\"'?!#@[]()*:".indexOf(c) >= 0) {
+                CHARACTER_CLASSES[c] = COMMON_CHARACTER;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                CHARACTER_CLASSES[c] = LETTER;
+            } else {
+                CHARACTER_CLASSES[c] = OTHER;
+            }
+        }
+    }
+
     private Tokenizer() {
     }
 
-    public static List<String> prepareTokens(Tweet tweet) {
-        return filters().apply(List.of(tweet.getContent().split(WHITESPACES)));
+    public static List<String> prepareTokens(Tweet tweet, TokenFilters filters) {
+        return prepareTokens(tweet.getContent(), filters);
     }
 
-    public static List<String> prepareTokens(String content) {
-        return filters().apply(List.of(content.split(WHITESPACES)));
+    public static List<String> prepareTokens(String content, TokenFilters filters) {
+        if (localeSensitive()) {
+            return filters(filters).apply(List.of(content.split(WHITESPACES)));
+        }
+        TokenBuffers buffers = new TokenBuffers(content.length(), filters);
+        List<String> tokens = new ArrayList<>();
+        int tokenStart = 0;
+        for (int i = 0; i <= content.length(); ++i) {
+            if (i == content.length() || isSeparator(content.charAt(i))) {
+                if (i > tokenStart) {
+                    addIfAccepted(content, tokenStart, i, buffers, tokens);
+                }
+                tokenStart = i + 1;
+            }
+        }
+        return tokens;
     }
 
-    public static List<String> prepareTokens(List<String> tokens) {
-        return filters().apply(tokens);
+    public static List<String> prepareTokens(List<String> tokens, TokenFilters filters) {
+        if (localeSensitive()) {
+            return filters(filters).apply(tokens);
+        }
+        TokenBuffers buffers = new TokenBuffers(0, filters);
+        List<String> preparedTokens = new ArrayList<>();
+        for (String token : tokens) {
+            buffers.ensureCapacity(token.length());
+            addIfAccepted(token, 0, token.length(), buffers, preparedTokens);
+        }
+        return preparedTokens;
     }
 
     public static List<String> splitOnly(String content) {
@@ -42,17 +102,88 @@ public class Tokenizer {
         return String.join(WHITESPACE, tokens);
     }
 
-    private static Function<List<String>, List<String>> filters() {
+    private static void addIfAccepted(String content, int start, int end, TokenBuffers buffers, List<String> tokens) {
+        char[] lowerCased = buffers.lowerCased;
+        char[] stripped = buffers.stripped;
+        int lowerCasedLength = 0;
+        int strippedLength = 0;
+        for (int i = start; i < end; ++i) {
+            char c = content.charAt(i);
+            if (c < 128) {
+                byte characterClass = CHARACTER_CLASSES[c];
+                if (characterClass == SEPARATOR || characterClass == WHITESPACE_CHARACTER) {
+                    continue;
+                }
+                if (characterClass == OTHER) {
+                    return;
+                }
+                char lowerCase = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+                lowerCased[lowerCasedLength++] = lowerCase;
+                if (characterClass == LETTER) {
+                    stripped[strippedLength++] = lowerCase;
+                }
+            } else if (c == HORIZONTAL_ELLIPSIS) {
+                lowerCased[lowerCasedLength++] = c;
+            } else if (c == KELVIN_SIGN || c == CAPITAL_I_WITH_DOT) {
+                /*
+                Lower cased to ASCII letters, by String.toLowerCase with a combining character
+                 */
+                tokens.addAll(filters(buffers.filters).apply(List.of(content.substring(start, end))));
+                return;
+            } else if (!Character.isWhitespace(c)) {
+                return;
+            }
+        }
+        if (strippedLength < 3 || (lowerCasedLength > 0 && lowerCased[0] == '@') ||
+                buffers.filters.getEntityNames().containsAny(lowerCased, 0, lowerCasedLength) ||
+                buffers.filters.getCommonWords().containsAny(stripped, 0, strippedLength)) {
+            return;
+        }
+        tokens.add(new String(stripped, 0, strippedLength));
+    }
+
+    private static boolean isSeparator(char c) {
+        return c < 128 && CHARACTER_CLASSES[c] == SEPARATOR;
+    }
+
+    /*
+    Lower casing of ASCII letters depends on the default locale only for these languages
+     */
+    private static boolean localeSensitive() {
+        return LOCALE_SENSITIVE_LANGUAGES.contains(Locale.getDefault().getLanguage());
+    }
+
+    static Function<List<String>, List<String>> filters(TokenFilters filters) {
         return tokens -> tokens.stream()
                 .map(String::toLowerCase)
                 .map(StringUtils::trimAllWhitespace)
                 .filter(withoutMentions())
-                .filter(withoutPoliticianNames())
+                .filter(withoutEntityNames(filters.getEntityNames()))
                 .map(withoutCommonCharacters())
                 .filter(atLeastThreeCharacters())
                 .filter(onlyCharacters())
-                .filter(withoutCommonWords())
+                .filter(withoutCommonWords(filters.getCommonWords()))
                 .filter(org.apache.commons.lang3.StringUtils::isNotBlank)
                 .collect(toList());
     }
+
+    private static final class TokenBuffers {
+
+        private final TokenFilters filters;
+        private char[] lowerCased;
+        private char[] stripped;
+
+        private TokenBuffers(int capacity, TokenFilters filters) {
+            this.filters = filters;
+            this.lowerCased = new char[capacity];
+            this.stripped = new char[capacity];
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > lowerCased.length) {
+                lowerCased = new char[Math.max(capacity, lowerCased.length * 2)];
+                stripped = new char[lowerCased.length];
+            }
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package com.github.amkaras.tweetus.configuration;
+
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+import com.github.amkaras.tweetus.external.stanfordnlp.LemmaCache;
+import com.github.amkaras.tweetus.external.stanfordnlp.LemmaTable;
+import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.amkaras.tweetus.common.util.TokenFilters.Builder.tokenFiltersBuilder;
+
+@Configuration
+public class ClassificationConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(ClassificationConfiguration.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool classificationPool(FeatureToggles featureToggles) {
+        return new ForkJoinPool(featureToggles.getClassificationParallelism());
+    }
+
+    @Bean
+    public StanfordLemmatizerClient lemmatizerClient(FeatureToggles featureToggles, LemmaCache lemmaCache) {
+        if (!featureToggles.isStanfordNlpClasspathConfigured()) {
+            Path lemmaTablePath = Paths.get(featureToggles.getLemmaTablePath());
+            if (Files.exists(lemmaTablePath)) {
+                try {
+                    LemmaTable lemmaTable = LemmaTable.read(lemmaTablePath);
+                    log.info("Lemmatizing with lemma table of {} words from {}", lemmaTable.size(), lemmaTablePath);
+                    return StanfordLemmatizerClient.createWithLemmaTable(lemmaTable);
+                } catch (IOException e) {
+                    log.error("Unable to read lemma table from {}", lemmaTablePath, e);
+                }
+            }
+            return StanfordLemmatizerClient.createNotConfigured();
+        }
+        StanfordLemmatizerClient lemmatizerClient = StanfordLemmatizerClient.createConfigured(lemmaCache,
+                featureToggles.getLemmatizationPipelines(), featureToggles.getLemmatizationThreads());
+        if (featureToggles.isLemmatizationWarmUpEnabled()) {
+            lemmatizerClient.warmUpInBackground();
+        }
+        return lemmatizerClient;
+    }
+
+    @Bean
+    public TokenFilters tokenFilters(FeatureToggles featureToggles) {
+        TokenFilters tokenFilters = tokenFiltersBuilder()
+                .withEntityNames(featureToggles.getFiltersEntityNames())
+                .withEntityNames(readTerms(featureToggles.getFiltersEntityNamesPath()))
+                .withCommonWords(featureToggles.getFiltersCommonWords())
+                .withCommonWords(readTerms(featureToggles.getFiltersCommonWordsPath()))
+                .build();
+        log.info("Preparing tokens with {}", tokenFilters);
+        return tokenFilters;
+    }
+
+    private static List<String> readTerms(String path) {
+        if (path.isBlank()) {
+            return List.of();
+        }
+        try {
+            return Files.readAllLines(Paths.get(path));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read filter terms from " + path, e);
+        }
+    }
+}
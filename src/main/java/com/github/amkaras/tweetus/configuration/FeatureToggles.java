@@ -1,5 +1,6 @@
 package com.github.amkaras.tweetus.configuration;
 
+import com.github.amkaras.tweetus.common.algorithm.VocabularyPruning;
 import com.github.amkaras.tweetus.common.model.ClassificationType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -20,6 +21,9 @@ public class FeatureToggles {
     private final int bayesAnalysisTestSetSize;
     private final boolean bayesAnalysisLemmatizedModeEnabled;
     private final boolean bayesAnalysisNonLemmatizedModeEnabled;
+    private final boolean bayesOnlineTrainingEnabled;
+    private final boolean bayesOnlineTrainingLemmatizedModeEnabled;
+    private final String bayesOnlineTrainingSnapshotPath;
     private final ClassificationType knnAnalysisClassificationType;
     private final boolean knnAnalysisExecutorEnabled;
     private final int knnAnalysisTrainingSetSize;
@@ -27,7 +31,41 @@ public class FeatureToggles {
     private final boolean knnAnalysisLemmatizedModeEnabled;
     private final boolean knnAnalysisNonLemmatizedModeEnabled;
     private final List<Integer> knnAnalysisParameterK;
-
+    private final boolean knnAnalysisAnnEnabled;
+    private final int knnAnalysisAnnTables;
+    private final int knnAnalysisAnnHyperplanes;
+    private final boolean knnAnalysisAnnAgreementReportEnabled;
+    private final int knnAnalysisBatchSize;
+    private final boolean knnOnlineIndexEnabled;
+    private final boolean knnOnlineIndexLemmatizedModeEnabled;
+    private final int knnOnlineIndexParameterK;
+    private final int knnOnlineIndexMaxDocuments;
+    private final int knnOnlineIndexReweightBatchSize;
+    private final int classificationParallelism;
+    private final boolean hashingVectorizerEnabled;
+    private final int hashingVectorizerFeatures;
+    private final boolean hashingVectorizerBigramsEnabled;
+    private final int hashingVectorizerCharacterNGramLength;
+    private final boolean vocabularyPruningEnabled;
+    private final int vocabularyPruningMinDocumentFrequency;
+    private final int vocabularyPruningMaxVocabularySize;
+    private final VocabularyPruning.Ranking vocabularyPruningRanking;
+    private final long vocabularyPruningMemoryBudgetBytes;
+    private final boolean modelSnapshotsEnabled;
+    private final String modelSnapshotsDirectory;
+    private final boolean lemmaCacheEnabled;
+    private final long lemmaCacheMaximumSize;
+    private final String lemmaCachePath;
+    private final int lemmatizationThreads;
+    private final int lemmatizationPipelines;
+    private final boolean lemmatizationWarmUpEnabled;
+    private final String lemmaTablePath;
+    private final boolean lemmaTableGenerationEnabled;
+    private final int lemmaTableGenerationTweets;
+    private final List<String> filtersEntityNames;
+    private final String filtersEntityNamesPath;
+    private final List<String> filtersCommonWords;
+    private final String filtersCommonWordsPath;
 
     public FeatureToggles(@Value("${toggle.twitter.client.enabled}") boolean twitterClientEnabled,
                           @Value("${toggle.twitter.client.batch.size}") int twitterClientBatchSize,
@@ -40,13 +78,51 @@ public class FeatureToggles {
                           @Value("${toggle.bayes.analysis.test.set.size}") int bayesAnalysisTestSetSize,
                           @Value("${toggle.bayes.analysis.mode.enabled.lemmatized}") boolean bayesAnalysisLemmatizedModeEnabled,
                           @Value("${toggle.bayes.analysis.mode.enabled.nonLemmatized}") boolean bayesAnalysisNonLemmatizedModeEnabled,
+                          @Value("${toggle.bayes.online.enabled}") boolean bayesOnlineTrainingEnabled,
+                          @Value("${toggle.bayes.online.mode.lemmatized}") boolean bayesOnlineTrainingLemmatizedModeEnabled,
+                          @Value("${toggle.bayes.online.snapshot.path}") String bayesOnlineTrainingSnapshotPath,
                           @Value("${toggle.knn.analysis.executor.enabled}") boolean knnAnalysisExecutorEnabled,
                           @Value("${toggle.knn.analysis.classification.type}") String knnAnalysisClassificationType,
                           @Value("${toggle.knn.analysis.training.set.size}") int knnAnalysisTrainingSetSize,
                           @Value("${toggle.knn.analysis.test.set.size}") int knnAnalysisTestSetSize,
                           @Value("${toggle.knn.analysis.mode.enabled.lemmatized}") boolean knnAnalysisLemmatizedModeEnabled,
                           @Value("${toggle.knn.analysis.mode.enabled.nonLemmatized}") boolean knnAnalysisNonLemmatizedModeEnabled,
-                          @Value("#{'${toggle.knn.analysis.parameter.k}'.split(',')}") List<Integer> knnAnalysisParameterK) {
+                          @Value("#{'${toggle.knn.analysis.parameter.k}'.split(',')}") List<Integer> knnAnalysisParameterK,
+                          @Value("${toggle.knn.analysis.ann.enabled}") boolean knnAnalysisAnnEnabled,
+                          @Value("${toggle.knn.analysis.ann.tables}") int knnAnalysisAnnTables,
+                          @Value("${toggle.knn.analysis.ann.hyperplanes}") int knnAnalysisAnnHyperplanes,
+                          @Value("${toggle.knn.analysis.ann.agreement.report.enabled}") boolean knnAnalysisAnnAgreementReportEnabled,
+                          @Value("${toggle.knn.analysis.batch.size}") int knnAnalysisBatchSize,
+                          @Value("${toggle.knn.online.enabled}") boolean knnOnlineIndexEnabled,
+                          @Value("${toggle.knn.online.mode.lemmatized}") boolean knnOnlineIndexLemmatizedModeEnabled,
+                          @Value("${toggle.knn.online.parameter.k}") int knnOnlineIndexParameterK,
+                          @Value("${toggle.knn.online.max.documents}") int knnOnlineIndexMaxDocuments,
+                          @Value("${toggle.knn.online.reweight.batch.size}") int knnOnlineIndexReweightBatchSize,
+                          @Value("${toggle.classification.parallelism}") int classificationParallelism,
+                          @Value("${toggle.hashing.enabled}") boolean hashingVectorizerEnabled,
+                          @Value("${toggle.hashing.features}") int hashingVectorizerFeatures,
+                          @Value("${toggle.hashing.bigrams.enabled}") boolean hashingVectorizerBigramsEnabled,
+                          @Value("${toggle.hashing.character.ngram.length}") int hashingVectorizerCharacterNGramLength,
+                          @Value("${toggle.pruning.enabled}") boolean vocabularyPruningEnabled,
+                          @Value("${toggle.pruning.min.document.frequency}") int vocabularyPruningMinDocumentFrequency,
+                          @Value("${toggle.pruning.max.vocabulary.size}") int vocabularyPruningMaxVocabularySize,
+                          @Value("${toggle.pruning.ranking}") String vocabularyPruningRanking,
+                          @Value("${toggle.pruning.memory.budget.bytes}") long vocabularyPruningMemoryBudgetBytes,
+                          @Value("${toggle.model.snapshot.enabled}") boolean modelSnapshotsEnabled,
+                          @Value("${toggle.model.snapshot.directory}") String modelSnapshotsDirectory,
+                          @Value("${toggle.stanfordnlp.lemma.cache.enabled}") boolean lemmaCacheEnabled,
+                          @Value("${toggle.stanfordnlp.lemma.cache.maximum.size}") long lemmaCacheMaximumSize,
+                          @Value("${toggle.stanfordnlp.lemma.cache.path}") String lemmaCachePath,
+                          @Value("${toggle.stanfordnlp.lemmatization.threads}") int lemmatizationThreads,
+                          @Value("${toggle.stanfordnlp.lemmatization.pipelines}") int lemmatizationPipelines,
+                          @Value("${toggle.stanfordnlp.lemmatization.warm.up.enabled}") boolean lemmatizationWarmUpEnabled,
+                          @Value("${toggle.stanfordnlp.lemma.table.path}") String lemmaTablePath,
+                          @Value("${toggle.stanfordnlp.lemma.table.generation.enabled}") boolean lemmaTableGenerationEnabled,
+                          @Value("${toggle.stanfordnlp.lemma.table.generation.tweets}") int lemmaTableGenerationTweets,
+                          @Value("#{'${toggle.filters.entity.names}'.split(',')}") List<String> filtersEntityNames,
+                          @Value("${toggle.filters.entity.names.path}") String filtersEntityNamesPath,
+                          @Value("#{'${toggle.filters.common.words}'.split(',')}") List<String> filtersCommonWords,
+                          @Value("${toggle.filters.common.words.path}") String filtersCommonWordsPath) {
         this.twitterClientEnabled = twitterClientEnabled;
         this.twitterClientBatchSize = twitterClientBatchSize;
         this.opinionFinderClientEnabled = opinionFinderClientEnabled;
@@ -58,6 +134,9 @@ public class FeatureToggles {
         this.bayesAnalysisTestSetSize = bayesAnalysisTestSetSize;
         this.bayesAnalysisLemmatizedModeEnabled = bayesAnalysisLemmatizedModeEnabled;
         this.bayesAnalysisNonLemmatizedModeEnabled = bayesAnalysisNonLemmatizedModeEnabled;
+        this.bayesOnlineTrainingEnabled = bayesOnlineTrainingEnabled;
+        this.bayesOnlineTrainingLemmatizedModeEnabled = bayesOnlineTrainingLemmatizedModeEnabled;
+        this.bayesOnlineTrainingSnapshotPath = bayesOnlineTrainingSnapshotPath;
         this.knnAnalysisExecutorEnabled = knnAnalysisExecutorEnabled;
         this.knnAnalysisClassificationType = ClassificationType.valueOf(knnAnalysisClassificationType);
         this.knnAnalysisTrainingSetSize = knnAnalysisTrainingSetSize;
@@ -65,6 +144,41 @@ public class FeatureToggles {
         this.knnAnalysisLemmatizedModeEnabled = knnAnalysisLemmatizedModeEnabled;
         this.knnAnalysisNonLemmatizedModeEnabled = knnAnalysisNonLemmatizedModeEnabled;
         this.knnAnalysisParameterK = knnAnalysisParameterK;
+        this.knnAnalysisAnnEnabled = knnAnalysisAnnEnabled;
+        this.knnAnalysisAnnTables = knnAnalysisAnnTables;
+        this.knnAnalysisAnnHyperplanes = knnAnalysisAnnHyperplanes;
+        this.knnAnalysisAnnAgreementReportEnabled = knnAnalysisAnnAgreementReportEnabled;
+        this.knnAnalysisBatchSize = knnAnalysisBatchSize;
+        this.knnOnlineIndexEnabled = knnOnlineIndexEnabled;
+        this.knnOnlineIndexLemmatizedModeEnabled = knnOnlineIndexLemmatizedModeEnabled;
+        this.knnOnlineIndexParameterK = knnOnlineIndexParameterK;
+        this.knnOnlineIndexMaxDocuments = knnOnlineIndexMaxDocuments;
+        this.knnOnlineIndexReweightBatchSize = knnOnlineIndexReweightBatchSize;
+        this.classificationParallelism = classificationParallelism;
+        this.hashingVectorizerEnabled = hashingVectorizerEnabled;
+        this.hashingVectorizerFeatures = hashingVectorizerFeatures;
+        this.hashingVectorizerBigramsEnabled = hashingVectorizerBigramsEnabled;
+        this.hashingVectorizerCharacterNGramLength = hashingVectorizerCharacterNGramLength;
+        this.vocabularyPruningEnabled = vocabularyPruningEnabled;
+        this.vocabularyPruningMinDocumentFrequency = vocabularyPruningMinDocumentFrequency;
+        this.vocabularyPruningMaxVocabularySize = vocabularyPruningMaxVocabularySize;
+        this.vocabularyPruningRanking = VocabularyPruning.Ranking.valueOf(vocabularyPruningRanking);
+        this.vocabularyPruningMemoryBudgetBytes = vocabularyPruningMemoryBudgetBytes;
+        this.modelSnapshotsEnabled = modelSnapshotsEnabled;
+        this.modelSnapshotsDirectory = modelSnapshotsDirectory;
+        this.lemmaCacheEnabled = lemmaCacheEnabled;
+        this.lemmaCacheMaximumSize = lemmaCacheMaximumSize;
+        this.lemmaCachePath = lemmaCachePath;
+        this.lemmatizationThreads = lemmatizationThreads;
+        this.lemmatizationPipelines = lemmatizationPipelines;
+        this.lemmatizationWarmUpEnabled = lemmatizationWarmUpEnabled;
+        this.lemmaTablePath = lemmaTablePath;
+        this.lemmaTableGenerationEnabled = lemmaTableGenerationEnabled;
+        this.lemmaTableGenerationTweets = lemmaTableGenerationTweets;
+        this.filtersEntityNames = filtersEntityNames;
+        this.filtersEntityNamesPath = filtersEntityNamesPath;
+        this.filtersCommonWords = filtersCommonWords;
+        this.filtersCommonWordsPath = filtersCommonWordsPath;
     }
 
     public boolean isTwitterClientEnabled() {
@@ -111,6 +225,18 @@ public class FeatureToggles {
         return bayesAnalysisNonLemmatizedModeEnabled;
     }
 
+    public boolean isBayesOnlineTrainingEnabled() {
+        return bayesOnlineTrainingEnabled;
+    }
+
+    public boolean isBayesOnlineTrainingLemmatizedModeEnabled() {
+        return bayesOnlineTrainingLemmatizedModeEnabled;
+    }
+
+    public String getBayesOnlineTrainingSnapshotPath() {
+        return bayesOnlineTrainingSnapshotPath;
+    }
+
     public ClassificationType getKnnAnalysisClassificationType() {
         return knnAnalysisClassificationType;
     }
@@ -138,4 +264,144 @@ public class FeatureToggles {
     public List<Integer> getKnnAnalysisParameterK() {
         return knnAnalysisParameterK;
     }
+
+    public boolean isKnnAnalysisAnnEnabled() {
+        return knnAnalysisAnnEnabled;
+    }
+
+    public int getKnnAnalysisAnnTables() {
+        return knnAnalysisAnnTables;
+    }
+
+    public int getKnnAnalysisAnnHyperplanes() {
+        return knnAnalysisAnnHyperplanes;
+    }
+
+    public boolean isKnnAnalysisAnnAgreementReportEnabled() {
+        return knnAnalysisAnnAgreementReportEnabled;
+    }
+
+    public int getKnnAnalysisBatchSize() {
+        return knnAnalysisBatchSize;
+    }
+
+    public boolean isKnnOnlineIndexEnabled() {
+        return knnOnlineIndexEnabled;
+    }
+
+    public boolean isKnnOnlineIndexLemmatizedModeEnabled() {
+        return knnOnlineIndexLemmatizedModeEnabled;
+    }
+
+    public int getKnnOnlineIndexParameterK() {
+        return knnOnlineIndexParameterK;
+    }
+
+    public int getKnnOnlineIndexMaxDocuments() {
+        return knnOnlineIndexMaxDocuments;
+    }
+
+    public int getKnnOnlineIndexReweightBatchSize() {
+        return knnOnlineIndexReweightBatchSize;
+    }
+
+    public int getClassificationParallelism() {
+        return classificationParallelism;
+    }
+
+    public boolean isHashingVectorizerEnabled() {
+        return hashingVectorizerEnabled;
+    }
+
+    public int getHashingVectorizerFeatures() {
+        return hashingVectorizerFeatures;
+    }
+
+    public boolean isHashingVectorizerBigramsEnabled() {
+        return hashingVectorizerBigramsEnabled;
+    }
+
+    public int getHashingVectorizerCharacterNGramLength() {
+        return hashingVectorizerCharacterNGramLength;
+    }
+
+    public boolean isVocabularyPruningEnabled() {
+        return vocabularyPruningEnabled;
+    }
+
+    public int getVocabularyPruningMinDocumentFrequency() {
+        return vocabularyPruningMinDocumentFrequency;
+    }
+
+    public int getVocabularyPruningMaxVocabularySize() {
+        return vocabularyPruningMaxVocabularySize;
+    }
+
+    public VocabularyPruning.Ranking getVocabularyPruningRanking() {
+        return vocabularyPruningRanking;
+    }
+
+    public long getVocabularyPruningMemoryBudgetBytes() {
+        return vocabularyPruningMemoryBudgetBytes;
+    }
+
+    public boolean isModelSnapshotsEnabled() {
+        return modelSnapshotsEnabled;
+    }
+
+    public String getModelSnapshotsDirectory() {
+        return modelSnapshotsDirectory;
+    }
+
+    public boolean isLemmaCacheEnabled() {
+        return lemmaCacheEnabled;
+    }
+
+    public long getLemmaCacheMaximumSize() {
+        return lemmaCacheMaximumSize;
+    }
+
+    public String getLemmaCachePath() {
+        return lemmaCachePath;
+    }
+
+    public int getLemmatizationThreads() {
+        return lemmatizationThreads;
+    }
+
+    public int getLemmatizationPipelines() {
+        return lemmatizationPipelines;
+    }
+
+    public boolean isLemmatizationWarmUpEnabled() {
+        return lemmatizationWarmUpEnabled;
+    }
+
+    public String getLemmaTablePath() {
+        return lemmaTablePath;
+    }
+
+    public boolean isLemmaTableGenerationEnabled() {
+        return lemmaTableGenerationEnabled;
+    }
+
+    public int getLemmaTableGenerationTweets() {
+        return lemmaTableGenerationTweets;
+    }
+
+    public List<String> getFiltersEntityNames() {
+        return filtersEntityNames;
+    }
+
+    public String getFiltersEntityNamesPath() {
+        return filtersEntityNamesPath;
+    }
+
+    public List<String> getFiltersCommonWords() {
+        return filtersCommonWords;
+    }
+
+    public String getFiltersCommonWordsPath() {
+        return filtersCommonWordsPath;
+    }
 }
@@ -1,5 +1,7 @@
 package com.github.amkaras.tweetus.external.opinionfinder;
 
+import com.github.amkaras.tweetus.common.analysis.OnlineKNNIndexer;
+import com.github.amkaras.tweetus.common.analysis.OnlineNaiveBayesTrainer;
 import com.github.amkaras.tweetus.configuration.FeatureToggles;
 import com.github.amkaras.tweetus.external.opinionfinder.entity.AnalysisEntity;
 import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
@@ -26,14 +28,20 @@ public class OpinionFinderAnalysisExecutor {
     private final OpinionFinderAnalysisService opinionFinderAnalysisService;
     private final TweetService tweetService;
     private final FeatureToggles featureToggles;
+    private final OnlineNaiveBayesTrainer onlineNaiveBayesTrainer;
+    private final OnlineKNNIndexer onlineKNNIndexer;
     private final OpinionFinderClient opinionFinderClient = new OpinionFinderClient();
 
     @Autowired
     public OpinionFinderAnalysisExecutor(OpinionFinderAnalysisService opinionFinderAnalysisService,
-                                         TweetService tweetService, FeatureToggles featureToggles) {
+                                         TweetService tweetService, FeatureToggles featureToggles,
+                                         OnlineNaiveBayesTrainer onlineNaiveBayesTrainer,
+                                         OnlineKNNIndexer onlineKNNIndexer) {
         this.opinionFinderAnalysisService = opinionFinderAnalysisService;
         this.tweetService = tweetService;
         this.featureToggles = featureToggles;
+        this.onlineNaiveBayesTrainer = onlineNaiveBayesTrainer;
+        this.onlineKNNIndexer = onlineKNNIndexer;
     }
 
     @Scheduled(fixedDelay = 1_000)
@@ -50,6 +58,7 @@ public class OpinionFinderAnalysisExecutor {
         log.info("Fetched tweets for analysis in {}", partialSw.stop());
         partialSw.reset().start();
         final Set<OpinionFinderAnalysis> analyses = new HashSet<>(batchSize);
+        final List<Tweet> analyzedTweets = new ArrayList<>(batchSize);
         final List<String> analyzedTweetIds = new ArrayList<>(batchSize);
         for (Tweet tweet : nonAnalyzedTweets) {
             try {
@@ -57,6 +66,7 @@ public class OpinionFinderAnalysisExecutor {
                 opinionFinderAnalysis.setEntity(AnalysisEntity.TWEET);
                 opinionFinderAnalysis.setEntityId(tweet.getId());
                 analyses.add(opinionFinderAnalysis);
+                analyzedTweets.add(tweet);
                 analyzedTweetIds.add(tweet.getId());
                 successfullyAnalyzedCount += 1;
             } catch (Exception e) {
@@ -70,6 +80,8 @@ public class OpinionFinderAnalysisExecutor {
         partialSw.reset().start();
         tweetService.markAsAnalyzedWithOpinionFinder(analyzedTweetIds);
         log.info("Marking tweets as analyzed took {}", partialSw.stop());
+        onlineNaiveBayesTrainer.train(analyzedTweets, analyses);
+        onlineKNNIndexer.index(analyzedTweets, analyses);
         log.info("Successfully analyzed {} out of {} tweets in {}", successfullyAnalyzedCount, batchSize, totalSw.stop());
 
     }
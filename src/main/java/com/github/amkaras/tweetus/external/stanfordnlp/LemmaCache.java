@@ -0,0 +1,177 @@
+package com.github.amkaras.tweetus.external.stanfordnlp;
+
+import com.github.amkaras.tweetus.common.util.AtomicFiles;
+import com.github.amkaras.tweetus.common.util.StateFile;
+import com.github.amkaras.tweetus.configuration.FeatureToggles;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/*
+Whole texts are the keys, because lemma of a word depends on its part of speech in the sentence
+ */
+@Component
+public class LemmaCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LemmaCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final boolean enabled;
+    private final StateFile stateFile;
+    private final Cache<String, List<String>> cache;
+    private final AtomicLong version = new AtomicLong();
+
+    @Autowired
+    public LemmaCache(FeatureToggles featureToggles) {
+        this(featureToggles.isLemmaCacheEnabled() ? featureToggles.getLemmaCacheMaximumSize() : 0L,
+                Paths.get(featureToggles.getLemmaCachePath()));
+    }
+
+    /*
+    Zero maximum size disables the cache
+     */
+    public LemmaCache(long maximumSize, Path path) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Lemma cache maximum size cannot be negative");
+        }
+        this.enabled = maximumSize > 0;
+        this.stateFile = new StateFile("lemma cache", path);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public List<String> lemmatize(String text, Function<String, List<String>> lemmatizer) {
+        if (!enabled) {
+            return lemmatizer.apply(text);
+        }
+        List<String> lemmas = cache.getIfPresent(text);
+        if (lemmas == null) {
+            lemmas = List.copyOf(lemmatizer.apply(text));
+            cache.put(text, lemmas);
+            version.incrementAndGet();
+        }
+        return lemmas;
+    }
+
+    public List<List<String>> lemmatizeAll(List<String> texts,
+                                           Function<List<String>, List<List<String>>> batchLemmatizer) {
+        if (!enabled) {
+            return batchLemmatizer.apply(texts);
+        }
+        List<List<String>> lemmas = new ArrayList<>(texts.size());
+        Map<String, List<String>> missingLemmas = new LinkedHashMap<>();
+        for (String text : texts) {
+            List<String> cachedLemmas = missingLemmas.containsKey(text) ? null : cache.getIfPresent(text);
+            if (cachedLemmas == null) {
+                missingLemmas.put(text, null);
+            }
+            lemmas.add(cachedLemmas);
+        }
+        if (missingLemmas.isEmpty()) {
+            return lemmas;
+        }
+        List<String> missingTexts = List.copyOf(missingLemmas.keySet());
+        List<List<String>> lemmatized = batchLemmatizer.apply(missingTexts);
+        for (int i = 0; i < missingTexts.size(); ++i) {
+            List<String> textLemmas = List.copyOf(lemmatized.get(i));
+            missingLemmas.put(missingTexts.get(i), textLemmas);
+            cache.put(missingTexts.get(i), textLemmas);
+        }
+        version.addAndGet(missingTexts.size());
+        for (int i = 0; i < texts.size(); ++i) {
+            if (lemmas.get(i) == null) {
+                lemmas.set(i, missingLemmas.get(texts.get(i)));
+            }
+        }
+        return lemmas;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @PostConstruct
+    public synchronized void restore() {
+        if (enabled && !stateFile.restore(this::read)) {
+            cache.invalidateAll();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${toggle.stanfordnlp.lemma.cache.save.interval}")
+    @PreDestroy
+    public synchronized void save() {
+        if (!enabled) {
+            return;
+        }
+        if (stateFile.save(version.get(), this::write)) {
+            CacheStats stats = cache.stats();
+            log.info("Lemma cache holds {} entries, {} hits, {} misses, hit rate {}",
+                    cache.size(), stats.hitCount(), stats.missCount(), stats.hitRate());
+        }
+    }
+
+    private void read(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int formatVersion = input.readInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Lemma cache at " + path + " has format version " + formatVersion +
+                        ", expected " + FORMAT_VERSION);
+            }
+            int entriesCount = input.readInt();
+            for (int i = 0; i < entriesCount; ++i) {
+                String text = input.readUTF();
+                int lemmasCount = input.readInt();
+                List<String> lemmas = new ArrayList<>(lemmasCount);
+                for (int j = 0; j < lemmasCount; ++j) {
+                    lemmas.add(input.readUTF());
+                }
+                cache.put(text, List.copyOf(lemmas));
+            }
+        }
+    }
+
+    private void write(Path path) throws IOException {
+        Map<String, List<String>> entries = Map.copyOf(cache.asMap());
+        AtomicFiles.write(path, output -> {
+            try (DataOutputStream dataOutput = new DataOutputStream(output)) {
+                dataOutput.writeInt(FORMAT_VERSION);
+                dataOutput.writeInt(entries.size());
+                for (Map.Entry<String, List<String>> entry : entries.entrySet()) {
+                    dataOutput.writeUTF(entry.getKey());
+                    dataOutput.writeInt(entry.getValue().size());
+                    for (String lemma : entry.getValue()) {
+                        dataOutput.writeUTF(lemma);
+                    }
+                }
+            }
+        });
+    }
+}
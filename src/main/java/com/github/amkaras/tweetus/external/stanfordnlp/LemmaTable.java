@@ -0,0 +1,111 @@
+package com.github.amkaras.tweetus.external.stanfordnlp;
+
+import com.github.amkaras.tweetus.common.util.AtomicFiles;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.github.amkaras.tweetus.common.util.Tokenizer.WHITESPACES;
+
+/*
+Only words which differ from their lemmas are kept
+ */
+public class LemmaTable {
+
+    private static final char SEPARATOR = '\t';
+
+    private final String[] words;
+    private final String[] lemmas;
+
+    private LemmaTable(String[] words, String[] lemmas) {
+        this.words = words;
+        this.lemmas = lemmas;
+    }
+
+    public static LemmaTable of(Map<String, String> lemmasByWord) {
+        Map<String, String> sortedLemmasByWord = new TreeMap<>();
+        lemmasByWord.forEach((word, lemma) -> {
+            if (!word.equals(lemma)) {
+                sortedLemmasByWord.put(word, lemma);
+            }
+        });
+        String[] words = new String[sortedLemmasByWord.size()];
+        String[] lemmas = new String[sortedLemmasByWord.size()];
+        Map<String, String> distinctLemmas = new HashMap<>();
+        int i = 0;
+        for (Map.Entry<String, String> wordWithLemma : sortedLemmasByWord.entrySet()) {
+            words[i] = wordWithLemma.getKey();
+            lemmas[i] = distinctLemmas.computeIfAbsent(wordWithLemma.getValue(), lemma -> lemma);
+            ++i;
+        }
+        return new LemmaTable(words, lemmas);
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public String lemma(String word) {
+        int index = Arrays.binarySearch(words, word.toLowerCase());
+        return index >= 0 ? lemmas[index] : word;
+    }
+
+    /*
+    Unlike CoreNLP, the document is split on whitespaces only
+     */
+    public List<String> lemmatize(String document) {
+        String[] tokens = document.trim().split(WHITESPACES);
+        if (tokens.length == 1 && tokens[0].isEmpty()) {
+            return List.of();
+        }
+        for (int i = 0; i < tokens.length; ++i) {
+            tokens[i] = lemma(tokens[i]);
+        }
+        return Arrays.asList(tokens);
+    }
+
+    public void write(Path path) throws IOException {
+        AtomicFiles.write(path, output -> {
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (int i = 0; i < words.length; ++i) {
+                    writer.write(words[i]);
+                    writer.write(SEPARATOR);
+                    writer.write(lemmas[i]);
+                    writer.newLine();
+                }
+            }
+        });
+    }
+
+    public static LemmaTable read(Path path) throws IOException {
+        Map<String, String> lemmasByWord = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separatorIndex = line.indexOf(SEPARATOR);
+                if (separatorIndex <= 0 || separatorIndex == line.length() - 1) {
+                    throw new IOException("Malformed lemma table line: " + line);
+                }
+                lemmasByWord.put(line.substring(0, separatorIndex), line.substring(separatorIndex + 1));
+            }
+        }
+        return of(lemmasByWord);
+    }
+
+    @Override
+    public String toString() {
+        return "LemmaTable{" +
+                "size=" + words.length +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.amkaras.tweetus.external.stanfordnlp;
+
+import com.github.amkaras.tweetus.configuration.FeatureToggles;
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+import com.github.amkaras.tweetus.external.twitter.service.TweetService;
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@Component
+public class LemmaTableGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(LemmaTableGenerator.class);
+
+    private final TweetService tweetService;
+    private final StanfordLemmatizerClient lemmatizerClient;
+    private final FeatureToggles featureToggles;
+
+    @Autowired
+    public LemmaTableGenerator(TweetService tweetService, StanfordLemmatizerClient lemmatizerClient,
+                               FeatureToggles featureToggles) {
+        this.tweetService = tweetService;
+        this.lemmatizerClient = lemmatizerClient;
+        this.featureToggles = featureToggles;
+    }
+
+    @PostConstruct
+    public void generate() {
+        if (!featureToggles.isLemmaTableGenerationEnabled() || !featureToggles.isStanfordNlpClasspathConfigured()) {
+            return;
+        }
+        Stopwatch sw = Stopwatch.createStarted();
+        Path path = Paths.get(featureToggles.getLemmaTablePath());
+        List<String> contents = tweetService.findAnalyzedWithOpinionFinder(featureToggles.getLemmaTableGenerationTweets())
+                .stream()
+                .map(Tweet::getContent)
+                .collect(toList());
+        try {
+            LemmaTable lemmaTable = lemmatizerClient.lemmaTable(contents);
+            lemmaTable.write(path);
+            log.info("Lemma table of {} words generated from {} tweets and written to {} in {}",
+                    lemmaTable.size(), contents.size(), path, sw.stop());
+        } catch (IOException e) {
+            log.error("Unable to write lemma table to {}", path, e);
+        }
+    }
+}
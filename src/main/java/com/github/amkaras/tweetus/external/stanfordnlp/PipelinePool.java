@@ -0,0 +1,75 @@
+package com.github.amkaras.tweetus.external.stanfordnlp;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+A caller waiting for a full pool loads a pipeline itself when a load of another caller failed
+ */
+class PipelinePool<P> {
+
+    private static final long WAIT_MILLIS = 100;
+
+    private final Supplier<P> loader;
+    private final int size;
+    private final BlockingQueue<P> idlePipelines;
+    private final AtomicInteger loadedCount = new AtomicInteger();
+
+    PipelinePool(Supplier<P> loader, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool requires at least one pipeline");
+        }
+        this.loader = loader;
+        this.size = size;
+        this.idlePipelines = new ArrayBlockingQueue<>(size);
+    }
+
+    P acquire() {
+        while (true) {
+            P pipeline = idlePipelines.poll();
+            if (pipeline != null) {
+                return pipeline;
+            }
+            int loaded = loadedCount.get();
+            if (loaded < size) {
+                if (loadedCount.compareAndSet(loaded, loaded + 1)) {
+                    return load();
+                }
+                continue;
+            }
+            try {
+                pipeline = idlePipelines.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for lemmatization pipeline", e);
+            }
+            if (pipeline != null) {
+                return pipeline;
+            }
+        }
+    }
+
+    void release(P pipeline) {
+        idlePipelines.add(pipeline);
+    }
+
+    int getLoadedCount() {
+        return loadedCount.get();
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    private P load() {
+        try {
+            return loader.get();
+        } catch (RuntimeException e) {
+            loadedCount.decrementAndGet();
+            throw e;
+        }
+    }
+}
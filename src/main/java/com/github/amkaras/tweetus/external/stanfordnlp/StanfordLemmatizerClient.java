@@ -1,5 +1,6 @@
 package com.github.amkaras.tweetus.external.stanfordnlp;
 
+import com.google.common.base.Stopwatch;
 import edu.stanford.nlp.ling.CoreAnnotations.LemmaAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
@@ -7,49 +8,169 @@ import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+
+import static java.util.stream.Collectors.toList;
 
 public class StanfordLemmatizerClient {
 
-    private StanfordCoreNLP stanfordCoreNLP;
+    private static final Logger log = LoggerFactory.getLogger(StanfordLemmatizerClient.class);
 
-    private StanfordLemmatizerClient(boolean configured) {
-        /*
-        Use no initialization when required files are not in the classpath
-         */
-        this.stanfordCoreNLP = null;
+    private final boolean configured;
+    private final LemmaTable lemmaTable;
+    private final LemmaCache lemmaCache;
+    private final int threads;
+    private final PipelinePool<StanfordCoreNLP> pipelines;
+
+    private StanfordLemmatizerClient(boolean configured, LemmaTable lemmaTable, LemmaCache lemmaCache,
+                                     int pipelinesCount, int threads) {
+        if (pipelinesCount < 1 || threads < 1) {
+            throw new IllegalArgumentException("Lemmatization requires at least one pipeline and one thread");
+        }
         /*
-        Initialize when required files are present.
+        Pipelines can be loaded only when required files are present in the classpath.
         Necessary for dictionary building and therefore correct Bayes' algorithm execution
          */
-        if (configured) {
-            Properties properties = new Properties();
-            properties.put("annotators", "tokenize, ssplit, pos, lemma");
-            this.stanfordCoreNLP = new StanfordCoreNLP(properties);
-        }
+        this.configured = configured;
+        this.lemmaTable = lemmaTable;
+        this.lemmaCache = lemmaCache;
+        this.threads = threads;
+        this.pipelines = new PipelinePool<>(this::loadPipeline, pipelinesCount);
     }
 
     public static StanfordLemmatizerClient createConfigured() {
-        return new StanfordLemmatizerClient(true);
+        return new StanfordLemmatizerClient(true, null, null, 1, 1);
+    }
+
+    public static StanfordLemmatizerClient createConfigured(LemmaCache lemmaCache, int pipelinesCount, int threads) {
+        return new StanfordLemmatizerClient(true, null, lemmaCache, pipelinesCount, threads);
     }
 
     public static StanfordLemmatizerClient createNotConfigured() {
-        return new StanfordLemmatizerClient(false);
+        return new StanfordLemmatizerClient(false, null, null, 1, 1);
+    }
+
+    public static StanfordLemmatizerClient createWithLemmaTable(LemmaTable lemmaTable) {
+        return new StanfordLemmatizerClient(false, lemmaTable, null, 1, 1);
+    }
+
+    public void warmUpInBackground() {
+        if (!configured) {
+            return;
+        }
+        Thread warmUp = new Thread(() -> {
+            try {
+                annotate("Lemmatizer is warming up");
+            } catch (RuntimeException e) {
+                log.error("Unable to warm up lemmatizer", e);
+            }
+        }, "lemmatizer-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
     }
 
     public List<String> lemmatize(String document) {
-        List<String> lemmas = new LinkedList<>();
+        if (lemmaTable != null) {
+            return lemmaTable.lemmatize(document);
+        }
+        return lemmaCache == null ? annotate(document) : lemmaCache.lemmatize(document, this::annotate);
+    }
+
+    public List<List<String>> lemmatizeAll(List<String> documents) {
+        if (lemmaTable != null) {
+            return documents.stream()
+                    .map(lemmaTable::lemmatize)
+                    .collect(toList());
+        }
+        return lemmaCache == null ? lemmasOfAll(documents) : lemmaCache.lemmatizeAll(documents, this::lemmasOfAll);
+    }
+
+    public LemmaTable lemmaTable(List<String> documents) {
+        List<Annotation> annotations = annotateAll(documents);
+        Map<String, Map<String, Integer>> lemmaCountsByWord = new HashMap<>();
+        for (Annotation annotation : annotations) {
+            for (CoreMap sentence : annotation.get(SentencesAnnotation.class)) {
+                for (CoreLabel token : sentence.get(TokensAnnotation.class)) {
+                    lemmaCountsByWord.computeIfAbsent(token.word().toLowerCase(), word -> new TreeMap<>())
+                            .merge(token.get(LemmaAnnotation.class).toLowerCase(), 1, Integer::sum);
+                }
+            }
+        }
+        Map<String, String> lemmasByWord = new HashMap<>();
+        lemmaCountsByWord.forEach((word, lemmaCounts) -> lemmasByWord.put(word, lemmaCounts.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElseThrow()
+                .getKey()));
+        return LemmaTable.of(lemmasByWord);
+    }
+
+    private List<String> annotate(String document) {
         Annotation annotation = new Annotation(document);
-        stanfordCoreNLP.annotate(annotation);
+        StanfordCoreNLP pipeline = acquirePipeline();
+        try {
+            pipeline.annotate(annotation);
+        } finally {
+            pipelines.release(pipeline);
+        }
+        return lemmas(annotation);
+    }
+
+    private List<List<String>> lemmasOfAll(List<String> documents) {
+        if (documents.isEmpty()) {
+            return List.of();
+        }
+        return annotateAll(documents).stream()
+                .map(StanfordLemmatizerClient::lemmas)
+                .collect(toList());
+    }
+
+    private List<Annotation> annotateAll(List<String> documents) {
+        List<Annotation> annotations = documents.stream()
+                .map(Annotation::new)
+                .collect(toList());
+        StanfordCoreNLP pipeline = acquirePipeline();
+        try {
+            pipeline.annotate(annotations, threads);
+        } finally {
+            pipelines.release(pipeline);
+        }
+        return annotations;
+    }
+
+    private StanfordCoreNLP acquirePipeline() {
+        if (!configured) {
+            throw new IllegalStateException("Lemmatization is not available, " +
+                    "CoreNLP models are not configured and there is no lemma table");
+        }
+        return pipelines.acquire();
+    }
+
+    private StanfordCoreNLP loadPipeline() {
+        Stopwatch sw = Stopwatch.createStarted();
+        Properties properties = new Properties();
+        properties.put("annotators", "tokenize, ssplit, pos, lemma");
+        StanfordCoreNLP pipeline = new StanfordCoreNLP(properties);
+        log.info("Lemmatization pipeline {} of {} loaded in {}", pipelines.getLoadedCount(), pipelines.getSize(), sw.stop());
+        return pipeline;
+    }
+
+    private static List<String> lemmas(Annotation annotation) {
+        List<String> lemmas = new ArrayList<>();
         List<CoreMap> sentences = annotation.get(SentencesAnnotation.class);
         for (CoreMap sentence : sentences) {
             for (CoreLabel token : sentence.get(TokensAnnotation.class)) {
                 lemmas.add(token.get(LemmaAnnotation.class));
             }
         }
-        return lemmas;
+        return Arrays.asList(lemmas.toArray(new String[0]));
     }
 }
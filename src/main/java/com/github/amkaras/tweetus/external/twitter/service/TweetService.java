@@ -19,6 +19,8 @@ public interface TweetService {
 
     List<Tweet> findNotAnalyzedWithOpinionFinder(int maxResults);
 
+    List<Tweet> findAnalyzedWithOpinionFinder(int maxResults);
+
     List<Tweet> findBelongingToTrainingSet(int maxResults);
 
     List<Tweet> findAnalyzedNotBelongingToTrainingSet(int maxResults);
@@ -59,6 +59,11 @@ public class TweetServiceImpl implements TweetService {
         return tweetRepository.findByAnalyzedWithOpinionFinderOrderByRetweetCountDesc(false, PageRequest.of(0, maxResults));
     }
 
+    @Override
+    public List<Tweet> findAnalyzedWithOpinionFinder(int maxResults) {
+        return tweetRepository.findByAnalyzedWithOpinionFinderOrderByRetweetCountDesc(true, PageRequest.of(0, maxResults));
+    }
+
     @Override
     public List<Tweet> findBelongingToTrainingSet(int maxResults) {
         return tweetRepository.findByBelongsToTrainingSet(true, PageRequest.of(0, maxResults));
@@ -0,0 +1,97 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import com.github.amkaras.tweetus.common.algorithm.knn.KNNClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.algorithm.knn.KNNCorpus;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.github.amkaras.tweetus.common.algorithm.knn.model.Document.Builder.documentBuilder;
+import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.NEGATIVE;
+import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.POSITIVE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class ModelSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final KNNClassificationAlgorithm knnAlgorithm = new KNNClassificationAlgorithm();
+    private final TokenizedTweets tokenizedTweets = new TokenizedTweets(mock(StanfordLemmatizerClient.class), TokenFilters.defaults());
+
+    @Test
+    public void shouldRestoreKnnCorpusFromSnapshot() throws IOException {
+        KNNCorpus corpus = knnAlgorithm.corpus(documents());
+        Path path = temporaryFolder.getRoot().toPath().resolve("knn.bin");
+        String identity = ModelSnapshot.trainingSetIdentity(List.of("2", "1"));
+
+        ModelSnapshot.write(path, ModelSnapshot.Kind.KNN, identity, Map.of("training.set.size", "2"), corpus::writeTo);
+        ModelSnapshot snapshot = ModelSnapshot.read(path, ModelSnapshot.Kind.KNN);
+        KNNCorpus restoredCorpus = knnAlgorithm.corpus(snapshot.payload());
+
+        assertEquals(ModelSnapshot.trainingSetIdentity(List.of("1", "2")), snapshot.getTrainingSetIdentity());
+        assertEquals(Map.of("training.set.size", "2"), snapshot.getParameters());
+        assertEquals(corpus.getVocabulary().size(), restoredCorpus.getVocabulary().size());
+        for (int termId = 0; termId < corpus.getVocabulary().size(); ++termId) {
+            String token = corpus.getVocabulary().token(termId);
+            assertEquals(termId, restoredCorpus.getVocabulary().idOf(token));
+            assertEquals(corpus.getStatistics().inverseDocumentFrequency(token),
+                    restoredCorpus.getStatistics().inverseDocumentFrequency(token), 0.0);
+        }
+        for (int documentIndex = 0; documentIndex < corpus.getIndex().size(); ++documentIndex) {
+            assertEquals(corpus.getIndex().getVector(documentIndex).toString(),
+                    restoredCorpus.getIndex().getVector(documentIndex).toString());
+            assertEquals(corpus.getIndex().getDocument(documentIndex).getCategory(),
+                    restoredCorpus.getIndex().getDocument(documentIndex).getCategory());
+        }
+        for (int k : List.of(1, 3)) {
+            Tweet tweet = tweet();
+            Tweet sameTweet = tweet();
+            assertEquals(knnAlgorithm.classify(tokenizedTweets.tokenize(List.of(tweet), false), corpus, List.of(k))
+                            .get(k).get(tweet),
+                    knnAlgorithm.classify(tokenizedTweets.tokenize(List.of(sameTweet), false), restoredCorpus, List.of(k))
+                            .get(k).get(sameTweet));
+        }
+    }
+
+    @Test
+    public void shouldRejectCorruptedOrDifferentKindOfSnapshot() throws IOException {
+        Path path = temporaryFolder.getRoot().toPath().resolve("knn.bin");
+        ModelSnapshot.write(path, ModelSnapshot.Kind.KNN, "identity", Map.of(), knnAlgorithm.corpus(documents())::writeTo);
+
+        assertThrows(IOException.class, () -> ModelSnapshot.read(path, ModelSnapshot.Kind.NAIVE_BAYES));
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> ModelSnapshot.read(path, ModelSnapshot.Kind.KNN));
+    }
+
+    private static Set<Document> documents() {
+        return Set.of(
+                documentBuilder().withContent("a great game").withCategory(POSITIVE).withHumanName("D1").build(),
+                documentBuilder().withContent("the election was over").withCategory(NEGATIVE).build(),
+                documentBuilder().withContent("very clean match").withCategory(POSITIVE).build(),
+                documentBuilder().withContent("it was a close election").withCategory(NEGATIVE).build());
+    }
+
+    private static Tweet tweet() {
+        Tweet tweet = new Tweet();
+        tweet.setId("1");
+        tweet.setContent("a very close game");
+        return tweet;
+    }
+}
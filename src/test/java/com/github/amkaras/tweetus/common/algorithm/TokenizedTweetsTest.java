@@ -0,0 +1,66 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TokenizedTweetsTest {
+
+    private final StanfordLemmatizerClient lemmatizerClient = mock(StanfordLemmatizerClient.class);
+    private final TokenizedTweets tokenizedTweets = new TokenizedTweets(lemmatizerClient, TokenFilters.defaults());
+
+    @Test
+    public void shouldLemmatizePreparedTokensOncePerTweet() {
+        Tweet first = tweet("1", "Voters were angry!");
+        Tweet second = tweet("2", "Parties are @elected");
+        when(lemmatizerClient.lemmatizeAll(List.of("voters were angry", "parties are")))
+                .thenReturn(List.of(List.of("voter", "be", "angry"), List.of("party", "be")));
+        when(lemmatizerClient.lemmatizeAll(List.of("elections")))
+                .thenReturn(List.of(List.of("election")));
+
+        List<TokenizedTweet> lemmatized = tokenizedTweets.tokenize(List.of(first, second), true);
+        List<TokenizedTweet> lemmatizedAgain = tokenizedTweets.tokenize(
+                List.of(second, tweet("3", "Elections"), new Tweet(first)), true);
+
+        assertEquals(List.of("voter", "angry"), lemmatized.get(0).getTokens());
+        assertEquals(List.of("party"), lemmatized.get(1).getTokens());
+        assertSame(lemmatized.get(1), lemmatizedAgain.get(0));
+        assertEquals(List.of("election"), lemmatizedAgain.get(1).getTokens());
+        assertEquals(List.of("voter", "angry"), lemmatizedAgain.get(2).getTokens());
+        assertEquals("Voters were angry!", lemmatizedAgain.get(2).getContent());
+        verify(lemmatizerClient, times(2)).lemmatizeAll(anyList());
+    }
+
+    @Test
+    public void shouldKeepModesApartAndTweetsUntouched() {
+        Tweet tweet = tweet("1", "Voters were angry!");
+        when(lemmatizerClient.lemmatizeAll(List.of("voters were angry")))
+                .thenReturn(List.of(List.of("voter", "be", "angry")));
+
+        TokenizedTweet lemmatized = tokenizedTweets.tokenize(List.of(tweet), true).get(0);
+        TokenizedTweet nonLemmatized = tokenizedTweets.tokenize(List.of(tweet), false).get(0);
+
+        assertEquals(List.of("voter", "angry"), lemmatized.getTokens());
+        assertEquals(List.of("voters", "were", "angry"), nonLemmatized.getTokens());
+        assertSame(tweet, nonLemmatized.getTweet());
+        assertEquals("Voters were angry!", tweet.getContent());
+    }
+
+    private static Tweet tweet(String id, String content) {
+        Tweet tweet = new Tweet();
+        tweet.setId(id);
+        tweet.setContent(content);
+        return tweet;
+    }
+}
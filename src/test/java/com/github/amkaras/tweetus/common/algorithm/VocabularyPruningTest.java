@@ -0,0 +1,54 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static com.github.amkaras.tweetus.common.algorithm.VocabularyPruning.Builder.vocabularyPruningBuilder;
+import static org.junit.Assert.assertEquals;
+
+public class VocabularyPruningTest {
+
+    // occurrences of "good", "bad", "day" and "typo" in positive and negative category
+    private static final long[][] OCCURRENCES = {
+            {10, 0, 6, 1},
+            {0, 8, 6, 0}
+    };
+
+    @Test
+    public void shouldKeepMostFrequentTokensAboveMinimumDocumentFrequency() {
+        VocabularyPruning pruning = vocabularyPruningBuilder()
+                .withMinDocumentFrequency(2)
+                .withMaxVocabularySize(2)
+                .build();
+
+        BitSet retained = pruning.retainedTokens(vocabulary(), 2,
+                (categoryIndex, tokenId) -> OCCURRENCES[categoryIndex][tokenId], tokenId -> 0L);
+
+        // "day" occurs 12 times, "good" 10 times
+        assertEquals(BitSet.valueOf(new long[]{0b0101}), retained);
+    }
+
+    @Test
+    public void shouldPreferDiscriminativeTokensWithinMemoryBudget() {
+        VocabularyPruning pruning = vocabularyPruningBuilder()
+                .withRanking(VocabularyPruning.Ranking.CHI_SQUARED)
+                .withMemoryBudgetBytes(2 * (52 + 4 + 100))
+                .build();
+
+        BitSet retained = pruning.retainedTokens(vocabulary(), 2,
+                (categoryIndex, tokenId) -> OCCURRENCES[categoryIndex][tokenId], tokenId -> 100L);
+
+        // "day" is frequent but does not tell categories apart
+        assertEquals(BitSet.valueOf(new long[]{0b0011}), retained);
+    }
+
+    private static Vocabulary vocabulary() {
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.intern("good");
+        vocabulary.intern("bad");
+        vocabulary.intern("day");
+        vocabulary.intern("typo");
+        return vocabulary;
+    }
+}
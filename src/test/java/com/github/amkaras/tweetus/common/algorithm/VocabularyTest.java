@@ -0,0 +1,36 @@
+package com.github.amkaras.tweetus.common.algorithm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VocabularyTest {
+
+    @Test
+    public void shouldInternTokensToDenseIdsInOrderOfAppearance() {
+        Vocabulary vocabulary = new Vocabulary();
+
+        assertEquals(0, vocabulary.intern("yesterday"));
+        assertEquals(1, vocabulary.intern("troubles"));
+        assertEquals(0, vocabulary.intern("yesterday"));
+
+        assertEquals(2, vocabulary.size());
+        assertEquals(1, vocabulary.idOf("troubles"));
+        assertEquals("troubles", vocabulary.token(1));
+        assertEquals(Vocabulary.UNKNOWN, vocabulary.idOf("today"));
+    }
+
+    @Test
+    public void shouldKeepIdsWhenGrowing() {
+        Vocabulary vocabulary = new Vocabulary();
+        for (int i = 0; i < 10_000; ++i) {
+            assertEquals(i, vocabulary.intern("token" + i));
+        }
+
+        for (int i = 0; i < 10_000; ++i) {
+            assertEquals(i, vocabulary.idOf("token" + i));
+            assertEquals("token" + i, vocabulary.token(i));
+        }
+        assertEquals(10_000, vocabulary.size());
+    }
+}
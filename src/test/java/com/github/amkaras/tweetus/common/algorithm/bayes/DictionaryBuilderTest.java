@@ -16,6 +16,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.github.amkaras.tweetus.common.model.ClassificationType.BINARY;
 import static com.github.amkaras.tweetus.common.model.ClassificationType.DIFFERENTIAL;
@@ -28,7 +29,8 @@ import static com.github.amkaras.tweetus.common.model.DifferentialClassification
 import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.WEAK_POSITIVE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
-import static org.mockito.ArgumentMatchers.anyString;
+import static java.util.stream.Collectors.toList;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -143,12 +145,51 @@ public class DictionaryBuilderTest {
 
     @Test
     public void shouldCorrectlyBuildDictionary() {
-        when(lemmatizerClient.lemmatize(anyString())).thenAnswer(i -> List.of(i.getArgument(0).toString()));
-        lemmatizations.forEach((k, v) -> when(lemmatizerClient.lemmatize(k)).thenReturn(List.of(v)));
+        stubLemmatizations();
 
         assertEquals(expectedDictionary, dictionaryBuilder.build(analyses, classificationType, true));
     }
 
+    @Test
+    public void shouldBuildSameDictionaryInParallel() {
+        stubLemmatizations();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        DictionaryBuilder parallelDictionaryBuilder = new DictionaryBuilder(lemmatizerClient, pool);
+
+        try {
+            assertEquals(expectedDictionary, parallelDictionaryBuilder.build(analyses, classificationType, true));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldMergePartialCountsLikeSequentialCounting() {
+        List<ClassificationCategory> categories = List.of(BinaryClassificationCategory.values());
+        CategoryCounts sequential = new CategoryCounts(categories);
+        CategoryCounts first = new CategoryCounts(categories);
+        CategoryCounts second = new CategoryCounts(categories);
+        sequential.add(0, "love", 1L);
+        first.add(0, "love", 1L);
+        sequential.add(2, "hate", 2L);
+        first.add(2, "hate", 2L);
+        sequential.add(1, "rain", 1L);
+        second.add(1, "rain", 1L);
+        sequential.add(0, "hate", 3L);
+        second.add(0, "hate", 3L);
+
+        CategoryCounts merged = first.merge(second);
+
+        assertEquals(sequential.toDictionary(), merged.toDictionary());
+        for (String token : List.of("love", "hate", "rain")) {
+            assertEquals(sequential.getVocabulary().idOf(token), merged.getVocabulary().idOf(token));
+        }
+        for (int categoryIndex = 0; categoryIndex < categories.size(); ++categoryIndex) {
+            assertEquals(sequential.total(categoryIndex), merged.total(categoryIndex));
+            assertEquals(sequential.distinctTokens(categoryIndex), merged.distinctTokens(categoryIndex));
+        }
+    }
+
     @Test
     public void shouldNotAllowToCreateDictionaryWhenNotEnoughData() {
         List<OpinionFinderAnalysis> analysisNotEnoughForDictionary = List.of(analysisOfEntries(
@@ -169,4 +210,10 @@ public class DictionaryBuilderTest {
         analysis.setDictionary(Set.of(entries));
         return analysis;
     }
-}
\ No newline at end of file
+
+    private void stubLemmatizations() {
+        when(lemmatizerClient.lemmatizeAll(anyList())).thenAnswer(i -> i.<List<String>>getArgument(0).stream()
+                .map(token -> List.of(lemmatizations.getOrDefault(token, token)))
+                .collect(toList()));
+    }
+}
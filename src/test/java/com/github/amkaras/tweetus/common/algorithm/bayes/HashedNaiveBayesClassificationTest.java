@@ -0,0 +1,88 @@
+package com.github.amkaras.tweetus.common.algorithm.bayes;
+
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweets;
+import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+import com.github.amkaras.tweetus.common.util.HashingVectorizer;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+import com.github.amkaras.tweetus.external.opinionfinder.entity.DictionaryEntry;
+import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
+import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.amkaras.tweetus.common.model.BinaryClassificationCategory.POSITIVE;
+import static com.github.amkaras.tweetus.common.model.ClassificationType.BINARY;
+import static com.github.amkaras.tweetus.common.util.HashingVectorizer.Builder.hashingVectorizerBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class HashedNaiveBayesClassificationTest {
+
+    private final StanfordLemmatizerClient lemmatizerClient = mock(StanfordLemmatizerClient.class);
+
+    private final List<OpinionFinderAnalysis> analyses = List.of(
+            analysisOfEntries(
+                    dictionaryEntry("awful", "strongneg"),
+                    dictionaryEntry("boring", "negative"),
+                    dictionaryEntry("dull", "weakneg"),
+                    dictionaryEntry("gloomy", "weakneg")),
+            analysisOfEntries(
+                    dictionaryEntry("great", "strongpos"),
+                    dictionaryEntry("lovely", "positive"),
+                    dictionaryEntry("brilliant", "positive"),
+                    dictionaryEntry("exciting", "weakpos")),
+            analysisOfEntries(
+                    dictionaryEntry("think", "neutral")));
+
+    @Test
+    public void shouldClassifyWithFeaturesOfDictionaryWhenBigramsAreEnabled() {
+        // given
+        HashingVectorizer vectorizer = hashingVectorizerBuilder()
+                .withFeaturesCount(1 << 16)
+                .withBigramsEnabled(true)
+                .withCharacterNGramLength(3)
+                .build();
+        HashingVectorizer vectorizerWithoutBigrams = hashingVectorizerBuilder()
+                .withFeaturesCount(1 << 16)
+                .withCharacterNGramLength(3)
+                .build();
+        List<TokenizedTweet> tweets = tokenized("what a great and lovely match today");
+
+        // when
+        CategoryCounts counts = new DictionaryBuilder(lemmatizerClient, null, vectorizer)
+                .count(analyses, BINARY, false);
+        Map<Tweet, Optional<ClassificationCategory>> classifications =
+                new NaiveBayesClassificationAlgorithm(ForkJoinPool.commonPool(), vectorizer).classify(tweets, counts);
+
+        // then
+        assertEquals(counts.toDictionary(), new DictionaryBuilder(lemmatizerClient, null, vectorizerWithoutBigrams)
+                .count(analyses, BINARY, false).toDictionary());
+        assertEquals(Optional.of(POSITIVE), classifications.get(tweets.get(0).getTweet()));
+    }
+
+    private List<TokenizedTweet> tokenized(String content) {
+        Tweet tweet = new Tweet();
+        tweet.setContent(content);
+        return new TokenizedTweets(lemmatizerClient, TokenFilters.defaults()).tokenize(List.of(tweet), false);
+    }
+
+    private static DictionaryEntry dictionaryEntry(String token, String polarity) {
+        DictionaryEntry dictionaryEntry = new DictionaryEntry();
+        dictionaryEntry.setToken(token);
+        dictionaryEntry.setPolarity(polarity);
+        return dictionaryEntry;
+    }
+
+    private static OpinionFinderAnalysis analysisOfEntries(DictionaryEntry... entries) {
+        OpinionFinderAnalysis analysis = new OpinionFinderAnalysis();
+        analysis.setDictionary(Set.of(entries));
+        return analysis;
+    }
+}
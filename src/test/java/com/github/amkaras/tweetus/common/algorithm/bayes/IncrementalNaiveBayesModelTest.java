@@ -0,0 +1,65 @@
+package com.github.amkaras.tweetus.common.algorithm.bayes;
+
+import com.github.amkaras.tweetus.common.model.BinaryClassificationCategory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.github.amkaras.tweetus.common.model.ClassificationType.BINARY;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalNaiveBayesModelTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldScoreLikeModelCompiledFromAllCounts() {
+        IncrementalNaiveBayesModel model = new IncrementalNaiveBayesModel(BINARY);
+        model.add(counts("hate", null, "love"));
+        assertTrue(model.isEmpty());
+        NaiveBayesModel partialModel = model.model();
+        model.add(counts("ugly", "cloud", "rain"));
+        assertFalse(model.isEmpty());
+
+        CategoryCounts allCounts = counts("hate", null, "love");
+        allCounts.merge(counts("ugly", "cloud", "rain"));
+        List<String> tokens = List.of("hate", "rain", "unknown");
+
+        assertArrayEquals(NaiveBayesModel.compile(allCounts).logScores(tokens), model.model().logScores(tokens), 0.0);
+        assertEquals(NaiveBayesModel.compile(counts("hate", null, "love")).logScores(tokens)[0],
+                partialModel.logScores(tokens)[0], 0.0);
+    }
+
+    @Test
+    public void shouldRestoreModelFromSnapshot() throws IOException {
+        IncrementalNaiveBayesModel model = new IncrementalNaiveBayesModel(BINARY);
+        model.add(counts("hate", null, "love"));
+        model.add(counts("ugly", "cloud", "rain"));
+        Path snapshot = temporaryFolder.getRoot().toPath().resolve("bayes.bin");
+
+        assertEquals(2, model.writeSnapshot(snapshot));
+        IncrementalNaiveBayesModel restoredModel = IncrementalNaiveBayesModel.readSnapshot(snapshot);
+
+        List<String> tokens = List.of("love", "ugly", "hate", "hate");
+        assertEquals(BINARY, restoredModel.getClassificationType());
+        assertArrayEquals(model.model().logScores(tokens), restoredModel.model().logScores(tokens), 0.0);
+    }
+
+    private static CategoryCounts counts(String negativeToken, String neutralToken, String positiveToken) {
+        CategoryCounts counts = new CategoryCounts(CategoryCounts.categoriesOf(BINARY));
+        counts.add(counts.categoryIndex(BinaryClassificationCategory.NEGATIVE), negativeToken, 2L);
+        if (neutralToken != null) {
+            counts.add(counts.categoryIndex(BinaryClassificationCategory.NEUTRAL), neutralToken, 1L);
+        }
+        counts.add(counts.categoryIndex(BinaryClassificationCategory.POSITIVE), positiveToken, 1L);
+        return counts;
+    }
+}
@@ -1,7 +1,10 @@
 package com.github.amkaras.tweetus.common.algorithm.bayes;
 
 import com.github.amkaras.tweetus.common.algorithm.ClassificationAlgorithm;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweets;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
 import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
 import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
 import org.junit.Before;
@@ -14,8 +17,11 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.NEGATIVE;
+import static com.github.amkaras.tweetus.common.util.Tokenizer.join;
+import static com.github.amkaras.tweetus.common.util.Tokenizer.prepareTokens;
 import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.NEUTRAL;
 import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.POSITIVE;
 import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.STRONG_NEGATIVE;
@@ -49,7 +55,7 @@ public class NaiveBayesClassificationAlgorithmTest {
 
     @Before
     public void initialize() {
-        algorithm = new NaiveBayesClassificationAlgorithm(lemmatizerClient);
+        algorithm = new NaiveBayesClassificationAlgorithm();
     }
 
     @Parameterized.Parameters
@@ -84,9 +90,26 @@ public class NaiveBayesClassificationAlgorithmTest {
 
     @Test
     public void shouldCorrectlyClassifyTweet() {
-        when(lemmatizerClient.lemmatize(tweet.getContent())).thenReturn(lemmatizedTokens);
+        when(lemmatizerClient.lemmatizeAll(List.of(join(prepareTokens(tweet, TokenFilters.defaults()))))).thenReturn(List.of(lemmatizedTokens));
 
-        assertEquals(expectedCategory, algorithm.classify(List.of(tweet), dictionary, true).get(tweet));
+        assertEquals(expectedCategory, algorithm.classify(tokenized(tweet), dictionary).get(tweet));
+    }
+
+    @Test
+    public void shouldClassifyTweetInParallelMode() {
+        when(lemmatizerClient.lemmatizeAll(List.of(join(prepareTokens(tweet, TokenFilters.defaults()))))).thenReturn(List.of(lemmatizedTokens));
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ClassificationAlgorithm parallelAlgorithm = new NaiveBayesClassificationAlgorithm(pool);
+
+        try {
+            assertEquals(expectedCategory, parallelAlgorithm.classify(tokenized(tweet), dictionary).get(tweet));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private List<TokenizedTweet> tokenized(Tweet tweet) {
+        return new TokenizedTweets(lemmatizerClient, TokenFilters.defaults()).tokenize(List.of(tweet), true);
     }
 
     private static Tweet tweetWithContent(String content) {
@@ -0,0 +1,50 @@
+package com.github.amkaras.tweetus.common.algorithm.bayes;
+
+import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.NEGATIVE;
+import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.NEUTRAL;
+import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.POSITIVE;
+import static org.junit.Assert.assertEquals;
+
+public class NaiveBayesModelTest {
+
+    private final Map<ClassificationCategory, Map<String, Long>> dictionary = Map.of(
+            NEGATIVE, Map.of("bad", 2L, "sad", 1L),
+            NEUTRAL, Map.of(),
+            POSITIVE, Map.of("good", 2L, "sad", 1L));
+
+    @Test
+    public void shouldClassifyLongTweetWithoutUnderflow() {
+        NaiveBayesModel model = NaiveBayesModel.compile(dictionary);
+
+        List<String> tokens = Collections.nCopies(1000, "bad");
+
+        assertEquals(Optional.of(NEGATIVE), model.mostProbableCategory(model.logScores(tokens)));
+    }
+
+    @Test
+    public void shouldReportTieForEquallyProbableCategories() {
+        NaiveBayesModel model = NaiveBayesModel.compile(dictionary);
+
+        assertEquals(Optional.empty(), model.mostProbableCategory(model.logScores(List.of("sad", "sad"))));
+    }
+
+    @Test
+    public void shouldScoreTokensWithLaplaceSmoothing() {
+        NaiveBayesModel model = NaiveBayesModel.compile(dictionary);
+
+        double[] scores = model.logScores(List.of("bad", "unknown"));
+
+        int negative = model.getCategories().indexOf(NEGATIVE);
+        int neutral = model.getCategories().indexOf(NEUTRAL);
+        assertEquals(Math.log(1.0 / 3) + Math.log(3.0 / 7) + Math.log(1.0 / 7), scores[negative], 1e-12);
+        assertEquals(Math.log(1.0 / 3) + 2 * Math.log(1.0 / 4), scores[neutral], 1e-12);
+    }
+}
@@ -1,26 +1,39 @@
 package com.github.amkaras.tweetus.common.algorithm.knn;
 
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweet;
+import com.github.amkaras.tweetus.common.algorithm.TokenizedTweets;
+import com.github.amkaras.tweetus.common.algorithm.Vocabulary;
 import com.github.amkaras.tweetus.common.algorithm.knn.model.Document;
-import com.github.amkaras.tweetus.common.algorithm.knn.model.DocumentWithTokenCompoundKey;
 import com.github.amkaras.tweetus.common.algorithm.knn.model.DocumentsNotDeterminableException;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.LshParameters;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.Neighbor;
+import com.github.amkaras.tweetus.common.algorithm.knn.model.SparseVector;
 import com.github.amkaras.tweetus.common.model.ClassificationCategory;
+import com.github.amkaras.tweetus.common.util.TokenFilters;
 import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
 import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
 import java.util.stream.Stream;
 
+import static com.github.amkaras.tweetus.common.algorithm.knn.IncrementalKNNIndex.Builder.incrementalKNNIndexBuilder;
 import static com.github.amkaras.tweetus.common.algorithm.knn.model.Document.Builder.documentBuilder;
+import static com.github.amkaras.tweetus.common.algorithm.knn.model.KNNSearchParameters.Builder.knnSearchParametersBuilder;
 import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.NEGATIVE;
 import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.NEUTRAL;
 import static com.github.amkaras.tweetus.common.model.DifferentialClassificationCategory.POSITIVE;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
@@ -32,7 +45,7 @@ public class KNNClassificationAlgorithmTest {
     public static final Logger log = LoggerFactory.getLogger(KNNClassificationAlgorithmTest.class);
 
     private final StanfordLemmatizerClient lemmatizerClient = mock(StanfordLemmatizerClient.class);
-    private final KNNClassificationAlgorithm knnAlgorithm = new KNNClassificationAlgorithm(lemmatizerClient);
+    private final KNNClassificationAlgorithm knnAlgorithm = new KNNClassificationAlgorithm();
 
     @Test
     public void shouldCorrectlyClassifyTweetForTwoPossibleCategories() {
@@ -69,7 +82,7 @@ public class KNNClassificationAlgorithmTest {
 
         // when
         Map<Tweet, Optional<ClassificationCategory>> classificationFor1 =
-                knnAlgorithm.classify(List.of(tweet), documents, false, 1);
+                knnAlgorithm.classify(tokenized(tweet), documents, List.of(1)).get(1);
         Optional<ClassificationCategory> maybeCategory1 = classificationFor1.get(tweet);
         // then
         assertTrue(maybeCategory1.isPresent());
@@ -77,13 +90,273 @@ public class KNNClassificationAlgorithmTest {
 
         // when
         Map<Tweet, Optional<ClassificationCategory>> classificationFor3 =
-                knnAlgorithm.classify(List.of(tweet), documents, false, 3);
+                knnAlgorithm.classify(tokenized(tweet), documents, List.of(3)).get(3);
         Optional<? extends ClassificationCategory> maybeCategory3 = classificationFor3.get(tweet);
         // then
         assertTrue(maybeCategory3.isPresent());
         assertEquals(POSITIVE, maybeCategory3.get());
     }
 
+    @Test
+    public void shouldClassifyTweetForManyValuesOfKInSinglePass() {
+        // given
+        Document d1 = documentBuilder()
+                .withContent("a great game")
+                .withCategory(POSITIVE)
+                .build();
+        Document d2 = documentBuilder()
+                .withContent("the election was over")
+                .withCategory(NEGATIVE)
+                .build();
+        Document d3 = documentBuilder()
+                .withContent("very clean match")
+                .withCategory(POSITIVE)
+                .build();
+        Document d4 = documentBuilder()
+                .withContent("a clean but forgettable game")
+                .withCategory(POSITIVE)
+                .build();
+        Document d5 = documentBuilder()
+                .withContent("it was a close election")
+                .withCategory(NEGATIVE)
+                .build();
+        Set<Document> documents = Set.of(d1, d2, d3, d4, d5);
+
+        Tweet tweet = new Tweet();
+        tweet.setContent("a very close game");
+
+        // when
+        Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classifications =
+                knnAlgorithm.classify(tokenized(tweet), documents, List.of(1, 2, 3, 6));
+        // then
+        assertEquals(List.of(1, 2, 3, 6), List.copyOf(classifications.keySet()));
+        assertEquals(Optional.of(NEGATIVE), classifications.get(1).get(tweet));
+        assertEquals(Optional.empty(), classifications.get(2).get(tweet));
+        assertEquals(Optional.of(POSITIVE), classifications.get(3).get(tweet));
+        assertEquals(Optional.empty(), classifications.get(6).get(tweet));
+    }
+
+    @Test
+    public void shouldClassifyTweetLikeExactSearchWhenUsingApproximateSearch() {
+        // given
+        Document d1 = documentBuilder()
+                .withContent("a great game")
+                .withCategory(POSITIVE)
+                .build();
+        Document d2 = documentBuilder()
+                .withContent("the election was over")
+                .withCategory(NEGATIVE)
+                .build();
+        Document d3 = documentBuilder()
+                .withContent("very clean match")
+                .withCategory(POSITIVE)
+                .build();
+        Document d4 = documentBuilder()
+                .withContent("a clean but forgettable game")
+                .withCategory(POSITIVE)
+                .build();
+        Document d5 = documentBuilder()
+                .withContent("it was a close election")
+                .withCategory(NEGATIVE)
+                .build();
+        Set<Document> documents = Set.of(d1, d2, d3, d4, d5);
+        KNNClassificationAlgorithm approximateAlgorithm =
+                new KNNClassificationAlgorithm(knnSearchParametersBuilder()
+                        .withLshParameters(new LshParameters(16, 2))
+                        .build());
+
+        Tweet tweet = new Tweet();
+        tweet.setContent("a very close game");
+
+        // when
+        Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classifications =
+                approximateAlgorithm.classify(tokenized(tweet), documents, List.of(1, 3));
+        // then
+        assertEquals(Optional.of(NEGATIVE), classifications.get(1).get(tweet));
+        assertEquals(Optional.of(POSITIVE), classifications.get(3).get(tweet));
+    }
+
+    @Test
+    public void shouldClassifyTweetsLikeSingleTweetsWhenScoringInBatches() {
+        // given
+        Document d1 = documentBuilder()
+                .withContent("a great game")
+                .withCategory(POSITIVE)
+                .build();
+        Document d2 = documentBuilder()
+                .withContent("the election was over")
+                .withCategory(NEGATIVE)
+                .build();
+        Document d3 = documentBuilder()
+                .withContent("very clean match")
+                .withCategory(POSITIVE)
+                .build();
+        Document d4 = documentBuilder()
+                .withContent("a clean but forgettable game")
+                .withCategory(POSITIVE)
+                .build();
+        Document d5 = documentBuilder()
+                .withContent("it was a close election")
+                .withCategory(NEGATIVE)
+                .build();
+        Set<Document> documents = Set.of(d1, d2, d3, d4, d5);
+        KNNClassificationAlgorithm batchAlgorithm = new KNNClassificationAlgorithm(
+                knnSearchParametersBuilder()
+                        .withBatchSize(2)
+                        .build());
+        List<String> contents = List.of("a very close game", "the election", "clean match", "nothing in common");
+
+        // when
+        Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> singleClassifications =
+                knnAlgorithm.classify(tokenized(tweets(contents)), documents, List.of(1, 2, 3));
+        Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> batchClassifications =
+                batchAlgorithm.classify(tokenized(tweets(contents)), documents, List.of(1, 2, 3));
+
+        // then
+        List.of(1, 2, 3).forEach(k ->
+                assertEquals(categoriesByContent(singleClassifications.get(k)), categoriesByContent(batchClassifications.get(k))));
+    }
+
+    @Test
+    public void shouldClassifyTweetAgainstIncrementallyUpdatedIndex() {
+        // given
+        Document d1 = documentBuilder()
+                .withContent("a great game")
+                .withCategory(POSITIVE)
+                .build();
+        Document d2 = documentBuilder()
+                .withContent("the election was over")
+                .withCategory(NEGATIVE)
+                .build();
+        Document d3 = documentBuilder()
+                .withContent("very clean match")
+                .withCategory(POSITIVE)
+                .build();
+        Document d4 = documentBuilder()
+                .withContent("a clean but forgettable game")
+                .withCategory(POSITIVE)
+                .build();
+        Document d5 = documentBuilder()
+                .withContent("it was a close election")
+                .withCategory(NEGATIVE)
+                .build();
+        IncrementalKNNIndex index = incrementalKNNIndexBuilder()
+                .withReweightBatchSize(2)
+                .build();
+        Stream.of(d1, d2, d3, d4, d5).forEach(index::add);
+        while (index.reweight() > 0) {
+            log.debug("Re-weighting documents");
+        }
+
+        Tweet tweet = new Tweet();
+        tweet.setContent("a very close game");
+
+        // when
+        Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classifications =
+                knnAlgorithm.classify(tokenized(tweet), index, List.of(1, 3));
+        // then
+        assertEquals(Optional.of(NEGATIVE), classifications.get(1).get(tweet));
+        assertEquals(Optional.of(POSITIVE), classifications.get(3).get(tweet));
+
+        // when
+        assertTrue(index.remove(d5));
+        assertFalse(index.remove(d5));
+        Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classificationsAfterRemoval =
+                knnAlgorithm.classify(tokenized(tweet), index, List.of(1, 5));
+        // then
+        assertEquals(4, index.getDocumentsCount());
+        assertEquals(Optional.of(POSITIVE), classificationsAfterRemoval.get(1).get(tweet));
+        assertEquals(Optional.empty(), classificationsAfterRemoval.get(5).get(tweet));
+    }
+
+    @Test
+    public void shouldWeightDocumentsWithoutReweightingIncrementalIndex() {
+        // given
+        Document d1 = documentBuilder()
+                .withContent("a great game")
+                .withCategory(POSITIVE)
+                .build();
+        Document d2 = documentBuilder()
+                .withContent("the election was over")
+                .withCategory(NEGATIVE)
+                .build();
+        Document d3 = documentBuilder()
+                .withContent("great election game")
+                .withCategory(POSITIVE)
+                .build();
+        IncrementalKNNIndex index = incrementalKNNIndexBuilder()
+                .withReweightBatchSize(2)
+                .build();
+
+        // when
+        index.add(d1);
+        // then
+        assertPositiveWeights(index.getInvertedIndex().getVector(0), 2);
+
+        // when
+        index.add(d2);
+        index.add(d3);
+        // then
+        assertPositiveWeights(index.getInvertedIndex().getVector(1), 3);
+        assertPositiveWeights(index.getInvertedIndex().getVector(2), 3);
+
+        // when
+        Tweet tweet = new Tweet();
+        tweet.setContent("the election was over");
+        Map<Integer, Map<Tweet, Optional<ClassificationCategory>>> classifications =
+                knnAlgorithm.classify(tokenized(tweet), index, List.of(1));
+        // then
+        assertEquals(Optional.of(NEGATIVE), classifications.get(1).get(tweet));
+    }
+
+    @Test
+    public void shouldEvictOldestDocumentsAndReleaseTheirTermsFromIncrementalIndex() {
+        // given
+        IncrementalKNNIndex index = incrementalKNNIndexBuilder()
+                .withMaxDocumentsCount(2)
+                .build();
+        List<Document> documents = Stream.iterate(0, i -> i + 1)
+                .limit(200)
+                .map(i -> documentBuilder()
+                        .withContent("topic" + (char) ('a' + i / 26) + (char) ('a' + i % 26))
+                        .withCategory(i % 2 == 0 ? POSITIVE : NEGATIVE)
+                        .build())
+                .collect(toList());
+
+        // when
+        documents.forEach(index::add);
+
+        // then
+        assertEquals(2, index.getDocumentsCount());
+        assertFalse(index.remove(documents.get(0)));
+        assertTrue(index.getVocabulary().size() < 100);
+        Tweet tweet = new Tweet();
+        tweet.setContent(documents.get(199).getContent());
+        assertEquals(Optional.of(NEGATIVE),
+                knnAlgorithm.classify(tokenized(tweet), index, List.of(1)).get(1).get(tweet));
+    }
+
+    @Test
+    public void shouldFindIdenticalDocumentAmongLshCandidates() {
+        // given
+        Vocabulary vocabulary = vocabulary(Set.of("great", "game", "election", "over", "clean", "match"));
+        SparseVector v1 = sparseVector(vocabulary, Map.of("great", 0.7, "game", 0.4));
+        SparseVector v2 = sparseVector(vocabulary, Map.of("election", 0.4, "over", 0.7));
+        SparseVector v3 = sparseVector(vocabulary, Map.of("clean", 0.7, "match", 0.7));
+        InvertedIndex index = new InvertedIndex(
+                Stream.generate(() -> documentBuilder().build()).limit(3).collect(toList()), List.of(v1, v2, v3));
+        LshIndex lshIndex = new LshIndex(index, new LshParameters(4, 8));
+
+        // when
+        int[] candidates = lshIndex.candidates(sparseVector(vocabulary, Map.of("election", 0.4, "over", 0.7)));
+
+        // then
+        assertTrue(Arrays.binarySearch(candidates, 1) >= 0);
+        for (int i = 1; i < candidates.length; ++i) {
+            assertTrue(candidates[i - 1] < candidates[i]);
+        }
+    }
+
     @Test
     public void shouldCorrectlyClassifyTweetForThreePossibleCategories() {
         // given
@@ -119,7 +392,7 @@ public class KNNClassificationAlgorithmTest {
 
         // when
         Map<Tweet, Optional<ClassificationCategory>> classificationFor1 =
-                knnAlgorithm.classify(List.of(tweet), documents, false, 1);
+                knnAlgorithm.classify(tokenized(tweet), documents, List.of(1)).get(1);
         Optional<ClassificationCategory> maybeCategory1 = classificationFor1.get(tweet);
         // then
         assertTrue(maybeCategory1.isPresent());
@@ -127,7 +400,7 @@ public class KNNClassificationAlgorithmTest {
 
         // when
         Map<Tweet, Optional<ClassificationCategory>> classificationFor3 =
-                knnAlgorithm.classify(List.of(tweet), documents, false, 3);
+                knnAlgorithm.classify(tokenized(tweet), documents, List.of(3)).get(3);
         Optional<? extends ClassificationCategory> maybeCategory3 = classificationFor3.get(tweet);
         // then
         assertTrue(maybeCategory3.isPresent());
@@ -135,14 +408,14 @@ public class KNNClassificationAlgorithmTest {
 
         // when
         Map<Tweet, Optional<ClassificationCategory>> classificationFor5 =
-                knnAlgorithm.classify(List.of(tweet), documents, false, 5);
+                knnAlgorithm.classify(tokenized(tweet), documents, List.of(5)).get(5);
         Optional<? extends ClassificationCategory> maybeCategory5 = classificationFor5.get(tweet);
         // then
         assertFalse(maybeCategory5.isPresent());
     }
 
     @Test
-    public void shouldCorrectlyCalculateVectorsMatrix() {
+    public void shouldCorrectlyCalculateSparseVectors() {
         // given
         Document d1 = documentBuilder()
                 .withContent("a great game")
@@ -180,107 +453,113 @@ public class KNNClassificationAlgorithmTest {
         Set<String> tokens = Set.of("a", "great", "game", "the", "election", "was", "over", "very",
                 "clean", "match", "but", "forgettable", "it", "close");
 
+        Vocabulary vocabulary = vocabulary(tokens);
+        CorpusStatistics statistics = CorpusStatistics.of(documents);
+
         // when
-        Map<DocumentWithTokenCompoundKey, Double> matrix =
-                knnAlgorithm.vectorsMatrix(tokens, documents, Set.copyOf(documents));
-        // then
-        Map.ofEntries(
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "a"), 0.22),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "great"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "game"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "election"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "was"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "very"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "clean"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "close"), 0.0),
-
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "a"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "game"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "the"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "election"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "was"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "over"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "very"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "clean"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "close"), 0.0),
-
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "a"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "game"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "election"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "was"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "very"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "clean"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "match"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "close"), 0.0),
-
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "a"), 0.22),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "game"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "election"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "was"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "very"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "clean"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "but"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "forgettable"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "close"), 0.0),
-
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "a"), 0.22),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "game"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "election"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "was"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "very"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "clean"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "it"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "close"), 0.7)
-        ).forEach((key, value) -> assertEquals(value, matrix.get(key), 0.1));
+        Map<Document, SparseVector> vectors = Stream.of(d1, d2, d3, d4, d5)
+                .collect(toMap(identity(), document -> knnAlgorithm.vector(document, vocabulary, statistics)));
+        // then
+        assertWeights(vocabulary, vectors.get(d1), Map.ofEntries(
+                Map.entry("a", 0.22),
+                Map.entry("great", 0.7),
+                Map.entry("game", 0.4),
+                Map.entry("the", 0.0),
+                Map.entry("election", 0.0),
+                Map.entry("was", 0.0),
+                Map.entry("over", 0.0),
+                Map.entry("very", 0.0),
+                Map.entry("clean", 0.0),
+                Map.entry("match", 0.0),
+                Map.entry("but", 0.0),
+                Map.entry("forgettable", 0.0),
+                Map.entry("it", 0.0),
+                Map.entry("close", 0.0)
+        ));
+        assertWeights(vocabulary, vectors.get(d2), Map.ofEntries(
+                Map.entry("a", 0.0),
+                Map.entry("great", 0.0),
+                Map.entry("game", 0.0),
+                Map.entry("the", 0.7),
+                Map.entry("election", 0.4),
+                Map.entry("was", 0.4),
+                Map.entry("over", 0.7),
+                Map.entry("very", 0.0),
+                Map.entry("clean", 0.0),
+                Map.entry("match", 0.0),
+                Map.entry("but", 0.0),
+                Map.entry("forgettable", 0.0),
+                Map.entry("it", 0.0),
+                Map.entry("close", 0.0)
+        ));
+        assertWeights(vocabulary, vectors.get(d3), Map.ofEntries(
+                Map.entry("a", 0.0),
+                Map.entry("great", 0.0),
+                Map.entry("game", 0.0),
+                Map.entry("the", 0.0),
+                Map.entry("election", 0.0),
+                Map.entry("was", 0.0),
+                Map.entry("over", 0.0),
+                Map.entry("very", 0.7),
+                Map.entry("clean", 0.4),
+                Map.entry("match", 0.7),
+                Map.entry("but", 0.0),
+                Map.entry("forgettable", 0.0),
+                Map.entry("it", 0.0),
+                Map.entry("close", 0.0)
+        ));
+        assertWeights(vocabulary, vectors.get(d4), Map.ofEntries(
+                Map.entry("a", 0.22),
+                Map.entry("great", 0.0),
+                Map.entry("game", 0.4),
+                Map.entry("the", 0.0),
+                Map.entry("election", 0.0),
+                Map.entry("was", 0.0),
+                Map.entry("over", 0.0),
+                Map.entry("very", 0.0),
+                Map.entry("clean", 0.4),
+                Map.entry("match", 0.0),
+                Map.entry("but", 0.7),
+                Map.entry("forgettable", 0.7),
+                Map.entry("it", 0.0),
+                Map.entry("close", 0.0)
+        ));
+        assertWeights(vocabulary, vectors.get(d5), Map.ofEntries(
+                Map.entry("a", 0.22),
+                Map.entry("great", 0.0),
+                Map.entry("game", 0.0),
+                Map.entry("the", 0.0),
+                Map.entry("election", 0.4),
+                Map.entry("was", 0.4),
+                Map.entry("over", 0.0),
+                Map.entry("very", 0.0),
+                Map.entry("clean", 0.0),
+                Map.entry("match", 0.0),
+                Map.entry("but", 0.0),
+                Map.entry("forgettable", 0.0),
+                Map.entry("it", 0.7),
+                Map.entry("close", 0.7)
+        ));
 
         // when
-        Map<DocumentWithTokenCompoundKey, Double> vector =
-                knnAlgorithm.vectorsMatrix(tokens, Set.of(d6), Set.copyOf(documents));
-        // then
-        Map.ofEntries(
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "a"), 0.22),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "game"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "election"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "was"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "very"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "clean"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "close"), 0.7)
-        ).forEach((key, value) -> assertEquals(value, vector.get(key), 0.1));
+        SparseVector vector = knnAlgorithm.vector(d6, vocabulary, statistics);
+        // then
+        assertWeights(vocabulary, vector, Map.ofEntries(
+                Map.entry("a", 0.22),
+                Map.entry("great", 0.0),
+                Map.entry("game", 0.4),
+                Map.entry("the", 0.0),
+                Map.entry("election", 0.0),
+                Map.entry("was", 0.0),
+                Map.entry("over", 0.0),
+                Map.entry("very", 0.7),
+                Map.entry("clean", 0.0),
+                Map.entry("match", 0.0),
+                Map.entry("but", 0.0),
+                Map.entry("forgettable", 0.0),
+                Map.entry("it", 0.0),
+                Map.entry("close", 0.7)
+        ));
     }
 
     @Test
@@ -296,66 +575,106 @@ public class KNNClassificationAlgorithmTest {
                 .withContent("and who can say if your love grows")
                 .build();
 
+        CorpusStatistics statistics = CorpusStatistics.of(Set.of(d1, d2, d3));
+        Vocabulary vocabulary = vocabulary(Set.of("say", "road", "love"));
+
         // when
-        double tfidfForSay = knnAlgorithm.TFIDF("say", d1, Set.of(d1, d2, d3));
+        SparseVector vector = knnAlgorithm.vector(d1, vocabulary, statistics);
         // then
-        assertEquals(0.1761, tfidfForSay, 0.001);
+        assertEquals(2, statistics.documentFrequency("say"));
+        assertEquals(0.1761, vector.getWeight(vocabulary.idOf("say")), 0.001);
 
-        // when
-        double tfidfForRoad = knnAlgorithm.TFIDF("road", d1, Set.of(d1, d2, d3));
         // then
-        assertEquals(0.4771, tfidfForRoad, 0.001);
+        assertEquals(1, statistics.documentFrequency("road"));
+        assertEquals(0.4771, vector.getWeight(vocabulary.idOf("road")), 0.001);
 
-        // when
-        double tfidfForLove = knnAlgorithm.TFIDF("love", d1, Set.of(d1, d2, d3));
         // then
-        assertEquals(0.0, tfidfForLove, 0.001);
+        assertEquals(1, statistics.documentFrequency("love"));
+        assertEquals(0.0, vector.getWeight(vocabulary.idOf("love")), 0.001);
     }
 
     @Test
     public void shouldCorrectlyFindClosestDocuments() throws DocumentsNotDeterminableException {
         // given
-        UUID firstId = UUID.randomUUID();
-        UUID secondId = UUID.randomUUID();
-        UUID thirdId = UUID.randomUUID();
-        UUID fourthId = UUID.randomUUID();
-        UUID fifthId = UUID.randomUUID();
-
-        Map<UUID, Double> distances = Map.of(
-                firstId, 0.05,
-                secondId, 0.07,
-                thirdId, 0.04,
-                fourthId, 0.07,
-                fifthId, 0.1
-        );
+        Document first = documentBuilder().withContent("first").build();
+        Document second = documentBuilder().withContent("second").build();
+        Document third = documentBuilder().withContent("third").build();
+        Document fourth = documentBuilder().withContent("fourth").build();
+        Document fifth = documentBuilder().withContent("fifth").build();
+        SparseVector empty = new SparseVector(Map.of());
+        InvertedIndex index = new InvertedIndex(
+                List.of(first, second, third, fourth, fifth), List.of(empty, empty, empty, empty, empty));
+
+        double[] distances = {0.05, 0.07, 0.04, 0.07, 0.1};
+
+        // when
+        List<Neighbor> closestFor1 = knnAlgorithm.closestDocuments(index, distances, 1);
+        // then
+        assertEquals(List.of(third), documentsOf(closestFor1));
+
+        // when
+        List<Neighbor> closestFor2 = knnAlgorithm.closestDocuments(index, distances, 2);
+        // then
+        assertEquals(List.of(third, first), documentsOf(closestFor2));
 
         // when
-        Set<UUID> closestIdsFor1 = knnAlgorithm.closestDocuments(distances, 1);
         // then
-        assertEquals(Set.of(thirdId), closestIdsFor1);
+        assertThrows(DocumentsNotDeterminableException.class, () -> knnAlgorithm.closestDocuments(index, distances, 3));
 
         // when
-        Set<UUID> closestIdsFor2 = knnAlgorithm.closestDocuments(distances, 2);
+        List<Neighbor> closestFor4 = knnAlgorithm.closestDocuments(index, distances, 4);
         // then
-        assertEquals(Set.of(thirdId, firstId), closestIdsFor2);
+        assertEquals(List.of(third, first, second, fourth), documentsOf(closestFor4));
 
         // when
+        List<Neighbor> closestFor5 = knnAlgorithm.closestDocuments(index, distances, 5);
         // then
-        assertThrows(DocumentsNotDeterminableException.class, () -> knnAlgorithm.closestDocuments(distances, 3));
+        assertEquals(List.of(third, first, second, fourth, fifth), documentsOf(closestFor5));
 
         // when
-        Set<UUID> closestIdsFor4 = knnAlgorithm.closestDocuments(distances, 4);
         // then
-        assertEquals(Set.of(thirdId, firstId, secondId, fourthId), closestIdsFor4);
+        assertThrows(DocumentsNotDeterminableException.class, () -> knnAlgorithm.closestDocuments(index, distances, 6));
+    }
+
+    @Test
+    public void shouldCalculateSameSimilaritiesInDocumentTiles() {
+        // given
+        Vocabulary vocabulary = vocabulary(Set.of("great", "game", "election", "over", "clean", "match"));
+        List<SparseVector> vectors = List.of(
+                sparseVector(vocabulary, Map.of("great", 0.7, "game", 0.4)),
+                sparseVector(vocabulary, Map.of("election", 0.4, "over", 0.7, "game", 0.1)),
+                sparseVector(vocabulary, Map.of("clean", 0.7, "match", 0.7)),
+                sparseVector(vocabulary, Map.of("clean", 0.2, "game", 0.4)),
+                sparseVector(vocabulary, Map.of("great", 0.3, "match", 0.5)));
+        InvertedIndex index = new InvertedIndex(
+                Stream.generate(() -> documentBuilder().build()).limit(5).collect(toList()), vectors);
+        List<SparseVector> queries = List.of(
+                sparseVector(vocabulary, Map.of("game", 0.5, "clean", 0.3, "over", 0.2)),
+                sparseVector(vocabulary, Map.of("match", 0.9)),
+                sparseVector(vocabulary, Map.of()));
+        double[][] tiledSimilarities = new double[queries.size()][index.size()];
 
         // when
-        Set<UUID> closestIdsFor5 = knnAlgorithm.closestDocuments(distances, 5);
+        index.cosineSimilarities(queries, 2, (queryPosition, firstDocumentIndex, similarities, length) ->
+                System.arraycopy(similarities, 0, tiledSimilarities[queryPosition], firstDocumentIndex, length));
+
         // then
-        assertEquals(Set.of(thirdId, firstId, secondId, fourthId, fifthId), closestIdsFor5);
+        for (int queryPosition = 0; queryPosition < queries.size(); ++queryPosition) {
+            assertArrayEquals(index.cosineSimilarities(queries.get(queryPosition)),
+                    tiledSimilarities[queryPosition], 0.0);
+        }
+    }
+
+    @Test
+    public void shouldSelectSmallestValuesInDeterministicOrder() {
+        // given
+        double[] values = {0.3, 0.1, 0.3, 0.2, 0.1, 0.5};
 
         // when
         // then
-        assertThrows(DocumentsNotDeterminableException.class, () -> knnAlgorithm.closestDocuments(distances, 6));
+        assertArrayEquals(new int[]{1, 4, 3}, TopKSelector.smallest(values, 3));
+        assertArrayEquals(new int[]{1, 4, 3, 0, 2, 5}, TopKSelector.smallest(values, 6));
+        assertArrayEquals(new int[]{}, TopKSelector.smallest(values, 0));
     }
 
     @Test
@@ -395,104 +714,112 @@ public class KNNClassificationAlgorithmTest {
         Set<String> tokens = Set.of("a", "great", "game", "the", "election", "was", "over", "very",
                 "clean", "match", "but", "forgettable", "it", "close");
 
-        Map<DocumentWithTokenCompoundKey, Double> matrix = Map.ofEntries(
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "a"), 0.22),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "great"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "game"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "election"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "was"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "very"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "clean"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d1, "close"), 0.0),
-
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "a"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "game"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "the"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "election"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "was"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "over"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "very"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "clean"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d2, "close"), 0.0),
-
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "a"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "game"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "election"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "was"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "very"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "clean"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "match"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d3, "close"), 0.0),
-
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "a"), 0.22),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "game"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "election"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "was"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "very"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "clean"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "but"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "forgettable"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d4, "close"), 0.0),
-
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "a"), 0.22),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "game"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "election"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "was"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "very"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "clean"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "it"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d5, "close"), 0.7)
-        );
-        Map<DocumentWithTokenCompoundKey, Double> vector = Map.ofEntries(
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "a"), 0.22),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "great"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "game"), 0.4),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "the"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "election"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "was"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "over"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "very"), 0.7),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "clean"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "match"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "but"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "forgettable"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "it"), 0.0),
-                Map.entry(new DocumentWithTokenCompoundKey(d6, "close"), 0.7)
-        );
+        Vocabulary vocabulary = vocabulary(tokens);
+
+        InvertedIndex index = new InvertedIndex(List.of(d1, d2, d3, d4, d5), List.of(
+                sparseVector(vocabulary, Map.ofEntries(
+                        Map.entry("a", 0.22),
+                        Map.entry("great", 0.7),
+                        Map.entry("game", 0.4),
+                        Map.entry("the", 0.0),
+                        Map.entry("election", 0.0),
+                        Map.entry("was", 0.0),
+                        Map.entry("over", 0.0),
+                        Map.entry("very", 0.0),
+                        Map.entry("clean", 0.0),
+                        Map.entry("match", 0.0),
+                        Map.entry("but", 0.0),
+                        Map.entry("forgettable", 0.0),
+                        Map.entry("it", 0.0),
+                        Map.entry("close", 0.0)
+                )),
+                sparseVector(vocabulary, Map.ofEntries(
+                        Map.entry("a", 0.0),
+                        Map.entry("great", 0.0),
+                        Map.entry("game", 0.0),
+                        Map.entry("the", 0.7),
+                        Map.entry("election", 0.4),
+                        Map.entry("was", 0.4),
+                        Map.entry("over", 0.7),
+                        Map.entry("very", 0.0),
+                        Map.entry("clean", 0.0),
+                        Map.entry("match", 0.0),
+                        Map.entry("but", 0.0),
+                        Map.entry("forgettable", 0.0),
+                        Map.entry("it", 0.0),
+                        Map.entry("close", 0.0)
+                )),
+                sparseVector(vocabulary, Map.ofEntries(
+                        Map.entry("a", 0.0),
+                        Map.entry("great", 0.0),
+                        Map.entry("game", 0.0),
+                        Map.entry("the", 0.0),
+                        Map.entry("election", 0.0),
+                        Map.entry("was", 0.0),
+                        Map.entry("over", 0.0),
+                        Map.entry("very", 0.7),
+                        Map.entry("clean", 0.4),
+                        Map.entry("match", 0.7),
+                        Map.entry("but", 0.0),
+                        Map.entry("forgettable", 0.0),
+                        Map.entry("it", 0.0),
+                        Map.entry("close", 0.0)
+                )),
+                sparseVector(vocabulary, Map.ofEntries(
+                        Map.entry("a", 0.22),
+                        Map.entry("great", 0.0),
+                        Map.entry("game", 0.4),
+                        Map.entry("the", 0.0),
+                        Map.entry("election", 0.0),
+                        Map.entry("was", 0.0),
+                        Map.entry("over", 0.0),
+                        Map.entry("very", 0.0),
+                        Map.entry("clean", 0.4),
+                        Map.entry("match", 0.0),
+                        Map.entry("but", 0.7),
+                        Map.entry("forgettable", 0.7),
+                        Map.entry("it", 0.0),
+                        Map.entry("close", 0.0)
+                )),
+                sparseVector(vocabulary, Map.ofEntries(
+                        Map.entry("a", 0.22),
+                        Map.entry("great", 0.0),
+                        Map.entry("game", 0.0),
+                        Map.entry("the", 0.0),
+                        Map.entry("election", 0.4),
+                        Map.entry("was", 0.4),
+                        Map.entry("over", 0.0),
+                        Map.entry("very", 0.0),
+                        Map.entry("clean", 0.0),
+                        Map.entry("match", 0.0),
+                        Map.entry("but", 0.0),
+                        Map.entry("forgettable", 0.0),
+                        Map.entry("it", 0.7),
+                        Map.entry("close", 0.7)
+                ))
+        ));
+        SparseVector vector = sparseVector(vocabulary, Map.ofEntries(
+                Map.entry("a", 0.22),
+                Map.entry("great", 0.0),
+                Map.entry("game", 0.4),
+                Map.entry("the", 0.0),
+                Map.entry("election", 0.0),
+                Map.entry("was", 0.0),
+                Map.entry("over", 0.0),
+                Map.entry("very", 0.7),
+                Map.entry("clean", 0.0),
+                Map.entry("match", 0.0),
+                Map.entry("but", 0.0),
+                Map.entry("forgettable", 0.0),
+                Map.entry("it", 0.0),
+                Map.entry("close", 0.7)
+        ));
 
         // when
         Stream.of(d1, d2, d3, d4, d5).forEach(document ->
                 log.info("Document {}: {} [{}]", document.getId(), document.getContent(), document.getCategory()));
         log.info("Document {}: {}\n", d6.getId(), d6.getContent());
-        Optional<? extends ClassificationCategory> categoryFor1 = knnAlgorithm.categoryByNearestNeighbors(tokens, matrix, vector, 1, "ID");
+        Optional<? extends ClassificationCategory> categoryFor1 = knnAlgorithm.categoryByNearestNeighbors(index, vector, 1, "ID");
         // then
         assertTrue(categoryFor1.isPresent());
         assertEquals(NEGATIVE, categoryFor1.get());
@@ -501,7 +828,7 @@ public class KNNClassificationAlgorithmTest {
         Stream.of(d1, d2, d3, d4, d5).forEach(document ->
                 log.info("Document {}: {} [{}]", document.getId(), document.getContent(), document.getCategory()));
         log.info("Document {}: {}\n", d6.getId(), d6.getContent());
-        Optional<? extends ClassificationCategory> categoryFor2 = knnAlgorithm.categoryByNearestNeighbors(tokens, matrix, vector, 2, "ID");
+        Optional<? extends ClassificationCategory> categoryFor2 = knnAlgorithm.categoryByNearestNeighbors(index, vector, 2, "ID");
         // then
         assertFalse(categoryFor2.isPresent());
 
@@ -509,7 +836,7 @@ public class KNNClassificationAlgorithmTest {
         Stream.of(d1, d2, d3, d4, d5).forEach(document ->
                 log.info("Document {}: {} [{}]", document.getId(), document.getContent(), document.getCategory()));
         log.info("Document {}: {}\n", d6.getId(), d6.getContent());
-        Optional<? extends ClassificationCategory> categoryFor3 = knnAlgorithm.categoryByNearestNeighbors(tokens, matrix, vector, 3, "ID");
+        Optional<? extends ClassificationCategory> categoryFor3 = knnAlgorithm.categoryByNearestNeighbors(index, vector, 3, "ID");
         // then
         assertTrue(categoryFor3.isPresent());
         assertEquals(POSITIVE, categoryFor3.get());
@@ -518,22 +845,22 @@ public class KNNClassificationAlgorithmTest {
     @Test
     public void shouldCorrectlyCalculateDotProduct() {
         // given
-        Map<DocumentWithTokenCompoundKey, Double> firstVector = Map.of(
-                new DocumentWithTokenCompoundKey(mock(Document.class), "sign"), 0.1,
-                new DocumentWithTokenCompoundKey(mock(Document.class), "of"), 0.0,
-                new DocumentWithTokenCompoundKey(mock(Document.class), "the"), 0.5,
-                new DocumentWithTokenCompoundKey(mock(Document.class), "times"), 0.0
-        );
-        Map<DocumentWithTokenCompoundKey, Double> secondVector = Map.of(
-                new DocumentWithTokenCompoundKey(mock(Document.class), "sign"), 0.1,
-                new DocumentWithTokenCompoundKey(mock(Document.class), "of"), 0.9,
-                new DocumentWithTokenCompoundKey(mock(Document.class), "the"), 0.5,
-                new DocumentWithTokenCompoundKey(mock(Document.class), "times"), 0.2
-        );
-        Set<String> tokens = Set.of("sign", "of", "the", "times");
+        Vocabulary vocabulary = vocabulary(Set.of("sign", "of", "the", "times"));
+        SparseVector firstVector = sparseVector(vocabulary, Map.of(
+                "sign", 0.1,
+                "of", 0.0,
+                "the", 0.5,
+                "times", 0.0
+        ));
+        SparseVector secondVector = sparseVector(vocabulary, Map.of(
+                "sign", 0.1,
+                "of", 0.9,
+                "the", 0.5,
+                "times", 0.2
+        ));
         double expectedDotProduct = 0.26;
         // when
-        double dotProduct = knnAlgorithm.dotProduct(firstVector, secondVector, tokens);
+        double dotProduct = firstVector.dotProduct(secondVector);
 
         // then
         assertEquals(expectedDotProduct, dotProduct, 0.0001);
@@ -542,15 +869,75 @@ public class KNNClassificationAlgorithmTest {
     @Test
     public void shouldCorrectlyCalculateMagnitude() {
         // given
-        Set<Double> firstVectorValues = Set.of(1.0, 2.0, 3.0, 4.0);
-        Set<Double> secondVectorValues = Set.of(2.0, 3.0, 4.0, 5.0);
+        SparseVector firstVector = new SparseVector(Map.of(0, 1.0, 1, 2.0, 2, 3.0, 3, 4.0));
+        SparseVector secondVector = new SparseVector(Map.of(0, 2.0, 1, 3.0, 2, 4.0, 3, 5.0));
         double expectedMagnitude = 40.2492;
 
         // when
-        double magnitude = knnAlgorithm.magnitude(firstVectorValues, secondVectorValues);
+        double magnitude = firstVector.norm() * secondVector.norm();
 
         // then
         assertEquals(expectedMagnitude, magnitude, 0.0001);
     }
 
-}
\ No newline at end of file
+    private static void assertPositiveWeights(SparseVector vector, int expectedSize) {
+        assertEquals(expectedSize, vector.size());
+        for (int i = 0; i < vector.size(); ++i) {
+            float weight = vector.getWeightAt(i);
+            assertTrue(vector.toString(), Float.isFinite(weight) && weight > 0.0f);
+        }
+    }
+
+    private List<TokenizedTweet> tokenized(Tweet tweet) {
+        return tokenized(List.of(tweet));
+    }
+
+    private List<TokenizedTweet> tokenized(List<Tweet> tweets) {
+        return new TokenizedTweets(lemmatizerClient, TokenFilters.defaults()).tokenize(tweets, false);
+    }
+
+    private static List<Tweet> tweets(List<String> contents) {
+        return contents.stream()
+                .map(content -> {
+                    Tweet tweet = new Tweet();
+                    tweet.setId(content);
+                    tweet.setContent(content);
+                    return tweet;
+                })
+                .collect(toList());
+    }
+
+    private static Map<String, Optional<ClassificationCategory>> categoriesByContent(
+            Map<Tweet, Optional<ClassificationCategory>> classifications) {
+        return classifications.entrySet().stream()
+                .collect(toMap(entry -> entry.getKey().getId(), Map.Entry::getValue));
+    }
+
+    private static List<Document> documentsOf(List<Neighbor> neighbors) {
+        return neighbors.stream()
+                .map(Neighbor::getDocument)
+                .collect(toList());
+    }
+
+    private static Vocabulary vocabulary(Set<String> tokens) {
+        Vocabulary vocabulary = new Vocabulary();
+        tokens.forEach(vocabulary::intern);
+        return vocabulary;
+    }
+
+    private static SparseVector sparseVector(Vocabulary vocabulary, Map<String, Double> weightsByToken) {
+        Map<Integer, Double> weights = new HashMap<>();
+        weightsByToken.forEach((token, weight) -> {
+            if (weight != 0.0) {
+                weights.put(vocabulary.idOf(token), weight);
+            }
+        });
+        return new SparseVector(weights);
+    }
+
+    private static void assertWeights(Vocabulary vocabulary, SparseVector vector,
+                                      Map<String, Double> expectedWeightsByToken) {
+        expectedWeightsByToken.forEach((token, expectedWeight) ->
+                assertEquals(expectedWeight, vector.getWeight(vocabulary.idOf(token)), 0.1));
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.amkaras.tweetus.common.analysis;
+
+import com.github.amkaras.tweetus.common.util.TokenFilters;
+import com.github.amkaras.tweetus.configuration.FeatureToggles;
+import com.github.amkaras.tweetus.external.opinionfinder.entity.DictionaryEntry;
+import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
+import com.github.amkaras.tweetus.external.stanfordnlp.StanfordLemmatizerClient;
+import com.github.amkaras.tweetus.external.twitter.entity.Tweet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.amkaras.tweetus.common.model.ClassificationType.BINARY;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OnlineNaiveBayesTrainerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final FeatureToggles featureToggles = mock(FeatureToggles.class);
+    private final StanfordLemmatizerClient lemmatizerClient = mock(StanfordLemmatizerClient.class);
+
+    @Test
+    public void shouldNotFailAnalysisWhenTrainingFails() {
+        // given
+        when(featureToggles.isBayesOnlineTrainingEnabled()).thenReturn(true);
+        when(featureToggles.isBayesOnlineTrainingLemmatizedModeEnabled()).thenReturn(true);
+        when(featureToggles.getBayesAnalysisClassificationType()).thenReturn(BINARY);
+        when(featureToggles.getBayesOnlineTrainingSnapshotPath())
+                .thenReturn(temporaryFolder.getRoot().toPath().resolve("bayes.bin").toString());
+        when(lemmatizerClient.lemmatizeAll(anyList())).thenThrow(new IllegalStateException("CoreNLP is not available"));
+        OnlineNaiveBayesTrainer trainer =
+                new OnlineNaiveBayesTrainer(featureToggles, ForkJoinPool.commonPool(), lemmatizerClient,
+                        TokenFilters.defaults());
+        trainer.restore();
+
+        // when
+        trainer.train(List.of(tweet()), List.of(analysis()));
+
+        // then
+        verify(lemmatizerClient).lemmatizeAll(anyList());
+    }
+
+    private static Tweet tweet() {
+        Tweet tweet = new Tweet();
+        tweet.setId("1");
+        tweet.setContent("what a lovely match");
+        return tweet;
+    }
+
+    private static OpinionFinderAnalysis analysis() {
+        DictionaryEntry dictionaryEntry = new DictionaryEntry();
+        dictionaryEntry.setToken("lovely");
+        dictionaryEntry.setPolarity("positive");
+        OpinionFinderAnalysis analysis = new OpinionFinderAnalysis();
+        analysis.setEntityId("1");
+        analysis.setDictionary(Set.of(dictionaryEntry));
+        return analysis;
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.amkaras.tweetus.common.util;
+
+import com.github.amkaras.tweetus.external.opinionfinder.entity.OpinionFinderAnalysis;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class AnalysesIndexTest {
+
+    @Test
+    public void shouldFindFirstAnalysisOfEachEntity() {
+        OpinionFinderAnalysis first = analysis("1");
+        OpinionFinderAnalysis second = analysis("2");
+        OpinionFinderAnalysis duplicate = analysis("1");
+
+        AnalysesIndex index = AnalysesIndex.of(List.of(first, second, duplicate));
+
+        assertEquals(2, index.size());
+        assertSame(first, index.find("1").get());
+        assertSame(second, index.find("2").get());
+        assertEquals(Optional.empty(), index.find("3"));
+        assertFalse(index.contains("3"));
+    }
+
+    private static OpinionFinderAnalysis analysis(String entityId) {
+        OpinionFinderAnalysis analysis = new OpinionFinderAnalysis();
+        analysis.setEntityId(entityId);
+        return analysis;
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.amkaras.tweetus.common.util;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.github.amkaras.tweetus.common.util.HashingVectorizer.Builder.hashingVectorizerBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class HashingVectorizerTest {
+
+    @Test
+    public void shouldMapNGramsIntoFixedNumberOfFeatures() {
+        HashingVectorizer vectorizer = hashingVectorizerBuilder()
+                .withFeaturesCount(16)
+                .withBigramsEnabled(true)
+                .withCharacterNGramLength(3)
+                .build();
+
+        List<String> features = vectorizer.features(List.of("great", "game"));
+
+        // 2 unigrams, 1 bigram, 5 + 4 character trigrams of " great " and " game "
+        assertEquals(12, features.size());
+        assertEquals(features, vectorizer.features(List.of("great", "game")));
+        assertEquals(11, vectorizer.tokenFeatures(List.of("great", "game")).size());
+        assertTrue(features.stream()
+                .map(feature -> Integer.parseInt(feature.substring(1)))
+                .allMatch(featureId -> featureId >= 0 && featureId < 16));
+    }
+
+    @Test
+    public void shouldHashUnigramsOnlyByDefault() {
+        HashingVectorizer vectorizer = hashingVectorizerBuilder()
+                .withFeaturesCount(1 << 20)
+                .build();
+
+        List<String> features = vectorizer.features(List.of("great", "game", "great"));
+
+        assertEquals(3, features.size());
+        assertEquals(features.get(0), features.get(2));
+        assertNotEquals(features.get(0), features.get(1));
+        assertThrows(IllegalArgumentException.class, () -> hashingVectorizerBuilder().build());
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.amkaras.tweetus.common.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SubstringMatcherTest {
+
+    @Test
+    public void shouldMatchPatternsAnywhereInText() {
+        SubstringMatcher matcher = SubstringMatcher.of(List.of("he", "she", "hers", "café"));
+
+        assertTrue(matcher.containsAny("ushers"));
+        assertTrue(matcher.containsAny("shhe"));
+        assertTrue(matcher.containsAny("un café"));
+        assertFalse(matcher.containsAny("cafe hrs"));
+        assertFalse(matcher.containsAny(""));
+        assertTrue(matcher.containsAny("xxshe".toCharArray(), 2, 3));
+        assertFalse(matcher.containsAny("xxshe".toCharArray(), 0, 3));
+    }
+
+    @Test
+    public void shouldMatchSameTextsAsContains() {
+        Random random = new Random(7);
+        List<String> patterns = List.of("ab", "bab", "aca", "c", "bbbb", "ą");
+        SubstringMatcher matcher = SubstringMatcher.of(patterns);
+        String alphabet = "abdąx";
+        for (int i = 0; i < 10_000; ++i) {
+            StringBuilder text = new StringBuilder();
+            for (int j = random.nextInt(12); j > 0; --j) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            boolean expected = patterns.stream().anyMatch(text.toString()::contains);
+            assertEquals(text.toString(), expected, matcher.containsAny(text));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.amkaras.tweetus.common.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.github.amkaras.tweetus.common.util.Tokenizer.WHITESPACES;
+import static org.junit.Assert.assertEquals;
+
+public class TokenizerTest {
+
+    @Test
+    public void shouldPrepareSameTokensAsFiltersChain() {
+        List<String> contents = List.of(
+                "RT @realDonaldTrump: MAKE AMERICA GREAT AGAIN! #MAGA https://t.co/xyz",
+                "  Hillary's emails… (again) \"they're\" lying?!",
+                "The other band\tplayed\nTHERE  andrew trumpet ex-president 2016",
+                "[Breaking]: voters* are:angry, really... angry…",
+                "\u001Cvo\u001Fters don't  café na ive 😀 smile😀",
+                "",
+                "   ");
+
+        for (String content : contents) {
+            assertEquals(content, legacyTokens(content), Tokenizer.prepareTokens(content, TokenFilters.defaults()));
+            assertEquals(content, legacyTokens(content), Tokenizer.prepareTokens(List.of(content.split(WHITESPACES)), TokenFilters.defaults()));
+        }
+    }
+
+    @Test
+    public void shouldPrepareSameTokensForAnyCharacter() {
+        for (int c = 0; c <= Character.MAX_VALUE; ++c) {
+            String content = "vot" + (char) c + "ers ab" + (char) c + " " + (char) c + "clinton";
+            assertEquals(content, legacyTokens(content), Tokenizer.prepareTokens(content, TokenFilters.defaults()));
+        }
+    }
+
+    @Test
+    public void shouldPrepareSameTokensForRandomContents() {
+        Random random = new Random(42);
+        String alphabet = "abcdehilnortuyzADHTX .,\"'?!#@[]()*:…-_/\t  \u001EK";
+        for (int i = 0; i < 10_000; ++i) {
+            StringBuilder content = new StringBuilder();
+            for (int j = random.nextInt(40); j > 0; --j) {
+                content.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertEquals(content.toString(), legacyTokens(content.toString()), Tokenizer.prepareTokens(content.toString(), TokenFilters.defaults()));
+        }
+    }
+
+    @Test
+    public void shouldPrepareTokensWithConfiguredFilters() {
+        TokenFilters filters = TokenFilters.Builder.tokenFiltersBuilder()
+                .withEntityNames(List.of(" Duda ", "Trzaskowski", ""))
+                .withCommonWords(List.of("oraz", "nie"))
+                .build();
+
+        assertEquals(List.of("trump", "the", "wybory"),
+                Tokenizer.prepareTokens("Duda Trump the Trzaskowskiego oraz wybory Niemcy", filters));
+    }
+
+    private static List<String> legacyTokens(String content) {
+        return Tokenizer.filters(TokenFilters.defaults()).apply(List.of(content.split(WHITESPACES)));
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.amkaras.tweetus.external.stanfordnlp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+public class LemmaCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicInteger lemmatizations = new AtomicInteger();
+    private final Function<String, List<String>> lemmatizer = text -> {
+        lemmatizations.incrementAndGet();
+        return List.of(text.replace("ies", "y").split(" "));
+    };
+
+    @Test
+    public void shouldLemmatizeRecurringTextsOnceAndEvictAboveMaximumSize() {
+        LemmaCache cache = new LemmaCache(2, temporaryFolder.getRoot().toPath().resolve("lemmas.bin"));
+
+        assertEquals(List.of("party"), cache.lemmatize("parties", lemmatizer));
+        assertEquals(List.of("party"), cache.lemmatize("parties", lemmatizer));
+        cache.lemmatize("votes", lemmatizer);
+        cache.lemmatize("elections", lemmatizer);
+
+        assertEquals(3, lemmatizations.get());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(3, cache.stats().missCount());
+    }
+
+    @Test
+    public void shouldLemmatizeOnlyMissingTextsOfBatchInInputOrder() {
+        LemmaCache cache = new LemmaCache(100, temporaryFolder.getRoot().toPath().resolve("lemmas.bin"));
+        cache.lemmatize("parties", lemmatizer);
+        List<List<String>> batches = new ArrayList<>();
+
+        List<List<String>> lemmas = cache.lemmatizeAll(List.of("cities", "parties", "cities"), texts -> {
+            batches.add(texts);
+            return texts.stream().map(lemmatizer).collect(toList());
+        });
+
+        assertEquals(List.of(List.of("city"), List.of("party"), List.of("city")), lemmas);
+        assertEquals(List.of(List.of("cities")), batches);
+    }
+
+    @Test
+    public void shouldRestoreSavedEntries() {
+        Path path = temporaryFolder.getRoot().toPath().resolve("lemmas.bin");
+        LemmaCache cache = new LemmaCache(100, path);
+        cache.lemmatize("cities and countries", lemmatizer);
+        cache.save();
+
+        LemmaCache restoredCache = new LemmaCache(100, path);
+        restoredCache.restore();
+
+        assertEquals(List.of("city", "and", "country"), restoredCache.lemmatize("cities and countries", lemmatizer));
+        assertEquals(1, lemmatizations.get());
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.amkaras.tweetus.external.stanfordnlp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class LemmaTableTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final LemmaTable lemmaTable = LemmaTable.of(Map.of(
+            "parties", "party",
+            "was", "be",
+            "are", "be",
+            "vote", "vote"));
+
+    @Test
+    public void shouldKeepOnlyWordsDifferentFromTheirLemmas() {
+        assertEquals(3, lemmaTable.size());
+        assertEquals("party", lemmaTable.lemma("Parties"));
+        assertEquals("vote", lemmaTable.lemma("vote"));
+        assertEquals("Sejm", lemmaTable.lemma("Sejm"));
+    }
+
+    @Test
+    public void shouldLemmatizeWithoutCoreNLPAfterReadingWrittenTable() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("lemmas.tsv");
+        lemmaTable.write(path);
+
+        StanfordLemmatizerClient lemmatizerClient = StanfordLemmatizerClient.createWithLemmaTable(LemmaTable.read(path));
+
+        assertEquals(List.of("party", "be", "elected"), lemmatizerClient.lemmatize("parties are  elected"));
+        assertEquals(List.of(List.of("be"), List.of()), lemmatizerClient.lemmatizeAll(List.of("was", " ")));
+    }
+}
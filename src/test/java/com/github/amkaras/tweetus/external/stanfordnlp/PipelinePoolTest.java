@@ -0,0 +1,118 @@
+package com.github.amkaras.tweetus.external.stanfordnlp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelinePoolTest {
+
+    @Test(timeout = 10_000)
+    public void shouldLoadPipelinesLazilyAndReuseReleasedOnes() {
+        AtomicInteger loads = new AtomicInteger();
+        PipelinePool<Integer> pool = new PipelinePool<>(loads::incrementAndGet, 2);
+        assertEquals(0, loads.get());
+
+        Integer first = pool.acquire();
+        pool.release(first);
+        Integer reused = pool.acquire();
+        Integer second = pool.acquire();
+
+        assertSame(first, reused);
+        assertEquals(Integer.valueOf(2), second);
+        assertEquals(2, loads.get());
+        assertEquals(2, pool.getLoadedCount());
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldNotLoadMorePipelinesThanPoolSizeForConcurrentCallers() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        PipelinePool<Integer> pool = new PipelinePool<>(loads::incrementAndGet, 2);
+        Set<Integer> pipelinesInUse = ConcurrentHashMap.newKeySet();
+        AtomicInteger maxInUse = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; ++i) {
+                futures.add(executor.submit(() -> {
+                    Integer pipeline = pool.acquire();
+                    if (!pipelinesInUse.add(pipeline)) {
+                        throw new IllegalStateException("Pipeline " + pipeline + " used by two callers");
+                    }
+                    maxInUse.accumulateAndGet(pipelinesInUse.size(), Math::max);
+                    Thread.yield();
+                    pipelinesInUse.remove(pipeline);
+                    pool.release(pipeline);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, loads.get());
+        assertTrue(maxInUse.get() <= 2);
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldLoadPipelineForWaitingCallerAfterFailedLoad() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch failLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        PipelinePool<Integer> pool = new PipelinePool<>(() -> {
+            if (loads.incrementAndGet() == 1) {
+                loadStarted.countDown();
+                await(failLoad);
+                throw new IllegalStateException("Models are missing");
+            }
+            return loads.get();
+        }, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> failing = executor.submit(pool::acquire);
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            Future<Integer> waiting = executor.submit(pool::acquire);
+            /*
+            Gives the second caller time to find the pool full and start waiting
+             */
+            Thread.sleep(300);
+            failLoad.countDown();
+
+            try {
+                failing.get();
+                fail("Load should have failed");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertEquals(Integer.valueOf(2), waiting.get(5, TimeUnit.SECONDS));
+            assertEquals(1, pool.getLoadedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}